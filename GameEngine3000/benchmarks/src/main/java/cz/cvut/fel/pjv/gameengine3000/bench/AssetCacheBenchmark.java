@@ -0,0 +1,48 @@
+package cz.cvut.fel.pjv.gameengine3000.bench;
+
+import cz.cvut.fel.pjv.gameengine3000.game.GameConfig;
+import cz.cvut.fel.pjv.gameengine3000.utils.AssetManager;
+
+import javafx.scene.image.Image;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code AssetManager.getSprite} on a warm sprite cache (hit) and with the sprite evicted but the sheet
+ * still decoded (miss, i.e. key building plus pixel copy).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AssetCacheBenchmark {
+
+    private static final String SHEET = GameConfig.BEAR_ENEMY_SHEET;
+    private static final int FRAME = 16;
+
+    private AssetManager assets;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        assets = new AssetManager();
+        if (assets.loadSpritesheet(SHEET) == null) {
+            throw new IllegalStateException("Cannot load " + SHEET);
+        }
+        assets.getSprite(SHEET, 1, 1, FRAME, FRAME);
+    }
+
+    @Benchmark
+    public Image getSpriteHit() {
+        return assets.getSprite(SHEET, 1, 1, FRAME, FRAME);
+    }
+
+    @Benchmark
+    public Image getSpriteMiss() {
+        assets.clearSpriteCache();
+        return assets.getSprite(SHEET, 1, 1, FRAME, FRAME);
+    }
+}
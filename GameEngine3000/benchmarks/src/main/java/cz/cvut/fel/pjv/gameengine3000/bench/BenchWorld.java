@@ -0,0 +1,55 @@
+package cz.cvut.fel.pjv.gameengine3000.bench;
+
+import cz.cvut.fel.pjv.gameengine3000.game.EntityManager;
+import cz.cvut.fel.pjv.gameengine3000.game.GameConfig;
+import cz.cvut.fel.pjv.gameengine3000.game.GameEngine;
+import cz.cvut.fel.pjv.gameengine3000.game.GameStatus;
+import cz.cvut.fel.pjv.gameengine3000.savegame.EnemyData;
+
+import java.util.Random;
+
+/**
+ * Headless single-player world filled with a fixed number of enemies and projectiles, shared by the benchmarks.
+ * Enemies occupy the left two thirds of the world and projectiles the right third, so collision passes do
+ * the full amount of work without killing anything.
+ */
+final class BenchWorld {
+
+    static final double STEP = 1.0 / 60.0;
+    static final double WIDTH = GameConfig.HEADLESS_WORLD_WIDTH;
+    static final double HEIGHT = GameConfig.HEADLESS_WORLD_HEIGHT;
+
+    final GameEngine engine;
+    final GameStatus status;
+    final EntityManager entities;
+
+    private BenchWorld(GameEngine engine) {
+        this.engine = engine;
+        this.status = engine.getGameStatus();
+        this.entities = engine.getEntityManager();
+    }
+
+    static BenchWorld create(int enemies, int projectiles, long seed) {
+        GameEngine engine = GameEngine.createHeadless(WIDTH, HEIGHT, new GameStatus());
+        engine.startGameLoop();
+        engine.setupSinglePlayer();
+        BenchWorld world = new BenchWorld(engine);
+
+        Random random = new Random(seed);
+        for (int i = 0; i < enemies; i++) {
+            double x = 24 + random.nextDouble() * (WIDTH * 2.0 / 3.0 - 48);
+            double y = 24 + random.nextDouble() * (HEIGHT - 48);
+            world.entities.createEnemyFromStateForLoad(new EnemyData(1000 + i, "bear", x, y, Integer.MAX_VALUE, "DOWN"));
+        }
+        for (int i = 0; i < projectiles; i++) {
+            double x = WIDTH * 2.0 / 3.0 + 24 + random.nextDouble() * (WIDTH / 3.0 - 48);
+            double y = 24 + random.nextDouble() * (HEIGHT - 48);
+            world.entities.spawnProjectile(x, y, x, y - 1);
+        }
+        return world;
+    }
+
+    void dispose() {
+        engine.stopGameAndCleanUp();
+    }
+}
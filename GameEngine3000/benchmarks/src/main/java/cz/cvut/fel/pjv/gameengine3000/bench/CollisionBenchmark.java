@@ -0,0 +1,50 @@
+package cz.cvut.fel.pjv.gameengine3000.bench;
+
+import cz.cvut.fel.pjv.gameengine3000.game.CollisionHandler;
+import cz.cvut.fel.pjv.gameengine3000.physics.BroadphaseType;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One authoritative collision pass (player attacks, enemy vs player, projectile vs enemy), including the
+ * broadphase refresh, for each broadphase implementation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollisionBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int enemies;
+
+    @Param({"50"})
+    public int projectiles;
+
+    @Param({"grid", "tree", "sweep", "brute"})
+    public String broadphase;
+
+    private BenchWorld world;
+    private CollisionHandler collisions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = BenchWorld.create(enemies, projectiles, 42);
+        world.entities.setEnemyBroadphaseType(BroadphaseType.fromName(broadphase));
+        collisions = new CollisionHandler(world.entities, world.status, player -> { });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        world.dispose();
+    }
+
+    @Benchmark
+    public void checkAuthoritativeCollisions() {
+        collisions.checkAuthoritativeCollisions(BenchWorld.WIDTH, BenchWorld.HEIGHT);
+    }
+}
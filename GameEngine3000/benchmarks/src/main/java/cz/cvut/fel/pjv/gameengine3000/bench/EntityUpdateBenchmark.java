@@ -0,0 +1,36 @@
+package cz.cvut.fel.pjv.gameengine3000.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** One simulation step of {@code EntityManager.updateAllEntities} (players, enemy AI and movement, projectiles). */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EntityUpdateBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int enemies;
+
+    private BenchWorld world;
+
+    // Rebuilt every iteration so enemies that bunched up around the player do not skew later iterations.
+    @Setup(Level.Iteration)
+    public void setUp() {
+        world = BenchWorld.create(enemies, 0, 42);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        world.dispose();
+    }
+
+    @Benchmark
+    public void updateAllEntities() {
+        world.entities.updateAllEntities(BenchWorld.STEP, BenchWorld.WIDTH, BenchWorld.HEIGHT);
+    }
+}
@@ -0,0 +1,42 @@
+package cz.cvut.fel.pjv.gameengine3000.bench;
+
+import cz.cvut.fel.pjv.gameengine3000.game.GameConfig;
+import cz.cvut.fel.pjv.gameengine3000.map.CustomMapLoader;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/** Parsing a .map file into tile layers (tile data only, no visuals). */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapLoadBenchmark {
+
+    @Param({GameConfig.DEFAULT_MAP_PATH, "/maps/level2.map"})
+    public String mapPath;
+
+    private PrintStream originalOut;
+
+    // The loader logs every layer it parses; keep that out of the measurement.
+    @Setup(Level.Trial)
+    public void silence() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void restore() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public CustomMapLoader parseMap() {
+        return new CustomMapLoader(mapPath, null);
+    }
+}
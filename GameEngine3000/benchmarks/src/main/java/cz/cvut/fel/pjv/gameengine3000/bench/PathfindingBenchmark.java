@@ -0,0 +1,59 @@
+package cz.cvut.fel.pjv.gameengine3000.bench;
+
+import cz.cvut.fel.pjv.gameengine3000.ai.GridPathfinder;
+import cz.cvut.fel.pjv.gameengine3000.ai.HierarchicalPathfinder;
+import cz.cvut.fel.pjv.gameengine3000.map.CollisionMask;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One corner-to-corner path query on a square map scattered with rectangular obstacles, with plain A*
+ * and with the hierarchical pathfinder (abstract graph built during setup, waypoints only).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PathfindingBenchmark {
+
+    @Param({"64", "256", "512"})
+    public int mapTiles;
+
+    @Param({"flat", "hierarchical"})
+    public String pathfinder;
+
+    private GridPathfinder flat;
+    private HierarchicalPathfinder hierarchical;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CollisionMask mask = new CollisionMask(mapTiles, mapTiles);
+        Random random = new Random(42);
+        for (int i = 0; i < mapTiles * mapTiles / 200; i++) {
+            int x0 = random.nextInt(mapTiles), y0 = random.nextInt(mapTiles);
+            int x1 = Math.min(mapTiles, x0 + 2 + random.nextInt(8)), y1 = Math.min(mapTiles, y0 + 2 + random.nextInt(8));
+            for (int y = y0; y < y1; y++) {
+                for (int x = x0; x < x1; x++) mask.setBlocked(x, y, true);
+            }
+        }
+        mask.setBlocked(0, 0, false);
+        mask.setBlocked(mapTiles - 1, mapTiles - 1, false);
+        if ("flat".equals(pathfinder)) {
+            flat = new GridPathfinder(mask);
+        } else {
+            hierarchical = new HierarchicalPathfinder(mask, 16);
+            hierarchical.getEntranceCount(); // builds the abstract graph
+        }
+    }
+
+    @Benchmark
+    public int[] longQuery() {
+        int last = mapTiles - 1;
+        return (flat != null) ? flat.findPath(0, 0, last, last, Integer.MAX_VALUE) : hierarchical.findPath(0, 0, last, last);
+    }
+}
@@ -0,0 +1,49 @@
+package cz.cvut.fel.pjv.gameengine3000.bench;
+
+import cz.cvut.fel.pjv.gameengine3000.savegame.SaveGameData;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Jackson round trip of {@link SaveGameData}, configured like {@code SaveLoadManager} but without file I/O. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SaveGameBenchmark {
+
+    @Param({"10", "1000"})
+    public int enemies;
+
+    private ObjectMapper objectMapper;
+    private SaveGameData data;
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+
+        BenchWorld world = BenchWorld.create(enemies, 0, 42);
+        data = world.engine.captureGameStateForSave();
+        world.dispose();
+        json = objectMapper.writeValueAsBytes(data);
+    }
+
+    @Benchmark
+    public byte[] save() throws IOException {
+        return objectMapper.writeValueAsBytes(data);
+    }
+
+    @Benchmark
+    public SaveGameData load() throws IOException {
+        return objectMapper.readValue(json, SaveGameData.class);
+    }
+}
@@ -0,0 +1,121 @@
+package cz.cvut.fel.pjv.gameengine3000;
+
+import cz.cvut.fel.pjv.gameengine3000.game.FixedStepLoop;
+import cz.cvut.fel.pjv.gameengine3000.game.GameConfig;
+import cz.cvut.fel.pjv.gameengine3000.game.GameEngine;
+import cz.cvut.fel.pjv.gameengine3000.game.GameStatus;
+import cz.cvut.fel.pjv.gameengine3000.replay.ReplayRecording;
+import cz.cvut.fel.pjv.gameengine3000.replay.ReplayRunner;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Runs the authoritative simulation without a JavaFX toolkit.
+ * <pre>
+ *   HeadlessApp [--ticks N] [--record]   simulate N fixed steps as fast as possible (soak tests, benchmarks),
+ *                                         optionally saving the session to replays/
+ *   HeadlessApp --host PORT               dedicated host, ticks in real time until the process is stopped
+ *   HeadlessApp --replay FILE             re-simulate a recorded session and verify its end state
+ * </pre>
+ */
+public class HeadlessApp {
+
+    public static void main(String[] args) {
+        long ticks = 60L * 60;
+        int hostPort = -1;
+        boolean record = false;
+        String replayFile = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--ticks": ticks = Long.parseLong(args[++i]); break;
+                case "--host":  hostPort = Integer.parseInt(args[++i]); break;
+                case "--record": record = true; break;
+                case "--replay": replayFile = args[++i]; break;
+                default:
+                    System.err.println("HeadlessApp: Unknown argument " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        if (replayFile != null) {
+            System.exit(runReplay(new File(replayFile)) ? 0 : 1);
+        }
+
+        GameStatus gameStatus = new GameStatus();
+        GameEngine engine = GameEngine.createHeadless(GameConfig.HEADLESS_WORLD_WIDTH, GameConfig.HEADLESS_WORLD_HEIGHT, gameStatus);
+        engine.startGameLoop();
+
+        if (hostPort > 0) {
+            engine.setupMultiplayerHost(hostPort);
+            runRealTime(engine);
+        } else {
+            if (record) engine.startReplayRecording();
+            engine.setupSinglePlayer();
+            runAsFastAsPossible(engine, ticks);
+        }
+        engine.stopGameAndCleanUp();
+        engine.getProfiler().dumpCsv();
+        System.out.print(engine.getProfiler().formatSummary());
+    }
+
+    private static void runAsFastAsPossible(GameEngine engine, long ticks) {
+        double step = 1.0 / GameConfig.SIMULATION_TICK_RATE;
+        long start = System.nanoTime();
+        long executed = 0;
+        while (executed < ticks && !engine.getGameStatus().isGameIsOver()) {
+            engine.tick(step, engine.getScreenWidth(), engine.getScreenHeight());
+            executed++;
+        }
+        double wallSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.printf("HeadlessApp: %d ticks (%.1f s simulated) in %.3f s wall, %.0f ticks/s, enemies=%d, score=%d%n",
+                executed, executed * step, wallSeconds, executed / Math.max(wallSeconds, 1e-9),
+                engine.getEntityManager().getNetworkedEnemies().size(), engine.getGameStatus().getScore());
+    }
+
+    private static boolean runReplay(File file) {
+        ReplayRecording recording;
+        try {
+            recording = ReplayRecording.read(file);
+        } catch (IOException e) {
+            System.err.println("HeadlessApp: Could not read replay " + file + ": " + e.getMessage());
+            return false;
+        }
+        System.out.printf("HeadlessApp: Replaying %s (seed=%d, %d events, %d ticks)%n",
+                file, recording.seed, recording.events.size(), recording.endTick);
+
+        ReplayRunner.Result result = new ReplayRunner(recording).run();
+        System.out.printf("HeadlessApp: Replayed %d ticks in %.3f s wall, %.0f ticks/s (%.0fx real time)%n",
+                result.ticks, result.wallSeconds, result.ticksPerSecond(), result.ticksPerSecond() / recording.tickRate);
+        if (result.matches) {
+            System.out.printf("HeadlessApp: End state matches (checksum %016x).%n", result.checksum);
+        } else {
+            System.err.printf("HeadlessApp: DESYNC - expected %d ticks / %016x, got %d ticks / %016x%n",
+                    recording.endTick, recording.endChecksum, result.ticks, result.checksum);
+        }
+        return result.matches;
+    }
+
+    private static void runRealTime(GameEngine engine) {
+        FixedStepLoop loop = new FixedStepLoop(GameConfig.SIMULATION_TICK_RATE, GameConfig.MAX_CATCH_UP_STEPS);
+        long stepNanos = (long) (loop.getStepSeconds() * 1_000_000_000L);
+        long last = System.nanoTime();
+        while (!engine.getGameStatus().isGameIsOver()) {
+            long now = System.nanoTime();
+            loop.advance((now - last) / 1_000_000_000.0,
+                    dt -> engine.tick(dt, engine.getScreenWidth(), engine.getScreenHeight()));
+            last = now;
+            long sleepNanos = stepNanos - (System.nanoTime() - now);
+            if (sleepNanos > 0) {
+                try {
+                    Thread.sleep(sleepNanos / 1_000_000L, (int) (sleepNanos % 1_000_000L));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
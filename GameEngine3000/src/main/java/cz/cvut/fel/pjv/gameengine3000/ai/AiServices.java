@@ -0,0 +1,66 @@
+package cz.cvut.fel.pjv.gameengine3000.ai;
+
+import cz.cvut.fel.pjv.gameengine3000.entities.Player;
+import cz.cvut.fel.pjv.gameengine3000.game.GameConfig;
+import cz.cvut.fel.pjv.gameengine3000.map.CustomMapLoader;
+
+import java.util.Collection;
+
+/**
+ * Map-level queries shared by all enemies of one game session. Created by the EntityManager and handed to
+ * every {@code Enemy}; {@link #beginTick(int)} resets the per-tick state before the enemies think and
+ * {@link #endTick()} does the deferred work once they have moved.
+ * Query methods may be called concurrently from the parallel think phase.
+ */
+public class AiServices {
+
+    private final VisibilityService visibility;
+    private final PathService paths;
+    private final FlowFieldService flowFields;
+
+    /** @param mapLoader the current map, or null for an empty world */
+    public AiServices(CustomMapLoader mapLoader) {
+        this.visibility = new VisibilityService(mapLoader != null ? mapLoader.getRaycaster() : null);
+        this.paths = (mapLoader != null)
+                ? new PathService(mapLoader.getCollisionMask(), mapLoader.getTileWidth(), mapLoader.getTileHeight(),
+                        GameConfig.PATH_CACHE_SIZE, GameConfig.PATH_NODE_BUDGET, clusterSizeFor(mapLoader))
+                : new PathService(null, 1, 1, 1, 1, 0);
+        this.flowFields = (mapLoader != null)
+                ? new FlowFieldService(mapLoader.getCollisionMask(), mapLoader.getTileWidth(), mapLoader.getTileHeight(),
+                        GameConfig.FLOW_FIELD_NODE_BUDGET)
+                : new FlowFieldService(null, 1, 1, 1);
+    }
+
+    /**
+     * @param requesterLimit one past the highest enemy slot that may make requests this tick
+     * @param players        every living player keeps a flow field, keyed by network id
+     */
+    public void beginTick(int requesterLimit, Collection<Player> players) {
+        visibility.beginTick();
+        paths.beginTick(requesterLimit);
+        flowFields.beginTick();
+        for (Player player : players) {
+            if (player.isAlive()) flowFields.track(player.getNetworkID(), player.getX(), player.getY());
+        }
+    }
+
+    public void endTick() {
+        paths.processRequests();
+        flowFields.update();
+    }
+
+    /** The collision mask changed at this tile; call between ticks. */
+    public void tileChanged(int tileX, int tileY) {
+        paths.tileChanged(tileX, tileY);
+        flowFields.tileChanged();
+    }
+
+    private static int clusterSizeFor(CustomMapLoader mapLoader) {
+        long tiles = (long) mapLoader.getMapWidthTiles() * mapLoader.getMapHeightTiles();
+        return tiles >= GameConfig.HIERARCHICAL_PATH_MIN_TILES ? GameConfig.PATH_CLUSTER_SIZE : 0;
+    }
+
+    public VisibilityService getVisibility() { return visibility; }
+    public PathService getPaths() { return paths; }
+    public FlowFieldService getFlowFields() { return flowFields; }
+}
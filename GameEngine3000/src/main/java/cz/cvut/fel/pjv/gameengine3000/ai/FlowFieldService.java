@@ -0,0 +1,229 @@
+package cz.cvut.fel.pjv.gameengine3000.ai;
+
+import cz.cvut.fel.pjv.gameengine3000.map.CollisionMask;
+import cz.cvut.fel.pjv.gameengine3000.physics.Vec2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flow fields towards the players, shared by every enemy chasing them. For each tracked target there is one
+ * Dijkstra map over the tile grid holding, per tile, the distance to the target's tile and the neighbouring
+ * tile to step into next, so steering any number of enemies costs one array read each.
+ * <p>
+ * A field is only rebuilt when its target enters another tile. Each field is double-buffered: enemies sample
+ * the finished front buffer while the back buffer is built in {@link #update()}, at most about
+ * {@code nodeBudget} tile expansions per tick over all fields, and the two are swapped once the build is
+ * complete. Until then enemies keep following the field to the target's previous tile, which is at most a
+ * few tiles off. Steps follow the same rules as {@link GridPathfinder}: eight-connected, no corner cutting.
+ * <p>
+ * {@link #track} and {@link #update()} must be called serially, outside the think phase; the sampling
+ * methods only read front buffers and may be called concurrently.
+ */
+public class FlowFieldService {
+
+    private static final int UNREACHED = -1;
+
+    private final CollisionMask mask; // null: no map, no fields
+    private final int width;
+    private final int height;
+    private final double tileWidth;
+    private final double tileHeight;
+    private final int nodeBudget;
+
+    private final Map<Integer, FlowField> fieldsByTarget = new HashMap<>();
+    private final List<FlowField> fields = new ArrayList<>(); // build order
+    private int firstField = 0; // where the next update starts spending its budget
+    private long tick = 0;
+
+    private int expandedLastTick;
+
+    /** @param mask the map's collision layer, or null for an empty world */
+    public FlowFieldService(CollisionMask mask, double tileWidth, double tileHeight, int nodeBudget) {
+        boolean hasTiles = mask != null && mask.getWidthTiles() > 0 && mask.getHeightTiles() > 0;
+        this.mask = hasTiles ? mask : null;
+        this.width = hasTiles ? mask.getWidthTiles() : 0;
+        this.height = hasTiles ? mask.getHeightTiles() : 0;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.nodeBudget = Math.max(1, nodeBudget);
+    }
+
+    /** Starts a new tick; targets not {@link #track tracked} again before the next {@link #update()} are dropped. */
+    public void beginTick() {
+        tick++;
+    }
+
+    /** Keeps a field towards the target, which currently stands at (x, y); the field follows it from tile to tile. */
+    public void track(int targetId, double x, double y) {
+        if (mask == null) return;
+        FlowField field = fieldsByTarget.get(targetId);
+        if (field == null) {
+            field = new FlowField(targetId, width * height);
+            fieldsByTarget.put(targetId, field);
+            fields.add(field);
+        }
+        field.trackedTick = tick;
+        int tile = tileIndex(x, y);
+        if (tile >= 0) field.wantedGoal = tile;
+    }
+
+    /** The map changed: every field is rebuilt, and followed as it was until then. */
+    public void tileChanged() {
+        for (FlowField field : fields) field.stale = true;
+    }
+
+    /** Drops untracked fields and advances the pending builds within the node budget. Call once per tick, after thinking. */
+    public void update() {
+        expandedLastTick = 0;
+        for (int i = fields.size() - 1; i >= 0; i--) {
+            FlowField field = fields.get(i);
+            if (field.trackedTick == tick) continue;
+            fields.remove(i);
+            fieldsByTarget.remove(field.targetId);
+        }
+        if (fields.isEmpty()) return;
+
+        int budget = nodeBudget;
+        int count = fields.size();
+        int start = firstField % count;
+        for (int i = 0; i < count && budget > 0; i++) {
+            FlowField field = fields.get((start + i) % count);
+            int used = build(field, budget);
+            budget -= used;
+            expandedLastTick += used;
+            if (budget <= 0) firstField = (start + i + 1) % count;
+        }
+    }
+
+    /**
+     * Writes the unit direction from (x, y) towards the next tile on the way to the target into direction.
+     * Returns false when the field cannot help: the target is not tracked or its first field is still being
+     * built, the point is off the map or cut off from the target, or it already stands in the target's tile.
+     */
+    public boolean steer(int targetId, double x, double y, Vec2 direction) {
+        FlowField field = (mask != null) ? fieldsByTarget.get(targetId) : null;
+        if (field == null || field.goal < 0) return false;
+        int here = tileIndex(x, y);
+        if (here < 0) return false;
+        int next = field.next[here];
+        if (next == UNREACHED || next == here) return false;
+
+        double dx = (next % width + 0.5) * tileWidth - x;
+        double dy = (next / width + 0.5) * tileHeight - y;
+        double length = Math.sqrt(dx * dx + dy * dy);
+        if (length == 0) return false;
+        direction.set(dx / length, dy / length);
+        return true;
+    }
+
+    /** Walking distance in tiles from (x, y) to the target's tile, or {@link Float#POSITIVE_INFINITY} if unknown or unreachable. */
+    public float distanceTo(int targetId, double x, double y) {
+        FlowField field = (mask != null) ? fieldsByTarget.get(targetId) : null;
+        if (field == null || field.goal < 0) return Float.POSITIVE_INFINITY;
+        int here = tileIndex(x, y);
+        return here < 0 ? Float.POSITIVE_INFINITY : field.distance[here];
+    }
+
+    public int getFieldCount() { return fields.size(); }
+    public int getExpandedLastTick() { return expandedLastTick; }
+
+    /** Expands up to budget tiles of the field's pending build, starting one if its target moved; returns the tiles expanded. */
+    private int build(FlowField field, int budget) {
+        if (field.buildGoal < 0) {
+            if (field.wantedGoal < 0 || (field.wantedGoal == field.goal && !field.stale)) return 0;
+            field.buildGoal = field.wantedGoal;
+            field.stale = false;
+            Arrays.fill(field.buildDistance, Float.POSITIVE_INFINITY);
+            Arrays.fill(field.buildNext, UNREACHED);
+            field.open.clear();
+            field.buildDistance[field.buildGoal] = 0f;
+            field.buildNext[field.buildGoal] = field.buildGoal;
+            field.open.push(field.buildGoal, 0.0);
+        }
+
+        float[] distance = field.buildDistance;
+        int[] next = field.buildNext;
+        int expanded = 0;
+        while (!field.open.isEmpty()) {
+            if (expanded >= budget) return expanded;
+            int tile = field.open.pop();
+            float tileDistance = distance[tile];
+            if (field.expandedStamp[tile] == field.buildStamp) continue; // stale heap entry
+            field.expandedStamp[tile] = field.buildStamp;
+            expanded++;
+
+            int x = tile % width, y = tile / width;
+            for (int dir = 0; dir < 8; dir++) {
+                int nx = x + GridPathfinder.STEP_X[dir], ny = y + GridPathfinder.STEP_Y[dir];
+                if (mask.isBlocked(nx, ny)) continue;
+                boolean diagonal = dir >= 4;
+                if (diagonal && (mask.isBlocked(nx, y) || mask.isBlocked(x, ny))) continue;
+                int neighbour = ny * width + nx;
+                float neighbourDistance = tileDistance + (float) (diagonal ? GridPathfinder.DIAGONAL_COST : 1.0);
+                if (neighbourDistance >= distance[neighbour]) continue;
+                distance[neighbour] = neighbourDistance;
+                next[neighbour] = tile;
+                field.open.push(neighbour, neighbourDistance);
+            }
+        }
+        field.publish();
+        return expanded;
+    }
+
+    private int tileIndex(double x, double y) {
+        int tileX = (int) Math.floor(x / tileWidth), tileY = (int) Math.floor(y / tileHeight);
+        if (tileX < 0 || tileY < 0 || tileX >= width || tileY >= height) return -1;
+        return tileY * width + tileX;
+    }
+
+    /** Front and back buffers of one target's field. */
+    private static final class FlowField {
+        final int targetId;
+
+        // Front: read by steering enemies, replaced only by publish()
+        float[] distance;
+        int[] next;
+        int goal = -1;
+
+        // Back: the build in progress
+        float[] buildDistance;
+        int[] buildNext;
+        int buildGoal = -1;
+        final int[] expandedStamp;
+        int buildStamp = 1;
+        final TileHeap open;
+
+        int wantedGoal = -1;
+        boolean stale;
+        long trackedTick;
+
+        FlowField(int targetId, int tiles) {
+            this.targetId = targetId;
+            distance = new float[tiles];
+            next = new int[tiles];
+            buildDistance = new float[tiles];
+            buildNext = new int[tiles];
+            expandedStamp = new int[tiles];
+            open = new TileHeap(tiles / 4);
+        }
+
+        void publish() {
+            float[] oldDistance = distance;
+            int[] oldNext = next;
+            distance = buildDistance;
+            next = buildNext;
+            goal = buildGoal;
+            buildDistance = oldDistance;
+            buildNext = oldNext;
+            buildGoal = -1;
+            if (++buildStamp == Integer.MAX_VALUE) {
+                Arrays.fill(expandedStamp, 0);
+                buildStamp = 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package cz.cvut.fel.pjv.gameengine3000.ai;
+
+import cz.cvut.fel.pjv.gameengine3000.map.CollisionMask;
+
+import java.util.Arrays;
+
+/**
+ * A* over the tile grid of a {@link CollisionMask}, eight-connected with an octile heuristic. Diagonal steps
+ * may not cut the corner of a blocked tile, so a path never squeezes between two diagonal walls.
+ * <p>
+ * Node scores, parents and the open heap are allocated once per map and reused by every search; a search
+ * stamp marks which entries belong to the current search, so nothing is cleared in between.
+ * Tiles are addressed by index {@code tileY * width + tileX}.
+ * Not thread-safe: one instance serves one thread.
+ */
+public class GridPathfinder {
+
+    /** Answer for an unreachable goal. */
+    public static final int[] NO_PATH = new int[0];
+
+    // Shared with FlowFieldService so both agree on which steps are legal; the last four are diagonal
+    static final double DIAGONAL_COST = Math.sqrt(2);
+    static final int[] STEP_X = { 1, -1, 0, 0, 1, 1, -1, -1 };
+    static final int[] STEP_Y = { 0, 0, 1, -1, 1, -1, 1, -1 };
+
+    private final CollisionMask mask;
+    private final int width;
+    private final int height;
+
+    private final double[] cost;
+    private final int[] parent;
+    private final int[] seenStamp;   // == stamp: cost/parent hold this search's values
+    private final int[] closedStamp; // == stamp: expanded in this search
+    private int stamp = 0;
+
+    private final TileHeap open; // on f; improved tiles are pushed again, stale entries skipped
+
+    private int lastExpanded;
+    // The search that gave up last, while no other search has started since; resume() continues it
+    private boolean suspended = false;
+    private int goal, goalX, goalY, minX, minY, maxX, maxY;
+
+    public GridPathfinder(CollisionMask mask) {
+        this.mask = mask;
+        this.width = mask.getWidthTiles();
+        this.height = mask.getHeightTiles();
+        int tiles = width * height;
+        this.cost = new double[tiles];
+        this.parent = new int[tiles];
+        this.seenStamp = new int[tiles];
+        this.closedStamp = new int[tiles];
+        this.open = new TileHeap(tiles / 4);
+    }
+
+    /**
+     * Shortest path between two tiles as tile indices from start to goal, both included.
+     * The start tile may be blocked (an entity pushed into a wall can still find its way out).
+     *
+     * @param maxExpansions give up after expanding this many tiles; {@link #resume} can carry on from there
+     * @return the path, {@link #NO_PATH} if the goal is unreachable, or null if the search gave up
+     */
+    public int[] findPath(int startX, int startY, int goalX, int goalY, int maxExpansions) {
+        return findPathWithin(startX, startY, goalX, goalY, 0, 0, width - 1, height - 1, maxExpansions);
+    }
+
+    /**
+     * Like {@link #findPath} but only walks tiles inside the inclusive rectangle [minX, maxX] x [minY, maxY],
+     * which must contain start and goal; used to refine hierarchical paths one cluster at a time.
+     */
+    public int[] findPathWithin(int startX, int startY, int goalX, int goalY,
+                                int minX, int minY, int maxX, int maxY, int maxExpansions) {
+        lastExpanded = 0;
+        suspended = false;
+        if (!inBounds(startX, startY) || mask.isBlocked(goalX, goalY)) return NO_PATH;
+        if (startX < minX || startX > maxX || startY < minY || startY > maxY
+                || goalX < minX || goalX > maxX || goalY < minY || goalY > maxY) return NO_PATH;
+        int start = startY * width + startX, goal = goalY * width + goalX;
+        if (start == goal) return new int[] { start };
+
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(seenStamp, 0);
+            Arrays.fill(closedStamp, 0);
+            stamp = 1;
+        }
+        open.clear();
+        seenStamp[start] = stamp;
+        cost[start] = 0;
+        parent[start] = -1;
+        open.push(start, heuristic(startX, startY, goalX, goalY));
+
+        this.goal = goal;
+        this.goalX = goalX;
+        this.goalY = goalY;
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        return search(maxExpansions);
+    }
+
+    /**
+     * Continues the last search that gave up, provided no other search was started since, for up to
+     * maxExpansions more tiles. Returns like {@link #findPath}.
+     */
+    public int[] resume(int maxExpansions) {
+        if (!suspended) throw new IllegalStateException("No suspended search to resume.");
+        lastExpanded = 0;
+        suspended = false;
+        return search(maxExpansions);
+    }
+
+    /** Whether the last search gave up and can be resumed. */
+    public boolean isSuspended() { return suspended; }
+
+    private int[] search(int maxExpansions) {
+        while (!open.isEmpty()) {
+            if (lastExpanded >= maxExpansions) {
+                suspended = true;
+                return null;
+            }
+            int node = open.pop();
+            if (closedStamp[node] == stamp) continue;
+            if (node == goal) return buildPath(goal);
+            closedStamp[node] = stamp;
+            lastExpanded++;
+
+            int x = node % width, y = node / width;
+            for (int dir = 0; dir < 8; dir++) {
+                int nx = x + STEP_X[dir], ny = y + STEP_Y[dir];
+                if (nx < minX || nx > maxX || ny < minY || ny > maxY || mask.isBlocked(nx, ny)) continue;
+                boolean diagonal = dir >= 4;
+                if (diagonal && (mask.isBlocked(nx, y) || mask.isBlocked(x, ny))) continue;
+                int next = ny * width + nx;
+                if (closedStamp[next] == stamp) continue;
+                double nextCost = cost[node] + (diagonal ? DIAGONAL_COST : 1.0);
+                if (seenStamp[next] == stamp && cost[next] <= nextCost) continue;
+                seenStamp[next] = stamp;
+                cost[next] = nextCost;
+                parent[next] = node;
+                open.push(next, nextCost + heuristic(nx, ny, goalX, goalY));
+            }
+        }
+        return NO_PATH;
+    }
+
+    /** Tiles expanded by the last {@link #findPath} or {@link #resume} call. */
+    public int getLastExpanded() { return lastExpanded; }
+
+    public int getWidthTiles() { return width; }
+    public int getHeightTiles() { return height; }
+
+    private int[] buildPath(int goal) {
+        int length = 0;
+        for (int node = goal; node != -1; node = parent[node]) length++;
+        int[] path = new int[length];
+        for (int node = goal, i = length - 1; node != -1; node = parent[node]) path[i--] = node;
+        return path;
+    }
+
+    private static double heuristic(int x, int y, int goalX, int goalY) {
+        int dx = Math.abs(goalX - x), dy = Math.abs(goalY - y);
+        return Math.max(dx, dy) + (DIAGONAL_COST - 1.0) * Math.min(dx, dy);
+    }
+
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+}
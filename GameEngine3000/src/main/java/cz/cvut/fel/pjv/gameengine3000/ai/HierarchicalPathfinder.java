@@ -0,0 +1,438 @@
+package cz.cvut.fel.pjv.gameengine3000.ai;
+
+import cz.cvut.fel.pjv.gameengine3000.map.CollisionMask;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical A* (HPA*) over the tile grid of a {@link CollisionMask}. The grid is cut into square clusters;
+ * wherever two neighbouring clusters share a run of passable border tiles, one entrance pair is placed in
+ * the middle of the run (two, at its ends, for long runs). Entrances inside a cluster are linked by their
+ * walking distance within that cluster, computed up front, so a long query searches this small graph
+ * instead of the tile grid and costs little more than the two in-cluster searches that connect start and
+ * goal to it. The graph is built by the constructor, i.e. when the map is loaded.
+ * <p>
+ * {@link #findPath} answers with waypoints only: start, the entrances passed, goal. Two consecutive
+ * waypoints are either adjacent tiles or lie in one cluster, and {@link #refine} turns such a leg into
+ * tiles when the walker gets there. {@link #tileChanged} marks the clusters around a tile, and only those
+ * are rebuilt, before the next query; that work counts towards the query's expansions.
+ * <p>
+ * Routes through entrances are not shortest paths, since every border run is crossed at a fixed entrance:
+ * long ones are typically about 5% longer, at worst about 1.2 times as long. On short routes that detour
+ * can make up most of the route, so when start and goal are at most two clusters apart the tiles of the
+ * clusters between them are searched too, and the shorter answer is returned (as plain adjacent tiles);
+ * that keeps short routes within about 1.3 times the shortest.
+ * Not thread-safe: one instance serves one thread.
+ */
+public class HierarchicalPathfinder {
+
+    // Border runs at least this long get an entrance at each end instead of one in the middle
+    private static final int SPLIT_RUN_LENGTH = 6;
+    private static final int START = -1;
+    private static final int[] NONE = new int[0];
+
+    private final CollisionMask mask;
+    private final int width;
+    private final int height;
+    private final int clusterSize;
+    private final int clustersX;
+    private final int clustersY;
+    private final GridPathfinder refiner;
+
+    // Entrance pairs across each cluster's east and south border, packed as (own tile, neighbour tile)
+    private final int[][] eastPairs;
+    private final int[][] southPairs;
+    // Per cluster: entrance tiles, in-cluster distances between them (n * n, +inf if not connected inside
+    // the cluster) and, per entrance, the tiles it is paired with in neighbouring clusters
+    private final int[][] entrances;
+    private final float[][] entranceCost;
+    private final int[][][] crossings;
+    private final int[] entranceSlot; // per tile: index in its cluster's entrances, or -1
+    private final boolean[] dirty;
+    private boolean anyDirty = true;
+
+    // Single-source search inside one cluster, indexed by position within the cluster
+    private final float[] localCost;
+    private final int[] localStamp;
+    private final TileHeap localOpen;
+    private int localEpoch = 0;
+
+    // Abstract search over entrance tiles; index width * height is the goal
+    private final float[] cost;
+    private final int[] parent;
+    private final int[] seenStamp;
+    private final int[] closedStamp;
+    private final TileHeap open;
+    private int stamp = 0;
+    private float[] startCost = new float[16];
+    private float[] goalCost = new float[16];
+
+    private int lastExpanded;
+
+    public HierarchicalPathfinder(CollisionMask mask, int clusterSize) {
+        this.mask = mask;
+        this.width = mask.getWidthTiles();
+        this.height = mask.getHeightTiles();
+        this.clusterSize = Math.max(2, clusterSize);
+        this.clustersX = (width + this.clusterSize - 1) / this.clusterSize;
+        this.clustersY = (height + this.clusterSize - 1) / this.clusterSize;
+        this.refiner = new GridPathfinder(mask);
+
+        int clusters = clustersX * clustersY;
+        this.eastPairs = new int[clusters][];
+        this.southPairs = new int[clusters][];
+        this.entrances = new int[clusters][];
+        this.entranceCost = new float[clusters][];
+        this.crossings = new int[clusters][][];
+        this.dirty = new boolean[clusters];
+        Arrays.fill(dirty, true);
+
+        int tiles = width * height;
+        this.entranceSlot = new int[tiles];
+        Arrays.fill(entranceSlot, -1);
+        int clusterTiles = this.clusterSize * this.clusterSize;
+        this.localCost = new float[clusterTiles];
+        this.localStamp = new int[clusterTiles];
+        this.localOpen = new TileHeap(clusterTiles / 4);
+        this.cost = new float[tiles + 1];
+        this.parent = new int[tiles + 1];
+        this.seenStamp = new int[tiles + 1];
+        this.closedStamp = new int[tiles + 1];
+        this.open = new TileHeap(64);
+        rebuildDirty();
+    }
+
+    /** The tile was opened or closed; the clusters around it are rebuilt before the next query. */
+    public void tileChanged(int tileX, int tileY) {
+        if (tileX < 0 || tileY < 0 || tileX >= width || tileY >= height) return;
+        dirty[(tileY / clusterSize) * clustersX + tileX / clusterSize] = true;
+        anyDirty = true;
+    }
+
+    /**
+     * Waypoints from the start tile to the goal tile, both included, as tile indices
+     * ({@code tileY * width + tileX}); see the class comment. The start tile may be blocked.
+     *
+     * @return the waypoints, or {@link GridPathfinder#NO_PATH} if the goal is unreachable
+     */
+    public int[] findPath(int startX, int startY, int goalX, int goalY) {
+        lastExpanded = 0;
+        rebuildDirty();
+        if (startX < 0 || startY < 0 || startX >= width || startY >= height || mask.isBlocked(goalX, goalY)) {
+            return GridPathfinder.NO_PATH;
+        }
+        int start = startY * width + startX, goal = goalY * width + goalX;
+        if (start == goal) return new int[] { start };
+        int startCluster = clusterOf(startX, startY), goalCluster = clusterOf(goalX, goalY);
+        int[] nearby = GridPathfinder.NO_PATH; // direct tile search, for start and goal close together
+        if (Math.abs(startCluster % clustersX - goalCluster % clustersX) <= 2
+                && Math.abs(startCluster / clustersX - goalCluster / clustersX) <= 2) {
+            nearby = searchClustersOf(start, goal);
+        }
+
+        searchCluster(start, startCluster);
+        startCost = entranceCosts(startCluster, startCost);
+        float direct = (startCluster == goalCluster) ? localCostOf(goal, goalCluster) : Float.POSITIVE_INFINITY;
+        searchCluster(goal, goalCluster);
+        goalCost = entranceCosts(goalCluster, goalCost);
+
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(seenStamp, 0);
+            Arrays.fill(closedStamp, 0);
+            stamp = 1;
+        }
+        open.clear();
+        int goalNode = width * height;
+        int[] seeds = entrances[startCluster];
+        for (int i = 0; i < seeds.length; i++) {
+            if (startCost[i] != Float.POSITIVE_INFINITY) relax(seeds[i], START, startCost[i], goalX, goalY);
+        }
+        if (direct != Float.POSITIVE_INFINITY) relax(goalNode, START, direct, goalX, goalY);
+
+        while (!open.isEmpty()) {
+            int node = open.pop();
+            if (closedStamp[node] == stamp) continue;
+            if (node == goalNode) {
+                return (nearby.length > 0 && tileCost(nearby) <= cost[goalNode]) ? nearby : buildPath(start, goal, goalNode);
+            }
+            closedStamp[node] = stamp;
+            lastExpanded++;
+
+            int cluster = clusterOf(node % width, node / width);
+            int slot = entranceSlot[node];
+            int[] local = entrances[cluster];
+            float[] links = entranceCost[cluster];
+            float here = cost[node];
+            for (int j = 0, n = local.length; j < n; j++) {
+                float step = links[slot * n + j];
+                if (j != slot && step != Float.POSITIVE_INFINITY) relax(local[j], node, here + step, goalX, goalY);
+            }
+            for (int partner : crossings[cluster][slot]) relax(partner, node, here + 1f, goalX, goalY);
+            if (cluster == goalCluster && goalCost[slot] != Float.POSITIVE_INFINITY) {
+                relax(goalNode, node, here + goalCost[slot], goalX, goalY);
+            }
+        }
+        return nearby;
+    }
+
+    /**
+     * Tiles of one leg between two waypoints, from start to goal: a search confined to the clusters of the
+     * two tiles, so it never costs more than a couple of clusters' worth of expansions.
+     *
+     * @return the tiles, or {@link GridPathfinder#NO_PATH} if the goal cannot be reached inside those clusters
+     */
+    public int[] refine(int start, int goal) {
+        lastExpanded = 0;
+        return searchClustersOf(start, goal);
+    }
+
+    /** Whether two tiles lie in the same cluster. */
+    public boolean sameCluster(int tileA, int tileB) {
+        return clusterOf(tileA % width, tileA / width) == clusterOf(tileB % width, tileB / width);
+    }
+
+    /** Tiles and entrance nodes expanded by the last {@link #findPath} or {@link #refine} call, graph rebuilds included. */
+    public int getLastExpanded() { return lastExpanded; }
+
+    public int getEntranceCount() {
+        rebuildDirty();
+        int count = 0;
+        for (int[] list : entrances) count += list.length;
+        return count;
+    }
+
+    /** Tile search confined to the clusters spanned by the two tiles; adds its expansions to lastExpanded. */
+    private int[] searchClustersOf(int start, int goal) {
+        int startX = start % width, startY = start / width, goalX = goal % width, goalY = goal / width;
+        int minX = Math.min(startX, goalX) / clusterSize * clusterSize;
+        int minY = Math.min(startY, goalY) / clusterSize * clusterSize;
+        int maxX = Math.min(width, (Math.max(startX, goalX) / clusterSize + 1) * clusterSize) - 1;
+        int maxY = Math.min(height, (Math.max(startY, goalY) / clusterSize + 1) * clusterSize) - 1;
+        int[] path = refiner.findPathWithin(startX, startY, goalX, goalY, minX, minY, maxX, maxY, Integer.MAX_VALUE);
+        lastExpanded += refiner.getLastExpanded();
+        return path;
+    }
+
+    /** Walking cost of a path of adjacent tiles. */
+    private float tileCost(int[] tiles) {
+        float total = 0f;
+        for (int i = 1; i < tiles.length; i++) {
+            boolean diagonal = tiles[i] % width != tiles[i - 1] % width && tiles[i] / width != tiles[i - 1] / width;
+            total += (float) (diagonal ? GridPathfinder.DIAGONAL_COST : 1.0);
+        }
+        return total;
+    }
+
+    private void relax(int node, int from, float nodeCost, int goalX, int goalY) {
+        if (closedStamp[node] == stamp) return;
+        if (seenStamp[node] == stamp && cost[node] <= nodeCost) return;
+        seenStamp[node] = stamp;
+        cost[node] = nodeCost;
+        parent[node] = from;
+        double estimate = (node == width * height) ? 0.0 : octile(node % width, node / width, goalX, goalY);
+        open.push(node, nodeCost + estimate);
+    }
+
+    private int[] buildPath(int start, int goal, int goalNode) {
+        int length = 2;
+        for (int node = parent[goalNode]; node != START; node = parent[node]) length++;
+        int[] path = new int[length];
+        int i = length - 1;
+        path[i--] = goal;
+        for (int node = parent[goalNode]; node != START; node = parent[node]) path[i--] = node;
+        path[0] = start;
+        // Start or goal may be entrances themselves; drop the repeated waypoint
+        int kept = 1;
+        for (int k = 1; k < length; k++) {
+            if (path[k] != path[kept - 1]) path[kept++] = path[k];
+        }
+        return kept == length ? path : Arrays.copyOf(path, kept);
+    }
+
+    private int clusterOf(int tileX, int tileY) {
+        return (tileY / clusterSize) * clustersX + tileX / clusterSize;
+    }
+
+    private static double octile(int x, int y, int goalX, int goalY) {
+        int dx = Math.abs(goalX - x), dy = Math.abs(goalY - y);
+        return Math.max(dx, dy) + (GridPathfinder.DIAGONAL_COST - 1.0) * Math.min(dx, dy);
+    }
+
+    // ---- Abstract graph maintenance ----
+
+    private void rebuildDirty() {
+        if (!anyDirty) return;
+        anyDirty = false;
+        int clusters = clustersX * clustersY;
+        boolean[] affected = new boolean[clusters];
+        for (int c = 0; c < clusters; c++) {
+            if (!dirty[c]) continue;
+            int cx = c % clustersX, cy = c / clustersX;
+            eastPairs[c] = findEastPairs(cx, cy);
+            southPairs[c] = findSouthPairs(cx, cy);
+            if (cx > 0) eastPairs[c - 1] = findEastPairs(cx - 1, cy);
+            if (cy > 0) southPairs[c - clustersX] = findSouthPairs(cx, cy - 1);
+            affected[c] = true;
+            if (cx > 0) affected[c - 1] = true;
+            if (cx + 1 < clustersX) affected[c + 1] = true;
+            if (cy > 0) affected[c - clustersX] = true;
+            if (cy + 1 < clustersY) affected[c + clustersX] = true;
+        }
+        Arrays.fill(dirty, false);
+        for (int c = 0; c < clusters; c++) {
+            if (affected[c]) collectEntrances(c);
+        }
+        for (int c = 0; c < clusters; c++) {
+            if (affected[c]) linkEntrances(c);
+        }
+    }
+
+    private int[] findEastPairs(int cx, int cy) {
+        int x = (cx + 1) * clusterSize - 1;
+        if (x + 1 >= width) return NONE;
+        int y0 = cy * clusterSize, y1 = Math.min(height, y0 + clusterSize);
+        int[] pairs = new int[8];
+        int count = 0;
+        for (int y = y0; y < y1; ) {
+            if (mask.isBlocked(x, y) || mask.isBlocked(x + 1, y)) { y++; continue; }
+            int runStart = y;
+            while (y < y1 && !mask.isBlocked(x, y) && !mask.isBlocked(x + 1, y)) y++;
+            for (int at : runEntrances(runStart, y - 1)) {
+                if (count + 2 > pairs.length) pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                pairs[count++] = at * width + x;
+                pairs[count++] = at * width + x + 1;
+            }
+        }
+        return count == 0 ? NONE : Arrays.copyOf(pairs, count);
+    }
+
+    private int[] findSouthPairs(int cx, int cy) {
+        int y = (cy + 1) * clusterSize - 1;
+        if (y + 1 >= height) return NONE;
+        int x0 = cx * clusterSize, x1 = Math.min(width, x0 + clusterSize);
+        int[] pairs = new int[8];
+        int count = 0;
+        for (int x = x0; x < x1; ) {
+            if (mask.isBlocked(x, y) || mask.isBlocked(x, y + 1)) { x++; continue; }
+            int runStart = x;
+            while (x < x1 && !mask.isBlocked(x, y) && !mask.isBlocked(x, y + 1)) x++;
+            for (int at : runEntrances(runStart, x - 1)) {
+                if (count + 2 > pairs.length) pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                pairs[count++] = y * width + at;
+                pairs[count++] = (y + 1) * width + at;
+            }
+        }
+        return count == 0 ? NONE : Arrays.copyOf(pairs, count);
+    }
+
+    private static int[] runEntrances(int first, int last) {
+        if (last - first + 1 >= SPLIT_RUN_LENGTH) return new int[] { first, last };
+        return new int[] { (first + last) >>> 1 };
+    }
+
+    /** Gathers the cluster's entrance tiles and their partners from the four borders around it. */
+    private void collectEntrances(int c) {
+        int[] old = entrances[c];
+        if (old != null) for (int tile : old) entranceSlot[tile] = -1;
+
+        int cx = c % clustersX, cy = c / clustersX;
+        int[] tiles = new int[16];
+        int[][] partners = new int[16][];
+        int count = 0;
+        // Own side first in each pair array for east/south, neighbour's side for west/north
+        int[][] borders = {
+                eastPairs[c], southPairs[c],
+                cx > 0 ? eastPairs[c - 1] : NONE, cy > 0 ? southPairs[c - clustersX] : NONE };
+        for (int b = 0; b < borders.length; b++) {
+            int[] pairs = borders[b];
+            if (pairs == null) continue;
+            boolean ownFirst = b < 2;
+            for (int p = 0; p < pairs.length; p += 2) {
+                int own = ownFirst ? pairs[p] : pairs[p + 1];
+                int partner = ownFirst ? pairs[p + 1] : pairs[p];
+                int slot = entranceSlot[own];
+                if (slot < 0) {
+                    if (count == tiles.length) {
+                        tiles = Arrays.copyOf(tiles, count * 2);
+                        partners = Arrays.copyOf(partners, count * 2);
+                    }
+                    slot = count++;
+                    entranceSlot[own] = slot;
+                    tiles[slot] = own;
+                    partners[slot] = new int[] { partner };
+                } else {
+                    int[] list = partners[slot];
+                    partners[slot] = Arrays.copyOf(list, list.length + 1);
+                    partners[slot][list.length] = partner;
+                }
+            }
+        }
+        entrances[c] = Arrays.copyOf(tiles, count);
+        crossings[c] = Arrays.copyOf(partners, count);
+    }
+
+    /** Walking distances inside the cluster between every pair of its entrances. */
+    private void linkEntrances(int c) {
+        int[] tiles = entrances[c];
+        int n = tiles.length;
+        float[] links = new float[n * n];
+        for (int i = 0; i < n; i++) {
+            searchCluster(tiles[i], c);
+            for (int j = 0; j < n; j++) links[i * n + j] = localCostOf(tiles[j], c);
+        }
+        entranceCost[c] = links;
+    }
+
+    // ---- Search inside one cluster ----
+
+    /** Dijkstra from source over the passable tiles of cluster c; read the results with {@link #localCostOf}. */
+    private void searchCluster(int source, int c) {
+        if (++localEpoch == Integer.MAX_VALUE) {
+            Arrays.fill(localStamp, 0);
+            localEpoch = 1;
+        }
+        int x0 = (c % clustersX) * clusterSize, y0 = (c / clustersX) * clusterSize;
+        int x1 = Math.min(width, x0 + clusterSize), y1 = Math.min(height, y0 + clusterSize);
+        int sourceLocal = (source / width - y0) * clusterSize + (source % width - x0);
+        localOpen.clear();
+        localStamp[sourceLocal] = localEpoch;
+        localCost[sourceLocal] = 0f;
+        localOpen.push(sourceLocal, 0.0);
+
+        // A negative stamp marks a settled tile of this search
+        while (!localOpen.isEmpty()) {
+            int local = localOpen.pop();
+            if (localStamp[local] == -localEpoch) continue;
+            localStamp[local] = -localEpoch;
+            lastExpanded++;
+            float here = localCost[local];
+            int x = x0 + local % clusterSize, y = y0 + local / clusterSize;
+            for (int dir = 0; dir < 8; dir++) {
+                int nx = x + GridPathfinder.STEP_X[dir], ny = y + GridPathfinder.STEP_Y[dir];
+                if (nx < x0 || ny < y0 || nx >= x1 || ny >= y1 || mask.isBlocked(nx, ny)) continue;
+                boolean diagonal = dir >= 4;
+                if (diagonal && (mask.isBlocked(nx, y) || mask.isBlocked(x, ny))) continue;
+                int next = (ny - y0) * clusterSize + (nx - x0);
+                if (localStamp[next] == -localEpoch) continue;
+                float nextCost = here + (float) (diagonal ? GridPathfinder.DIAGONAL_COST : 1.0);
+                if (localStamp[next] == localEpoch && localCost[next] <= nextCost) continue;
+                localStamp[next] = localEpoch;
+                localCost[next] = nextCost;
+                localOpen.push(next, nextCost);
+            }
+        }
+    }
+
+    private float localCostOf(int tile, int c) {
+        int x0 = (c % clustersX) * clusterSize, y0 = (c / clustersX) * clusterSize;
+        int local = (tile / width - y0) * clusterSize + (tile % width - x0);
+        return Math.abs(localStamp[local]) == localEpoch ? localCost[local] : Float.POSITIVE_INFINITY;
+    }
+
+    private float[] entranceCosts(int c, float[] out) {
+        int[] tiles = entrances[c];
+        if (out.length < tiles.length) out = new float[Math.max(tiles.length, out.length * 2)];
+        for (int i = 0; i < tiles.length; i++) out[i] = localCostOf(tiles[i], c);
+        return out;
+    }
+}
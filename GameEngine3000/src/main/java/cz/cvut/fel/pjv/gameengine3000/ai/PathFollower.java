@@ -0,0 +1,111 @@
+package cz.cvut.fel.pjv.gameengine3000.ai;
+
+import cz.cvut.fel.pjv.gameengine3000.physics.Vec2;
+
+/**
+ * Per-enemy state for walking a {@link PathService} path towards a moving goal. Keeps following the path it
+ * has while a fresh one is pending, and asks for a new one when the goal moves to another tile or the
+ * entity strays off its path. Waypoints that are not adjacent (hierarchical routes on large maps) are
+ * walked along a leg fetched when the entity gets to them.
+ */
+public class PathFollower {
+
+    private static final int LOOKAHEAD = 3;
+
+    private int[] path;
+    private int next;          // index of the waypoint being walked to
+    private int goalTile = -1;
+    private int[] leg;         // tiles towards path[next] when it is not adjacent
+    private int legNext;
+
+    /**
+     * Writes the unit direction from (x, y) towards the next waypoint on the way to (goalX, goalY) into
+     * direction. Returns false when there is nothing to follow: no path known yet, the goal is unreachable,
+     * or the entity already stands in the goal's tile. Callers then steer by other means.
+     */
+    public boolean steer(PathService paths, int requesterId, double x, double y, double goalX, double goalY, Vec2 direction) {
+        int here = paths.tileIndex(x, y);
+        int goal = paths.tileIndex(goalX, goalY);
+        if (here < 0 || goal < 0 || here == goal) {
+            reset();
+            return false;
+        }
+
+        boolean routePending = false;
+        if (path == null || goal != goalTile || !(advance(here) || onLeg(paths, here))) {
+            int[] fresh = paths.findPath(requesterId, x, y, goalX, goalY);
+            if (fresh != null) {
+                path = fresh;
+                goalTile = goal;
+                next = 0;
+                leg = null;
+                advance(here);
+            } else if (path == null) {
+                return false;
+            } else {
+                routePending = true;
+                advance(here); // keep walking the old path until the new one arrives
+            }
+        }
+        if (next >= path.length) return false;
+
+        int toward = path[next];
+        if (!paths.isStep(here, toward)) {
+            // One request per tick: a pending route takes precedence over the leg of the old one
+            if (!routePending && (leg == null || leg.length == 0 || leg[leg.length - 1] != toward || !advanceLeg(here))) {
+                int[] fresh = paths.findLeg(requesterId, here, toward);
+                if (fresh == GridPathfinder.NO_PATH) {
+                    path = null; // cut off from the waypoint: ask for a new route next tick
+                    return false;
+                }
+                if (fresh != null) {
+                    leg = fresh;
+                    legNext = 0;
+                    advanceLeg(here);
+                }
+            }
+            // Until the leg arrives, head straight for the waypoint
+            if (leg != null && leg.length > 0 && leg[leg.length - 1] == toward && legNext < leg.length) toward = leg[legNext];
+        }
+
+        double dx = paths.tileCenterX(toward) - x;
+        double dy = paths.tileCenterY(toward) - y;
+        double length = Math.sqrt(dx * dx + dy * dy);
+        if (length == 0) return false;
+        direction.set(dx / length, dy / length);
+        return true;
+    }
+
+    public void reset() {
+        path = null;
+        next = 0;
+        goalTile = -1;
+        leg = null;
+    }
+
+    /** Whether the entity is still on its way to the current waypoint across that waypoint's cluster. */
+    private boolean onLeg(PathService paths, int here) {
+        return next < path.length && paths.isNearWaypoint(here, path[next]);
+    }
+
+    private boolean advanceLeg(int here) {
+        for (int i = Math.max(0, legNext - 1), end = Math.min(leg.length, legNext + LOOKAHEAD); i < end; i++) {
+            if (leg[i] == here) {
+                legNext = i + 1;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Moves past the tile the entity stands in; false if that tile is not on the next stretch of the path. */
+    private boolean advance(int here) {
+        for (int i = Math.max(0, next - 1), end = Math.min(path.length, next + LOOKAHEAD); i < end; i++) {
+            if (path[i] == here) {
+                next = i + 1;
+                return true;
+            }
+        }
+        return false;
+    }
+}
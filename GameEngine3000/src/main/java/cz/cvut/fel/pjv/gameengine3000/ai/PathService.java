@@ -0,0 +1,198 @@
+package cz.cvut.fel.pjv.gameengine3000.ai;
+
+import cz.cvut.fel.pjv.gameengine3000.map.CollisionMask;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Tile paths for AI code, shared by all enemies. Answers come from a bounded LRU cache keyed by the start
+ * and goal tiles; a miss is queued and searched later, so asking never costs a search in the think phase.
+ * <p>
+ * Small maps are searched with plain A*. Maps of at least {@code GameConfig.HIERARCHICAL_PATH_MIN_TILES}
+ * tiles go through a {@link HierarchicalPathfinder}: {@link #findPath} then answers with waypoints that are
+ * not necessarily adjacent, and the walker asks {@link #findLeg} for the tiles of each stretch as it reaches
+ * it. Legs are short and shared by every entity crossing the same clusters, so they mostly come from the cache.
+ * <p>
+ * Requests are recorded per requester id (an enemy slot) while enemies think, possibly concurrently, and
+ * {@link #processRequests()} answers them after the tick, in requester order starting where the previous
+ * tick's budget ran out so no requester starves. It spends at most
+ * about {@code nodeBudget} A* expansions per tick. A plain A* search stops when the budget runs out and is
+ * resumed on the next tick if its requester still asks for it; hierarchical searches are bounded by the
+ * cluster size and are finished, the overrun taken from the next tick's budget. Requests left over simply
+ * ask again. Because searching and cache updates happen in that serial pass, which paths exist on a given
+ * tick never depends on thread scheduling.
+ */
+public class PathService {
+
+    private static final long NONE = -1L;
+    private static final long LEG = 1L << 63; // key flag: leg refinement rather than a route
+
+    private final GridPathfinder pathfinder;           // flat search, null on large maps or without a map
+    private final HierarchicalPathfinder hierarchy;    // null on small maps or without a map
+    private final int width;
+    private final int height;
+    private final double tileWidth;
+    private final double tileHeight;
+    private final int cacheSize;
+    private final int nodeBudget;
+
+    // Insertion-ordered and only modified by processRequests, so think tasks may read it concurrently;
+    // a hit is moved to the young end in the serial pass instead of by the lookup itself.
+    private final LinkedHashMap<Long, int[]> cache;
+    private long[] requested = new long[0]; // per requester: key asked for this tick, or NONE
+    private int requesterLimit = 0;
+    private int firstRequester = 0;         // where the next pass starts
+    private long suspendedKey = NONE;       // plain search that ran out of budget, resumable until another starts
+    private int budget;
+
+    private int searchesLastTick;
+    private int expandedLastTick;
+
+    /**
+     * @param mask        the map's collision layer, or null for an empty world
+     * @param clusterSize cluster side in tiles for hierarchical search, or 0 for plain A*
+     */
+    public PathService(CollisionMask mask, double tileWidth, double tileHeight, int cacheSize, int nodeBudget, int clusterSize) {
+        boolean hasTiles = mask != null && mask.getWidthTiles() > 0 && mask.getHeightTiles() > 0;
+        this.pathfinder = (hasTiles && clusterSize <= 0) ? new GridPathfinder(mask) : null;
+        this.hierarchy = (hasTiles && clusterSize > 0) ? new HierarchicalPathfinder(mask, clusterSize) : null;
+        this.width = hasTiles ? mask.getWidthTiles() : 0;
+        this.height = hasTiles ? mask.getHeightTiles() : 0;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.cacheSize = Math.max(1, cacheSize);
+        this.nodeBudget = Math.max(1, nodeBudget);
+        this.budget = this.nodeBudget;
+        this.cache = new LinkedHashMap<>(this.cacheSize * 4 / 3 + 1);
+    }
+
+    /** Makes room for requester ids below requesterLimit; call before the enemies think. */
+    public void beginTick(int requesterLimit) {
+        if (requesterLimit > requested.length) {
+            int oldLength = requested.length;
+            requested = Arrays.copyOf(requested, Math.max(requesterLimit, oldLength * 2));
+            Arrays.fill(requested, oldLength, requested.length, NONE);
+        }
+        this.requesterLimit = requesterLimit;
+    }
+
+    /**
+     * Path from the tile containing (fromX, fromY) to the tile containing (toX, toY), as tile indices
+     * ({@code tileY * widthTiles + tileX}) starting with the start tile. Returns
+     * {@link GridPathfinder#NO_PATH} when the goal cannot be reached, and null when the answer is not known
+     * yet; the request is then queued and answered on a later tick, so keep asking.
+     * On large maps consecutive entries may be waypoints some tiles apart, see {@link #findLeg}.
+     * Each requester gets one request per tick (the last one made); distinct requesters may ask concurrently.
+     */
+    public int[] findPath(int requesterId, double fromX, double fromY, double toX, double toY) {
+        if (width == 0) return null;
+        int start = tileIndex(fromX, fromY), goal = tileIndex(toX, toY);
+        if (start < 0 || goal < 0) return GridPathfinder.NO_PATH;
+        return request(requesterId, ((long) start << 32) | goal);
+    }
+
+    /**
+     * Tiles from one tile to a waypoint of a {@link #findPath} answer that is not {@link #isStep adjacent},
+     * answered like findPath and sharing its one request per tick. {@link GridPathfinder#NO_PATH} means the
+     * waypoint cannot be reached from here without leaving its cluster; ask for a new route.
+     */
+    public int[] findLeg(int requesterId, int fromTile, int toTile) {
+        if (width == 0) return null;
+        return request(requesterId, LEG | ((long) fromTile << 32) | toTile);
+    }
+
+    /** The map changed at this tile: cached paths are dropped and the clusters around it rebuilt. */
+    public void tileChanged(int tileX, int tileY) {
+        cache.clear();
+        suspendedKey = NONE;
+        if (hierarchy != null) hierarchy.tileChanged(tileX, tileY);
+    }
+
+    /** Whether an entity can walk straight from one tile to the other: they are equal or neighbours. */
+    public boolean isStep(int fromTile, int toTile) {
+        return Math.abs(fromTile % width - toTile % width) <= 1 && Math.abs(fromTile / width - toTile / width) <= 1;
+    }
+
+    /** Whether a tile may lie on the leg to a waypoint, i.e. shares its cluster; always false on small maps. */
+    public boolean isNearWaypoint(int tile, int waypoint) {
+        return hierarchy != null && hierarchy.sameCluster(tile, waypoint);
+    }
+
+    private int[] request(int requesterId, long key) {
+        if (requesterId >= 0 && requesterId < requesterLimit) requested[requesterId] = key;
+        return cache.get(key);
+    }
+
+    /** Answers and refreshes this tick's requests within the node budget. Call once per tick, after thinking. */
+    public void processRequests() {
+        searchesLastTick = 0;
+        expandedLastTick = 0;
+        budget = Math.min(budget + nodeBudget, nodeBudget);
+        if (width == 0) return;
+        int resumeAt = -1;
+        for (int i = 0; i < requesterLimit; i++) {
+            int id = (firstRequester + i) % requesterLimit;
+            long key = requested[id];
+            if (key == NONE) continue;
+            requested[id] = NONE;
+
+            int[] path = cache.remove(key);
+            if (path == null) {
+                if (budget <= 0) {
+                    if (resumeAt < 0) resumeAt = id;
+                    continue;
+                }
+                int start = (int) ((key & ~LEG) >>> 32), goal = (int) key;
+                int expanded;
+                if (hierarchy == null) {
+                    path = (key == suspendedKey && pathfinder.isSuspended())
+                            ? pathfinder.resume(budget)
+                            : pathfinder.findPath(start % width, start / width, goal % width, goal / width, budget);
+                    expanded = pathfinder.getLastExpanded();
+                    suspendedKey = (path == null) ? key : NONE;
+                    if (path == null) resumeAt = id; // out of budget: carry on with this one next tick
+                } else {
+                    path = ((key & LEG) != 0) ? hierarchy.refine(start, goal)
+                            : hierarchy.findPath(start % width, start / width, goal % width, goal / width);
+                    expanded = hierarchy.getLastExpanded();
+                }
+                budget -= expanded;
+                expandedLastTick += expanded;
+                searchesLastTick++;
+                if (path == null) continue;
+            }
+            cache.put(key, path);
+        }
+        firstRequester = Math.max(0, resumeAt);
+        trimCache();
+    }
+
+    /** Tile index containing the point, or -1 outside the map. */
+    public int tileIndex(double x, double y) {
+        int tileX = (int) Math.floor(x / tileWidth), tileY = (int) Math.floor(y / tileHeight);
+        if (tileX < 0 || tileY < 0 || tileX >= width || tileY >= height) return -1;
+        return tileY * width + tileX;
+    }
+
+    public double tileCenterX(int tileIndex) {
+        return (tileIndex % width + 0.5) * tileWidth;
+    }
+
+    public double tileCenterY(int tileIndex) {
+        return (tileIndex / width + 0.5) * tileHeight;
+    }
+
+    public int getCachedPathCount() { return cache.size(); }
+    public int getSearchesLastTick() { return searchesLastTick; }
+    public int getExpandedLastTick() { return expandedLastTick; }
+
+    private void trimCache() {
+        Iterator<Long> eldest = cache.keySet().iterator();
+        for (int excess = cache.size() - cacheSize; excess > 0; excess--) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+}
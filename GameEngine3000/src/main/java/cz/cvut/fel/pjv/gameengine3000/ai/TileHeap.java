@@ -0,0 +1,58 @@
+package cz.cvut.fel.pjv.gameengine3000.ai;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of tile indices keyed by a score, for grid searches. There is no decrease-key: a tile
+ * whose score improves is pushed again and the stale entry is skipped by the caller when popped.
+ */
+final class TileHeap {
+
+    private int[] tiles;
+    private double[] scores;
+    private int size;
+
+    TileHeap(int initialCapacity) {
+        tiles = new int[Math.max(16, initialCapacity)];
+        scores = new double[tiles.length];
+    }
+
+    void clear() { size = 0; }
+    boolean isEmpty() { return size == 0; }
+
+    void push(int tile, double score) {
+        if (size == tiles.length) {
+            tiles = Arrays.copyOf(tiles, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (scores[up] <= score) break;
+            tiles[i] = tiles[up];
+            scores[i] = scores[up];
+            i = up;
+        }
+        tiles[i] = tile;
+        scores[i] = score;
+    }
+
+    int pop() {
+        int top = tiles[0];
+        int lastTile = tiles[--size];
+        double lastScore = scores[size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && scores[child + 1] < scores[child]) child++;
+            if (scores[child] >= lastScore) break;
+            tiles[i] = tiles[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        tiles[i] = lastTile;
+        scores[i] = lastScore;
+        return top;
+    }
+}
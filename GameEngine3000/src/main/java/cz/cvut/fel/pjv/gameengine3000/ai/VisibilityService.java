@@ -0,0 +1,71 @@
+package cz.cvut.fel.pjv.gameengine3000.ai;
+
+import cz.cvut.fel.pjv.gameengine3000.map.GridRaycaster;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * "Can A see B" for AI code, backed by a {@link GridRaycaster} and memoised per tick: asking again about the
+ * same observer/target pair within one tick costs a single array read. Entities only move between think
+ * phases, so an answer stays valid for the whole tick it was computed in.
+ * <p>
+ * The memo is a direct-mapped table of packed longs (tick epoch, pair key, answer), so concurrent think
+ * tasks share it without locks or allocation; a pair evicted by a colliding one is simply cast again.
+ */
+public class VisibilityService {
+
+    private static final int TABLE_BITS = 12;
+    private static final int TABLE_MASK = (1 << TABLE_BITS) - 1;
+    private static final int ID_BITS = 20;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+    private static final int KEY_BITS = 2 * ID_BITS;
+    private static final int EPOCH_BITS = 63 - KEY_BITS - 1;
+    private static final int MAX_EPOCH = (1 << EPOCH_BITS) - 1;
+
+    private final GridRaycaster raycaster; // null: no map, everything is visible
+    private final AtomicLongArray memo = new AtomicLongArray(1 << TABLE_BITS);
+    private int epoch = 1;
+
+    public VisibilityService(GridRaycaster raycaster) {
+        this.raycaster = raycaster;
+    }
+
+    /** Invalidates all memoised answers. Call once per tick before the AI runs. */
+    public void beginTick() {
+        if (++epoch > MAX_EPOCH) {
+            for (int i = 0; i < memo.length(); i++) memo.set(i, 0L);
+            epoch = 1;
+        }
+    }
+
+    /**
+     * Line of sight between two entities, memoised for the current tick. Ids identify the pair (e.g. an enemy
+     * slot and a player's network id); ids that do not fit in {@value #ID_BITS} bits are answered uncached.
+     */
+    public boolean canSee(int observerId, int targetId, double fromX, double fromY, double toX, double toY) {
+        if (raycaster == null) return true;
+        if ((observerId & ~ID_MASK) != 0 || (targetId & ~ID_MASK) != 0) {
+            return raycaster.hasLineOfSight(fromX, fromY, toX, toY);
+        }
+        long key = ((long) observerId << ID_BITS) | targetId;
+        long tag = ((long) epoch << KEY_BITS | key) << 1;
+        int index = (int) (mix(key) & TABLE_MASK);
+
+        long entry = memo.get(index);
+        if ((entry & ~1L) == tag) return (entry & 1L) != 0;
+
+        boolean visible = raycaster.hasLineOfSight(fromX, fromY, toX, toY);
+        memo.set(index, tag | (visible ? 1L : 0L));
+        return visible;
+    }
+
+    /** Uncached line of sight between two points. */
+    public boolean hasLineOfSight(double fromX, double fromY, double toX, double toY) {
+        return raycaster == null || raycaster.hasLineOfSight(fromX, fromY, toX, toY);
+    }
+
+    private static long mix(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return key ^ (key >>> 29);
+    }
+}
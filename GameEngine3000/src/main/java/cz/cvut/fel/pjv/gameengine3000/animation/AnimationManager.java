@@ -24,8 +24,8 @@ public abstract class AnimationManager {
     protected final AssetManager assetManager;
 
     // --- Animation Data ---
-    // Map<StateName, Map<Direction, AnimationData>>
-    protected final Map<String, Map<Direction, AnimationData>> animations = new HashMap<>();
+    // Map<StateName, Map<Direction, AnimationData>>; read-only when shared from an AnimationSet
+    protected final Map<String, Map<Direction, AnimationData>> animations;
     protected Image currentSpriteSheet = null; // The sheet currently being used
 
     // --- Current State ---
@@ -34,6 +34,10 @@ public abstract class AnimationManager {
     protected int currentFrameIndex = 0;
     protected double frameTimer = 0.0;
 
+    // --- Displayed Frame (read by the render snapshot, applied on the FX thread) ---
+    protected Image displayedSheet = null;
+    protected Rectangle2D displayedViewport = null;
+
     /**
      * Constructor for the base AnimationManager.
      * @param imageView The ImageView to animate.
@@ -45,6 +49,21 @@ public abstract class AnimationManager {
         }
         this.imageView = imageView;
         this.assetManager = assetManager;
+        this.animations = new HashMap<>();
+    }
+
+    /**
+     * Constructor for a manager that plays a shared, pre-built set of animations instead of defining its own.
+     * @param imageView The ImageView to animate.
+     * @param animationSet Definitions shared with other managers; {@link #defineAnimation} is not available.
+     */
+    protected AnimationManager(ImageView imageView, AnimationSet animationSet) {
+        if (imageView == null || animationSet == null) {
+            throw new IllegalArgumentException("ImageView and AnimationSet cannot be null.");
+        }
+        this.imageView = imageView;
+        this.assetManager = animationSet.getAssetManager();
+        this.animations = animationSet.share();
     }
 
     /**
@@ -70,15 +89,8 @@ public abstract class AnimationManager {
             return;
         }
 
-        Rectangle2D[] frames = new Rectangle2D[frameCount];
-        for (int i = 0; i < frameCount; i++) {
-            frames[i] = new Rectangle2D(
-                    (startFrameX + i) * frameWidth, // Calculate pixel X
-                    startFrameY * frameHeight,      // Calculate pixel Y
-                    frameWidth, frameHeight);
-        }
-
-        AnimationData data = new AnimationData(sheet, frames, frameDuration, loop);
+        AnimationData data = new AnimationData(sheet, frameRow(frameWidth, frameHeight, startFrameX, startFrameY, frameCount),
+                frameDuration, loop);
 
         // Store the animation data
         animations.computeIfAbsent(stateName, k -> new HashMap<>()).put(direction, data);
@@ -89,6 +101,22 @@ public abstract class AnimationManager {
         }
     }
 
+    /**
+     * Builds the viewports of frameCount frames lying in one row of a sheet.
+     * @param startFrameX X-coordinate (in frames, 0-indexed) of the first frame.
+     * @param startFrameY Y-coordinate (in frames, 0-indexed) of the row.
+     */
+    protected static Rectangle2D[] frameRow(int frameWidth, int frameHeight, int startFrameX, int startFrameY, int frameCount) {
+        Rectangle2D[] frames = new Rectangle2D[frameCount];
+        for (int i = 0; i < frameCount; i++) {
+            frames[i] = new Rectangle2D(
+                    (startFrameX + i) * frameWidth, // Calculate pixel X
+                    startFrameY * frameHeight,      // Calculate pixel Y
+                    frameWidth, frameHeight);
+        }
+        return frames;
+    }
+
     /**
      * Updates the animation timer and changes the displayed frame if necessary.
      * @param elapsedSeconds Time elapsed since the last update call.
@@ -150,19 +178,30 @@ public abstract class AnimationManager {
         applyCurrentFrame(); // Immediately apply the first frame of the new animation
     }
 
-    /** Applies the current frame's viewport to the ImageView. */
+    /**
+     * Selects the current frame's sheet and viewport. The ImageView itself is only touched on the
+     * FX thread when the render snapshot is applied, so this is safe to call from the simulation thread.
+     */
     protected void applyCurrentFrame() {
         AnimationData currentAnim = getCurrentAnimationData();
         if (currentAnim == null || currentFrameIndex < 0 || currentFrameIndex >= currentAnim.frames.length) {
-            // Ensure imageView shows something reasonable if state is invalid
-            imageView.setImage(null); // Or a default placeholder image
+            displayedSheet = null;
+            displayedViewport = null;
             return;
         }
 
-        if (imageView.getImage() != currentAnim.spriteSheet) {
-            imageView.setImage(currentAnim.spriteSheet);
-        }
-        imageView.setViewport(currentAnim.frames[currentFrameIndex]);
+        displayedSheet = currentAnim.spriteSheet;
+        displayedViewport = currentAnim.frames[currentFrameIndex];
+    }
+
+    /** Sheet of the frame that should currently be shown, or null if none. */
+    public Image getDisplayedSheet() {
+        return displayedSheet;
+    }
+
+    /** Viewport of the frame that should currently be shown, or null if none. */
+    public Rectangle2D getDisplayedViewport() {
+        return displayedViewport;
     }
 
     /** Returns the AnimationData for the current state and direction. */
@@ -0,0 +1,67 @@
+package cz.cvut.fel.pjv.gameengine3000.animation;
+
+import cz.cvut.fel.pjv.gameengine3000.utils.AssetManager;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Animation definitions (sheets and frame rectangles per state and direction) built once and shared by
+ * every {@link AnimationManager} of one kind of entity; the managers only keep their playback position.
+ * Everything is defined up front: the set is sealed by {@link #seal} or when the first manager uses it,
+ * and is read-only afterwards.
+ */
+public class AnimationSet {
+
+    private final AssetManager assetManager;
+    private final Map<String, Map<AnimationManager.Direction, AnimationManager.AnimationData>> animations = new HashMap<>();
+    private Map<String, Map<AnimationManager.Direction, AnimationManager.AnimationData>> sealed = null;
+
+    public AnimationSet(AssetManager assetManager) {
+        if (assetManager == null) throw new IllegalArgumentException("AssetManager cannot be null.");
+        this.assetManager = assetManager;
+    }
+
+    /**
+     * Defines the frames for a state and direction: frameCount frames in a row of the sheet, starting at
+     * frame (startFrameX, startFrameY). Returns this set for chaining.
+     */
+    public AnimationSet define(String stateName, AnimationManager.Direction direction, String sheetPath,
+                               int frameWidth, int frameHeight, int startFrameX, int startFrameY,
+                               int frameCount, double frameDuration, boolean loop) {
+        if (sealed != null) throw new IllegalStateException("Animation set is already in use; define everything before sharing it.");
+        Image sheet = assetManager.loadSpritesheet(sheetPath);
+        if (sheet == null) {
+            System.err.println("AnimationSet: Failed to load spritesheet: " + sheetPath);
+            return this;
+        }
+
+        Rectangle2D[] frames = AnimationManager.frameRow(frameWidth, frameHeight, startFrameX, startFrameY, frameCount);
+        animations.computeIfAbsent(stateName, k -> new EnumMap<>(AnimationManager.Direction.class))
+                .put(direction, new AnimationManager.AnimationData(sheet, frames, frameDuration, loop));
+        return this;
+    }
+
+    /** Makes the set read-only now, e.g. before it is published to other threads. Returns this set. */
+    public AnimationSet seal() {
+        share();
+        return this;
+    }
+
+    /** Seals the set and returns its read-only definitions; for {@link AnimationManager}. */
+    Map<String, Map<AnimationManager.Direction, AnimationManager.AnimationData>> share() {
+        if (sealed == null) {
+            Map<String, Map<AnimationManager.Direction, AnimationManager.AnimationData>> copy = new HashMap<>();
+            animations.forEach((state, byDirection) -> copy.put(state, Collections.unmodifiableMap(byDirection)));
+            sealed = Collections.unmodifiableMap(copy);
+        }
+        return sealed;
+    }
+
+    AssetManager getAssetManager() { return assetManager; }
+}
@@ -1,12 +1,8 @@
 package cz.cvut.fel.pjv.gameengine3000.animation; // Or your animation package
 
 import cz.cvut.fel.pjv.gameengine3000.utils.AssetManager;
-import javafx.geometry.Rectangle2D;
-import javafx.scene.image.Image; // Ensure this is imported if using assetManager.getImage()
 import javafx.scene.image.ImageView;
 
-import java.util.HashMap;
-
 /**
  * Manages animations for generic Enemy entities.
  * Defines common states like "IDLE", "WALK".
@@ -21,7 +17,8 @@ public class EnemyAnimationManager extends AnimationManager {
     public static final String DEATH = "DEATH";   // Example, if common death anim
 
     /**
-     * Constructor for EnemyAnimationManager.
+     * Constructor for an EnemyAnimationManager with animations of its own, laid out as in
+     * {@link #defineStandardAnimations}. Prefer sharing one {@link AnimationSet} per enemy type.
      *
      * @param imageView         The enemy's ImageView to animate.
      * @param assetManager      Shared AssetManager for loading spritesheets.
@@ -40,86 +37,55 @@ public class EnemyAnimationManager extends AnimationManager {
                                  int nativeFrameWidth, int nativeFrameHeight,
                                  int idleFrameCount, int walkFrameCount,
                                  double idleFrameDuration, double walkFrameDuration) {
-        super(imageView, assetManager);
-
-        // --- Define IDLE Animations ---
-        // Assuming 4 directions (Down, Up, Left, Right) correspond to rows 0, 1, 2, 3 on the sheet.
-        // Adjust startFrameX and startFrameY based on your actual spritesheet layout.
-        // If all directions for one action are on the same sheet:
-        if (idleSheetPath != null && !idleSheetPath.isEmpty()) {
-            defineAnimation(IDLE, Direction.DOWN, idleSheetPath, nativeFrameWidth, nativeFrameHeight, 0, 1, idleFrameCount, idleFrameDuration, true);
-            defineAnimation(IDLE, Direction.UP, idleSheetPath, nativeFrameWidth, nativeFrameHeight, 0, 3, idleFrameCount, idleFrameDuration, true); // Assuming row 1 for UP
-            defineAnimation(IDLE, Direction.LEFT, idleSheetPath, nativeFrameWidth, nativeFrameHeight, 0, 4, idleFrameCount, idleFrameDuration, true); // Assuming row 2 for LEFT
-            defineAnimation(IDLE, Direction.RIGHT, idleSheetPath, nativeFrameWidth, nativeFrameHeight, 0, 2, idleFrameCount, idleFrameDuration, true); // Assuming row 3 for RIGHT
-        } else {
-            System.err.println("EnemyAnimationManager: Idle sheet path is null or empty. IDLE animations not defined.");
-        }
-
-
-        // --- Define WALK Animations ---
-        if (walkSheetPath != null && !walkSheetPath.isEmpty()) {
-            defineAnimation(WALK, Direction.DOWN, walkSheetPath, nativeFrameWidth, nativeFrameHeight, 4, 1, walkFrameCount, walkFrameDuration, true);
-            defineAnimation(WALK, Direction.UP, walkSheetPath, nativeFrameWidth, nativeFrameHeight, 4, 3, walkFrameCount, walkFrameDuration, true);
-            defineAnimation(WALK, Direction.LEFT, walkSheetPath, nativeFrameWidth, nativeFrameHeight, 4, 4, walkFrameCount, walkFrameDuration, true);
-            defineAnimation(WALK, Direction.RIGHT, walkSheetPath, nativeFrameWidth, nativeFrameHeight, 4, 2, walkFrameCount, walkFrameDuration, true);
-        } else {
-            System.err.println("EnemyAnimationManager: Walk sheet path is null or empty. WALK animations not defined.");
-        }
+        this(imageView, defineStandardAnimations(new AnimationSet(assetManager), idleSheetPath, walkSheetPath,
+                nativeFrameWidth, nativeFrameHeight, idleFrameCount, walkFrameCount, idleFrameDuration, walkFrameDuration));
+    }
 
-        // Set initial state (e.g., IDLE, facing DOWN)
-        // This will only work if at least IDLE animations were defined.
+    /**
+     * Constructor for an EnemyAnimationManager that plays the animations of its enemy type, built once
+     * and shared by every enemy of that type. Starts on IDLE facing DOWN, or WALK if there is no IDLE.
+     *
+     * @param imageView    The enemy's ImageView to animate.
+     * @param animationSet The type's shared animation definitions.
+     */
+    public EnemyAnimationManager(ImageView imageView, AnimationSet animationSet) {
+        super(imageView, animationSet);
         if (animations.containsKey(IDLE)) {
             setVisualState(IDLE, Direction.DOWN);
-        } else if (animations.containsKey(WALK)) { // Fallback if IDLE not defined but WALK is
+        } else if (animations.containsKey(WALK)) {
             setVisualState(WALK, Direction.DOWN);
         } else {
             System.err.println("EnemyAnimationManager: No default animations (IDLE or WALK) could be set.");
-            // ImageView might remain blank if no animations are defined and set.
         }
     }
 
     /**
-     * Corrected defineAnimation method to use assetManager.getImage() for the full sheet.
-     * This overrides the one in the abstract class if its AssetManager call was incorrect.
-     * If the base class's defineAnimation is already correct (uses assetManager.getImage()),
-     * then this override is not strictly necessary unless you need to change other parts of its logic.
+     * Defines the IDLE and WALK animations in the layout used by the enemy sheets: one row per direction,
+     * idle frames from column 0 and walk frames from column 4.
      */
-    @Override
-    public void defineAnimation(String stateName, Direction direction, String sheetPath,
-                                int frameWidth, int frameHeight, int startFrameX, int startFrameY,
-                                int frameCount, double frameDuration, boolean loop) {
-
-        Image sheet = assetManager.loadSpritesheet(sheetPath); // <<< CORRECTED: Load the whole sheet
-        if (sheet == null) {
-            System.err.println("EnemyAnimationManager: Failed to load spritesheet using assetManager.getImage(): " + sheetPath);
-            return;
-        }
-
-        Rectangle2D[] frames = new Rectangle2D[frameCount];
-        for (int i = 0; i < frameCount; i++) {
-            frames[i] = new Rectangle2D(
-                    (startFrameX + i) * frameWidth, // Calculate pixel X
-                    startFrameY * frameHeight,      // Calculate pixel Y (assuming each direction is a new row)
-                    frameWidth, frameHeight);
+    public static AnimationSet defineStandardAnimations(AnimationSet set, String idleSheetPath, String walkSheetPath,
+                                                       int nativeFrameWidth, int nativeFrameHeight,
+                                                       int idleFrameCount, int walkFrameCount,
+                                                       double idleFrameDuration, double walkFrameDuration) {
+        if (idleSheetPath != null && !idleSheetPath.isEmpty()) {
+            set.define(IDLE, Direction.DOWN, idleSheetPath, nativeFrameWidth, nativeFrameHeight, 0, 1, idleFrameCount, idleFrameDuration, true);
+            set.define(IDLE, Direction.UP, idleSheetPath, nativeFrameWidth, nativeFrameHeight, 0, 3, idleFrameCount, idleFrameDuration, true);
+            set.define(IDLE, Direction.LEFT, idleSheetPath, nativeFrameWidth, nativeFrameHeight, 0, 4, idleFrameCount, idleFrameDuration, true);
+            set.define(IDLE, Direction.RIGHT, idleSheetPath, nativeFrameWidth, nativeFrameHeight, 0, 2, idleFrameCount, idleFrameDuration, true);
+        } else {
+            System.err.println("EnemyAnimationManager: Idle sheet path is null or empty. IDLE animations not defined.");
         }
-
-        AnimationData data = new AnimationData(sheet, frames, frameDuration, loop);
-        animations.computeIfAbsent(stateName, k -> new HashMap<>()).put(direction, data);
-
-        // Set the initial state only once, if no animations were set before.
-        if (this.currentState == null || this.currentSpriteSheet == null) {
-            if (animations.containsKey(IDLE) && animations.get(IDLE).containsKey(Direction.DOWN)) {
-                setVisualState(IDLE, Direction.DOWN);
-            } else if (!animations.isEmpty() && !animations.values().iterator().next().isEmpty()){
-                // Fallback to the first defined animation if IDLE DOWN is not available
-                String firstState = animations.keySet().iterator().next();
-                Direction firstDir = animations.get(firstState).keySet().iterator().next();
-                setVisualState(firstState, firstDir);
-            }
+        if (walkSheetPath != null && !walkSheetPath.isEmpty()) {
+            set.define(WALK, Direction.DOWN, walkSheetPath, nativeFrameWidth, nativeFrameHeight, 4, 1, walkFrameCount, walkFrameDuration, true);
+            set.define(WALK, Direction.UP, walkSheetPath, nativeFrameWidth, nativeFrameHeight, 4, 3, walkFrameCount, walkFrameDuration, true);
+            set.define(WALK, Direction.LEFT, walkSheetPath, nativeFrameWidth, nativeFrameHeight, 4, 4, walkFrameCount, walkFrameDuration, true);
+            set.define(WALK, Direction.RIGHT, walkSheetPath, nativeFrameWidth, nativeFrameHeight, 4, 2, walkFrameCount, walkFrameDuration, true);
+        } else {
+            System.err.println("EnemyAnimationManager: Walk sheet path is null or empty. WALK animations not defined.");
         }
+        return set;
     }
 
-
     /**
      * Override if specific actions need to happen when an enemy animation finishes.
      * For example, after a "DEATH" animation, the enemy might be marked for removal.
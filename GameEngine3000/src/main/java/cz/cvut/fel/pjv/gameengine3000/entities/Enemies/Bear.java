@@ -1,16 +1,24 @@
 package cz.cvut.fel.pjv.gameengine3000.entities.Enemies;
 
+import cz.cvut.fel.pjv.gameengine3000.ai.AiServices;
+import cz.cvut.fel.pjv.gameengine3000.ai.PathFollower;
 import cz.cvut.fel.pjv.gameengine3000.animation.AnimationManager;
+import cz.cvut.fel.pjv.gameengine3000.animation.AnimationSet;
 import cz.cvut.fel.pjv.gameengine3000.animation.EnemyAnimationManager;
+import cz.cvut.fel.pjv.gameengine3000.entities.EntityStore;
 import cz.cvut.fel.pjv.gameengine3000.entities.Player;
 import cz.cvut.fel.pjv.gameengine3000.map.CustomMapLoader;
+import cz.cvut.fel.pjv.gameengine3000.physics.Vec2;
 import cz.cvut.fel.pjv.gameengine3000.utils.AssetManager;
 
-import javafx.geometry.Point2D;
+import javafx.scene.image.ImageView;
+
 import java.util.Random;
 
 public class Bear extends Enemy {
 
+    public static final String TYPE_NAME = "bear";
+
     private static final int BEAR_HEALTH = 150;
     private static final double BEAR_SPEED = 45;
     private static final double DETECTION_RANGE = 200.0;
@@ -19,60 +27,63 @@ public class Bear extends Enemy {
     private static final double ATTACK_WINDUP_TIME = 0.5;
     private static final double ATTACK_ACTIVE_TIME = 0.3;
     private static final double ATTACK_COOLDOWN = 2.0;
+    // After losing sight of its target a bear keeps chasing, along a path, for this long
+    private static final double PURSUIT_MEMORY = 3.0;
+    private static final double WANDER_DISTANCE = 80.0;
+    private static final double WANDER_INTERVAL_MIN = 2.0;
+    private static final double WANDER_INTERVAL_MAX = 5.0;
 
     private static final String BEAR_IDLE_SHEET_PATH = "/enemies/bear/bear.png";
     private static final String BEAR_WALK_SHEET_PATH = "/enemies/bear/bear.png";
     private static final String BEAR_ATTACK_SHEET_PATH = "/enemies/bear/bear.png";
 
-    private final Random random = new Random();
-    private double stateTimer = 0.0;
+    private final EnemyStats stats;
+    private final Random random;
     private double wanderTargetX, wanderTargetY;
-    private final double WANDER_DISTANCE = 80.0;
-    private final double WANDER_INTERVAL_MIN = 2.0;
-    private final double WANDER_INTERVAL_MAX = 5.0;
     private double currentWanderInterval;
 
-    private double attackActionTimer = 0.0;
-    private double attackCooldownTimer = 0.0;
     private boolean hasDamagedThisAttack = false;
+    private double timeSinceTargetSeen = 0;
+
+    private final PathFollower pathFollower = new PathFollower();
+    private final Vec2 pathDirection = new Vec2();
+
+    /**
+     * The bear type for the {@link EnemyTypeRegistry}: stats, 48 px sprite and the animations every bear shares.
+     * @param assetManager loads the sprite sheet; null to run without visuals
+     */
+    public static EnemyType createType(AssetManager assetManager) {
+        EnemyStats stats = new EnemyStats(BEAR_HEALTH, BEAR_SPEED, DETECTION_RANGE, ATTACK_RANGE, ATTACK_DAMAGE,
+                ATTACK_WINDUP_TIME, ATTACK_ACTIVE_TIME, ATTACK_COOLDOWN);
+        AnimationSet animations = null;
+        if (assetManager != null) {
+            int nativeFrameW = 16;
+            int nativeFrameH = 16;
+            double attackFrameDur = (ATTACK_WINDUP_TIME + ATTACK_ACTIVE_TIME) / 4.0;
+            int attackFrames = 4;
+            animations = EnemyAnimationManager.defineStandardAnimations(new AnimationSet(assetManager),
+                    BEAR_IDLE_SHEET_PATH, BEAR_WALK_SHEET_PATH, nativeFrameW, nativeFrameH, 4, 4, 0.25, 0.18);
+            animations.define(EnemyAnimationManager.ATTACK, AnimationManager.Direction.DOWN, BEAR_ATTACK_SHEET_PATH, nativeFrameW, nativeFrameH, 8, 1, attackFrames, attackFrameDur, false);
+            animations.define(EnemyAnimationManager.ATTACK, AnimationManager.Direction.UP, BEAR_ATTACK_SHEET_PATH, nativeFrameW, nativeFrameH, 8, 3, attackFrames, attackFrameDur, false);
+            animations.define(EnemyAnimationManager.ATTACK, AnimationManager.Direction.LEFT, BEAR_ATTACK_SHEET_PATH, nativeFrameW, nativeFrameH, 8, 4, attackFrames, attackFrameDur, false);
+            animations.define(EnemyAnimationManager.ATTACK, AnimationManager.Direction.RIGHT, BEAR_ATTACK_SHEET_PATH, nativeFrameW, nativeFrameH, 8, 2, attackFrames, attackFrameDur, false);
+        }
+        return new EnemyType(TYPE_NAME, Bear::new, 48, 48, 0.7, 0.9, 0.05, stats, animations);
+    }
 
-    public Bear(int networkId, double startX, double startY,
-                double displayWidth, double displayHeight,
-                AssetManager assetManager, CustomMapLoader mapLoader) {
-        super(networkId, "bear", startX, startY, displayWidth, displayHeight, assetManager, mapLoader);
-
-        this.maxHealth = BEAR_HEALTH;
-        this.health = BEAR_HEALTH;
-        this.speed = BEAR_SPEED;
-
-        int nativeFrameW = 16;
-        int nativeFrameH = 16;
-        double idleFrameDur = 0.25;
-        double walkFrameDur = 0.18;
-        double attackFrameDur = (ATTACK_WINDUP_TIME + ATTACK_ACTIVE_TIME) / 4.0;
-        int idleFrames = 4;
-        int walkFrames = 4;
-        int attackFrames = 4;
-
-        this.animationManager = new EnemyAnimationManager(this.enemyImageView, this.assetManager,
-                BEAR_IDLE_SHEET_PATH, BEAR_WALK_SHEET_PATH,
-                nativeFrameW, nativeFrameH,
-                idleFrames, walkFrames,
-                idleFrameDur, walkFrameDur);
-
-        this.animationManager.defineAnimation(EnemyAnimationManager.ATTACK, AnimationManager.Direction.DOWN, BEAR_ATTACK_SHEET_PATH, nativeFrameW, nativeFrameH, 8, 1, attackFrames, attackFrameDur, false);
-        this.animationManager.defineAnimation(EnemyAnimationManager.ATTACK, AnimationManager.Direction.UP, BEAR_ATTACK_SHEET_PATH, nativeFrameW, nativeFrameH, 8, 3, attackFrames, attackFrameDur, false);
-        this.animationManager.defineAnimation(EnemyAnimationManager.ATTACK, AnimationManager.Direction.LEFT, BEAR_ATTACK_SHEET_PATH, nativeFrameW, nativeFrameH, 8, 4, attackFrames, attackFrameDur, false);
-        this.animationManager.defineAnimation(EnemyAnimationManager.ATTACK, AnimationManager.Direction.RIGHT, BEAR_ATTACK_SHEET_PATH, nativeFrameW, nativeFrameH, 8, 2, attackFrames, attackFrameDur, false);
-
-        this.animationManager.setVisualState(EnemyAnimationManager.IDLE, AnimationManager.Direction.DOWN);
+    /** @param random wander randomness; pass a seeded stream for reproducible simulations. */
+    public Bear(EnemyType type, int networkId, double startX, double startY,
+                CustomMapLoader mapLoader, EntityStore<Enemy> store, AiServices ai, ImageView view, Random random) {
+        super(type, networkId, startX, startY, mapLoader, store, ai, view);
+        this.stats = type.getStats();
+        this.random = random;
         pickNewWanderTarget();
         resetWanderInterval();
     }
 
     @Override
     public void update(double elapsedSeconds, Player targetPlayer) {
-        if (!alive) {
+        if (!isAlive()) {
             if (currentState != BehaviorState.DEAD) {
                 currentState = BehaviorState.DEAD;
                 if (animationManager != null) animationManager.setVisualState(EnemyAnimationManager.DEATH, lastDirection);
@@ -81,56 +92,62 @@ public class Bear extends Enemy {
             return;
         }
 
-        stateTimer += elapsedSeconds;
-        if (attackCooldownTimer > 0) attackCooldownTimer -= elapsedSeconds;
-        if (attackActionTimer > 0) attackActionTimer -= elapsedSeconds;
+        // State, cooldown and action timers are advanced for all enemies at once by EntityStore.tickTimers.
+        double x = getX(), y = getY();
+        double attackActionTimer = store.getActionTimer(slot);
 
         Player currentTarget = null;
         double distanceToTarget = Double.MAX_VALUE;
 
         if (targetPlayer != null && targetPlayer.isAlive()) {
-            double dx = targetPlayer.getX() - this.x;
-            double dy = targetPlayer.getY() - this.y;
+            double dx = targetPlayer.getX() - x;
+            double dy = targetPlayer.getY() - y;
             distanceToTarget = Math.sqrt(dx * dx + dy * dy);
-            if (distanceToTarget <= DETECTION_RANGE) {
+            if (distanceToTarget <= stats.getDetectionRange()
+                    && ai.getVisibility().canSee(slot, targetPlayer.getNetworkID(), x, y, targetPlayer.getX(), targetPlayer.getY())) {
                 currentTarget = targetPlayer;
             }
         }
+        timeSinceTargetSeen = (currentTarget != null) ? 0 : timeSinceTargetSeen + elapsedSeconds;
 
         BehaviorState previousState = currentState;
+        // Out of sight but not forgotten: keep chasing, calculateMovementIntent paths around whatever is in the way
+        boolean pursuing = currentState == BehaviorState.CHASING && timeSinceTargetSeen < PURSUIT_MEMORY
+                && distanceToTarget <= stats.getDetectionRange();
 
         if (currentState == BehaviorState.ATTACKING) {
             if (attackActionTimer <= 0) {
                 currentState = BehaviorState.IDLE;
-                attackCooldownTimer = ATTACK_COOLDOWN;
-            } else if (attackActionTimer <= ATTACK_ACTIVE_TIME && !hasDamagedThisAttack) {
-                if (currentTarget != null && distanceToTarget <= ATTACK_RANGE * 1.1) {
-                    currentTarget.takeDamage(ATTACK_DAMAGE);
+                store.setCooldownTimer(slot, stats.getAttackCooldown());
+            } else if (attackActionTimer <= stats.getAttackActiveTime() && !hasDamagedThisAttack) {
+                if (currentTarget != null && distanceToTarget <= stats.getAttackRange() * 1.1) {
+                    queueDamage(currentTarget, stats.getAttackDamage());
                     hasDamagedThisAttack = true;
                 }
             }
         } else if (currentTarget != null) {
-            if (distanceToTarget <= ATTACK_RANGE && attackCooldownTimer <= 0) {
+            if (distanceToTarget <= stats.getAttackRange() && store.getCooldownTimer(slot) <= 0) {
                 currentState = BehaviorState.ATTACKING;
-                attackActionTimer = ATTACK_WINDUP_TIME + ATTACK_ACTIVE_TIME;
+                store.setActionTimer(slot, stats.getAttackWindupTime() + stats.getAttackActiveTime());
                 hasDamagedThisAttack = false;
-                if (this.x > currentTarget.getX()) this.lastDirection = AnimationManager.Direction.LEFT;
+                if (x > currentTarget.getX()) this.lastDirection = AnimationManager.Direction.LEFT;
                 else this.lastDirection = AnimationManager.Direction.RIGHT;
             } else {
                 currentState = BehaviorState.CHASING;
             }
-        } else {
-            if (currentState == BehaviorState.CHASING || (currentState == BehaviorState.IDLE && stateTimer > currentWanderInterval)) {
+        } else if (!pursuing) {
+            pathFollower.reset();
+            if (currentState == BehaviorState.CHASING || (currentState == BehaviorState.IDLE && store.getStateTimer(slot) > currentWanderInterval)) {
                 currentState = BehaviorState.WANDERING;
                 pickNewWanderTarget();
                 resetWanderInterval();
-                stateTimer = 0;
+                store.setStateTimer(slot, 0);
             } else if (currentState == BehaviorState.WANDERING) {
                 double dxW = wanderTargetX - x;
                 double dyW = wanderTargetY - y;
-                if (Math.sqrt(dxW * dxW + dyW * dyW) < 10.0 || stateTimer > WANDER_INTERVAL_MAX * 1.5) {
+                if (Math.sqrt(dxW * dxW + dyW * dyW) < 10.0 || store.getStateTimer(slot) > WANDER_INTERVAL_MAX * 1.5) {
                     currentState = BehaviorState.IDLE;
-                    stateTimer = 0;
+                    store.setStateTimer(slot, 0);
                     resetWanderInterval();
                 }
             }
@@ -138,10 +155,12 @@ public class Bear extends Enemy {
     }
 
     @Override
-    public Point2D calculateMovementIntent(double elapsedSeconds, Player targetPlayer) {
-        if (!alive || currentState == BehaviorState.ATTACKING || currentState == BehaviorState.DEAD) {
-            return Point2D.ZERO;
+    public void calculateMovementIntent(double elapsedSeconds, Player targetPlayer, Vec2 intent) {
+        if (!isAlive() || currentState == BehaviorState.ATTACKING || currentState == BehaviorState.DEAD) {
+            intent.setZero();
+            return;
         }
+        double x = getX(), y = getY();
 
         double moveX = 0, moveY = 0;
 
@@ -149,20 +168,29 @@ public class Bear extends Enemy {
             double dx = targetPlayer.getX() - x;
             double dy = targetPlayer.getY() - y;
             double distance = Math.sqrt(dx * dx + dy * dy);
-            if (distance > ATTACK_RANGE * 0.8) {
-                moveX = (dx / distance) * speed * elapsedSeconds;
-                moveY = (dy / distance) * speed * elapsedSeconds;
+            if (distance > stats.getAttackRange() * 0.8) {
+                // Straight at a visible target; around walls along the target's flow field otherwise,
+                // or along a path of its own while that field is still being built
+                if (!ai.getVisibility().canSee(slot, targetPlayer.getNetworkID(), x, y, targetPlayer.getX(), targetPlayer.getY())
+                        && (ai.getFlowFields().steer(targetPlayer.getNetworkID(), x, y, pathDirection)
+                            || pathFollower.steer(ai.getPaths(), slot, x, y, targetPlayer.getX(), targetPlayer.getY(), pathDirection))) {
+                    moveX = pathDirection.getX() * stats.getSpeed() * elapsedSeconds;
+                    moveY = pathDirection.getY() * stats.getSpeed() * elapsedSeconds;
+                } else {
+                    moveX = (dx / distance) * stats.getSpeed() * elapsedSeconds;
+                    moveY = (dy / distance) * stats.getSpeed() * elapsedSeconds;
+                }
             }
         } else if (currentState == BehaviorState.WANDERING) {
             double dx = wanderTargetX - x;
             double dy = wanderTargetY - y;
             double distance = Math.sqrt(dx * dx + dy * dy);
             if (distance > 1.0) {
-                moveX = (dx / distance) * speed * 0.7 * elapsedSeconds;
-                moveY = (dy / distance) * speed * 0.7 * elapsedSeconds;
+                moveX = (dx / distance) * stats.getSpeed() * 0.7 * elapsedSeconds;
+                moveY = (dy / distance) * stats.getSpeed() * 0.7 * elapsedSeconds;
             }
         }
-        return new Point2D(moveX, moveY);
+        intent.set(moveX, moveY);
     }
 
     @Override
@@ -193,8 +221,8 @@ public class Bear extends Enemy {
 
     private void pickNewWanderTarget() {
         double angle = random.nextDouble() * 2 * Math.PI;
-        wanderTargetX = x + Math.cos(angle) * WANDER_DISTANCE;
-        wanderTargetY = y + Math.sin(angle) * WANDER_DISTANCE;
+        wanderTargetX = getX() + Math.cos(angle) * WANDER_DISTANCE;
+        wanderTargetY = getY() + Math.sin(angle) * WANDER_DISTANCE;
     }
 
     private void resetWanderInterval() {
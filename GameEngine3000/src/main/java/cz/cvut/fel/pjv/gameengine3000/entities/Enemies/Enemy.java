@@ -1,100 +1,85 @@
 package cz.cvut.fel.pjv.gameengine3000.entities.Enemies;
 
+import cz.cvut.fel.pjv.gameengine3000.ai.AiServices;
 import cz.cvut.fel.pjv.gameengine3000.animation.AnimationManager;
 import cz.cvut.fel.pjv.gameengine3000.animation.EnemyAnimationManager;
+import cz.cvut.fel.pjv.gameengine3000.entities.EntityStore;
 import cz.cvut.fel.pjv.gameengine3000.entities.Player;
+import cz.cvut.fel.pjv.gameengine3000.game.WorldSnapshot;
 import cz.cvut.fel.pjv.gameengine3000.map.CustomMapLoader;
 import cz.cvut.fel.pjv.gameengine3000.multiplayer.EnemyState;
-import cz.cvut.fel.pjv.gameengine3000.utils.AssetManager;
+import cz.cvut.fel.pjv.gameengine3000.physics.Aabb;
+import cz.cvut.fel.pjv.gameengine3000.physics.Vec2;
 
-import javafx.application.Platform;
-import javafx.geometry.Point2D;
-import javafx.geometry.Rectangle2D;
 import javafx.scene.image.ImageView;
 
-import java.util.Objects;
-
 public abstract class Enemy {
 
-    protected final ImageView enemyImageView;
+    protected final ImageView enemyImageView; // null when running headless
     protected EnemyAnimationManager animationManager;
     protected final CustomMapLoader mapLoader;
-    protected AssetManager assetManager;
 
     protected final int networkId;
-    protected final String enemyType;
+    protected final EnemyType type;
 
-    protected double x, y;
-    protected double displayWidth, displayHeight;
-    protected double speed;
-    public int health;
-    protected int maxHealth;
-    public boolean alive = true;
+    // Position, health and AI timers live in the shared store; this object keeps its slot there.
+    protected final EntityStore<Enemy> store;
+    private final int handle;
+    protected final int slot;
+    protected final AiServices ai;
 
     public AnimationManager.Direction lastDirection = AnimationManager.Direction.DOWN;
 
     protected enum BehaviorState { IDLE, WANDERING, CHASING, ATTACKING, DEAD }
     protected BehaviorState currentState = BehaviorState.IDLE;
 
-    private final double collisionBoxWidthFactor = 0.7;
-    private final double collisionBoxHeightFactor = 0.9;
-    private final double collisionBoxYOffsetFactor = 0.05;
+    // Damage dealt during update(), applied by commitPendingDamage() so update() never writes to players
+    private Player pendingDamageTarget = null;
+    private int pendingDamage = 0;
 
+    // Scratch for applyActualMovement, which runs in the serial commit phase
+    private final Aabb movementBox = new Aabb();
+    private final Vec2 movementResult = new Vec2();
 
-    public Enemy(int networkId, String enemyType, double startX, double startY,
-                 double displayWidth, double displayHeight,
-                 AssetManager assetManager, CustomMapLoader mapLoader) {
+    /**
+     * Takes size, collision box, health and animations from the type.
+     * @param view sprite node to draw into, e.g. a recycled one; null when running headless
+     */
+    public Enemy(EnemyType type, int networkId, double startX, double startY,
+                 CustomMapLoader mapLoader, EntityStore<Enemy> store, AiServices ai, ImageView view) {
         this.networkId = networkId;
-        this.enemyType = enemyType;
-        this.x = startX;
-        this.y = startY;
-        this.displayWidth = displayWidth;
-        this.displayHeight = displayHeight;
-        this.assetManager = Objects.requireNonNull(assetManager);
+        this.ai = ai;
+        this.type = type;
+        this.store = store;
+        this.handle = store.allocate(this, startX, startY);
+        this.slot = EntityStore.slotOf(handle);
+        double displayWidth = type.getDisplayWidth(), displayHeight = type.getDisplayHeight();
+        store.setCollisionBox(slot, displayWidth * type.getCollisionWidthFactor() / 2.0,
+                displayHeight * type.getCollisionHeightFactor() / 2.0, displayHeight * type.getCollisionYOffsetFactor());
+        store.setMaxHealth(slot, type.getStats().getMaxHealth());
+        store.setHealth(slot, type.getStats().getMaxHealth());
         this.mapLoader = mapLoader;
 
-        this.enemyImageView = new ImageView();
-        this.enemyImageView.setFitWidth(this.displayWidth);
-        this.enemyImageView.setFitHeight(this.displayHeight);
-        this.enemyImageView.setPreserveRatio(true);
-
-        updateVisualPosition();
-        updateAliveVisualState();
+        this.enemyImageView = view;
+        if (view != null) {
+            view.setFitWidth(displayWidth);
+            view.setFitHeight(displayHeight);
+            view.setPreserveRatio(true);
+            if (type.getAnimations() != null) this.animationManager = new EnemyAnimationManager(view, type.getAnimations());
+        }
     }
 
     public abstract void update(double elapsedSeconds, Player targetPlayer);
-    public abstract Point2D calculateMovementIntent(double elapsedSeconds, Player targetPlayer);
+    /** Writes the displacement this enemy wants to make this tick into intent (zero when standing still). */
+    public abstract void calculateMovementIntent(double elapsedSeconds, Player targetPlayer, Vec2 intent);
 
     public void applyActualMovement(double actualDX, double actualDY, double elapsedSeconds, double screenWidth, double screenHeight) {
-        double nextX = this.x + actualDX;
-        double nextY = this.y + actualDY;
-
-        Rectangle2D currentCollisionBounds = getCollisionBounds();
-        double checkWidth = currentCollisionBounds.getWidth();
-        double checkHeight = currentCollisionBounds.getHeight();
-
-        if (mapLoader != null) {
-            if (actualDX != 0) {
-                double checkCollisionX = (actualDX > 0) ? nextX + checkWidth / 2.0 -1 : nextX - checkWidth / 2.0;
-                if (!mapLoader.isAreaPassable(checkCollisionX - checkWidth/2.0, y - checkHeight/2.0 + displayHeight * collisionBoxYOffsetFactor, checkWidth, checkHeight)) {
-                    actualDX = 0;
-                    nextX = this.x;
-                }
-            }
-            this.x = nextX;
-
-            if (actualDY != 0) {
-                double checkCollisionY = (actualDY > 0) ? nextY + checkHeight / 2.0 -1 : nextY - checkHeight / 2.0;
-                if (!mapLoader.isAreaPassable(this.x - checkWidth/2.0, checkCollisionY - checkHeight/2.0 + displayHeight * collisionBoxYOffsetFactor, checkWidth, checkHeight)) {
-                    actualDY = 0;
-                    nextY = this.y;
-                }
-            }
-            this.y = nextY;
-        } else {
-            this.x = nextX;
-            this.y = nextY;
+        if (mapLoader != null && (actualDX != 0 || actualDY != 0)) {
+            mapLoader.getMovementSolver().move(getCollisionBounds(movementBox), actualDX, actualDY, movementResult);
+            actualDX = movementResult.getX();
+            actualDY = movementResult.getY();
         }
+        store.setPosition(slot, store.getX(slot) + actualDX, store.getY(slot) + actualDY);
 
         clampToScreenBounds(screenWidth, screenHeight);
 
@@ -105,83 +90,109 @@ public abstract class Enemy {
         else if (actualDY < 0 && Math.abs(actualDY) > Math.abs(actualDX)) this.lastDirection = AnimationManager.Direction.UP;
 
         updateAnimationAfterMovement(actualDX, actualDY, elapsedSeconds);
-        updateVisualPosition();
     }
 
-    protected abstract void updateAnimationAfterMovement(double actualDX, double actualDY, double elapsedSeconds);
+    /**
+     * Queues damage for the commit phase; AI code must not call {@link Player#takeDamage} directly.
+     * An enemy hits at most one player per tick, the last one queued.
+     */
+    protected void queueDamage(Player player, int amount) {
+        if (pendingDamageTarget != player) pendingDamage = 0;
+        pendingDamageTarget = player;
+        pendingDamage += amount;
+    }
 
-    protected void clampToScreenBounds(double screenWidth, double screenHeight) {
-        x = Math.max(displayWidth / 2.0, Math.min(x, screenWidth - displayWidth / 2.0));
-        y = Math.max(displayHeight / 2.0, Math.min(y, screenHeight - displayHeight / 2.0));
+    public void commitPendingDamage() {
+        if (pendingDamageTarget == null) return;
+        Player player = pendingDamageTarget;
+        int amount = pendingDamage;
+        pendingDamageTarget = null;
+        pendingDamage = 0;
+        player.takeDamage(amount);
     }
 
-    protected void updateVisualPosition() {
-        Platform.runLater(() -> {
-            enemyImageView.setX(this.x - this.displayWidth / 2.0);
-            enemyImageView.setY(this.y - this.displayHeight / 2.0);
-        });
+    /** Whether {@link #update} has to run every tick, e.g. to land a hit inside its window; the AI scheduler never defers it then. */
+    public boolean needsDecisionEveryTick() {
+        return currentState == BehaviorState.ATTACKING;
     }
 
-    public void updateAliveVisualState() {
-        Platform.runLater(() -> {
-            enemyImageView.setVisible(this.alive);
-            enemyImageView.setOpacity(this.alive ? 1.0 : 0.7);
-        });
+    protected abstract void updateAnimationAfterMovement(double actualDX, double actualDY, double elapsedSeconds);
+
+    protected void clampToScreenBounds(double screenWidth, double screenHeight) {
+        double displayWidth = type.getDisplayWidth(), displayHeight = type.getDisplayHeight();
+        store.setPosition(slot,
+                Math.max(displayWidth / 2.0, Math.min(store.getX(slot), screenWidth - displayWidth / 2.0)),
+                Math.max(displayHeight / 2.0, Math.min(store.getY(slot), screenHeight - displayHeight / 2.0)));
+    }
+
+    public void captureRenderState(WorldSnapshot snapshot) {
+        if (enemyImageView == null) return;
+        boolean alive = store.isAlive(slot);
+        snapshot.add(enemyImageView, store.getPrevX(slot), store.getPrevY(slot), store.getX(slot), store.getY(slot),
+                type.getDisplayWidth() / 2.0, type.getDisplayHeight() / 2.0,
+                alive, alive ? 1.0 : 0.7,
+                animationManager != null ? animationManager.getDisplayedSheet() : null,
+                animationManager != null ? animationManager.getDisplayedViewport() : null);
     }
 
     public void takeDamage(int amount) {
-        if (!alive) return;
-        this.health -= amount;
-        if (this.health <= 0) {
-            this.health = 0;
-            this.alive = false;
+        if (!store.isAlive(slot)) return;
+        int health = store.getHealth(slot) - amount;
+        if (health <= 0) {
+            health = 0;
+            store.setAlive(slot, false);
             this.currentState = BehaviorState.DEAD;
         }
-        updateAliveVisualState();
+        store.setHealth(slot, health);
+    }
+
+    /** Sets health directly (save loading); a positive value revives the enemy. */
+    public void setHealth(int newHealth) {
+        store.setHealth(slot, Math.max(0, newHealth));
+        store.setAlive(slot, newHealth > 0);
+        if (newHealth > 0 && currentState == BehaviorState.DEAD) currentState = BehaviorState.IDLE;
     }
 
     public void applyNetworkState(EnemyState state) {
-        this.x = state.x;
-        this.y = state.y;
-        boolean previousAlive = this.alive;
-        this.alive = state.alive;
-        if(previousAlive != this.alive) updateAliveVisualState();
+        store.setPosition(slot, state.x, state.y);
+        store.setAlive(slot, state.alive);
 
         this.lastDirection = AnimationManager.directionFromString(state.direction);
 
         String animStateToPlay = EnemyAnimationManager.IDLE;
-        if (!this.alive) {
+        if (!state.alive) {
             animStateToPlay = EnemyAnimationManager.DEATH;
         } else if (state.chasing) {
             animStateToPlay = EnemyAnimationManager.WALK;
         }
 
         if (this.animationManager != null) {
-            if (state.type.equalsIgnoreCase(this.enemyType) && this.animationManager.getCurrentStateName().equals(EnemyAnimationManager.ATTACK) && !state.chasing) {
+            if (state.type.equalsIgnoreCase(type.getName()) && this.animationManager.getCurrentStateName().equals(EnemyAnimationManager.ATTACK) && !state.chasing) {
 
             } else {
                 this.animationManager.setVisualState(animStateToPlay, this.lastDirection);
             }
         }
-        updateVisualPosition();
     }
 
 
     public ImageView getEnemyImageView() { return enemyImageView; }
     public int getNetworkId() { return networkId; }
-    public String getEnemyType() { return enemyType; }
-    public double getX() { return x; }
-    public double getY() { return y; }
-    public int getHealth() { return health; }
-    public boolean isAlive() { return alive; }
-    public double getDisplayWidth() { return displayWidth; }
-    public double getDisplayHeight() { return displayHeight; }
-
-    public Rectangle2D getCollisionBounds() {
-        double colWidth = displayWidth * collisionBoxWidthFactor;
-        double colHeight = displayHeight * collisionBoxHeightFactor;
-        double colX = x - colWidth / 2.0;
-        double colY = y - colHeight / 2.0 + displayHeight * collisionBoxYOffsetFactor;
-        return new Rectangle2D(colX, colY, colWidth, colHeight);
+    public String getEnemyType() { return type.getName(); }
+    public EnemyType getType() { return type; }
+    public int getHandle() { return handle; }
+    public double getX() { return store.getX(slot); }
+    public double getY() { return store.getY(slot); }
+    public int getHealth() { return store.getHealth(slot); }
+    public int getMaxHealth() { return store.getMaxHealth(slot); }
+    public boolean isAlive() { return store.isAlive(slot); }
+    public double getDisplayWidth() { return type.getDisplayWidth(); }
+    public double getDisplayHeight() { return type.getDisplayHeight(); }
+
+    public Aabb getCollisionBounds(Aabb out) {
+        double halfWidth = store.getBoxHalfWidth(slot);
+        double halfHeight = store.getBoxHalfHeight(slot);
+        return out.set(store.getX(slot) - halfWidth, store.getY(slot) - halfHeight + store.getBoxOffsetY(slot),
+                halfWidth * 2.0, halfHeight * 2.0);
     }
 }
\ No newline at end of file
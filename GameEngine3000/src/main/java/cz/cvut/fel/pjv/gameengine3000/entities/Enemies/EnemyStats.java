@@ -0,0 +1,35 @@
+package cz.cvut.fel.pjv.gameengine3000.entities.Enemies;
+
+/** Combat and movement numbers shared by every enemy of one {@link EnemyType}. Distances in pixels, times in seconds. */
+public final class EnemyStats {
+
+    private final int maxHealth;
+    private final double speed;
+    private final double detectionRange;
+    private final double attackRange;
+    private final int attackDamage;
+    private final double attackWindupTime;
+    private final double attackActiveTime;
+    private final double attackCooldown;
+
+    public EnemyStats(int maxHealth, double speed, double detectionRange, double attackRange, int attackDamage,
+                      double attackWindupTime, double attackActiveTime, double attackCooldown) {
+        this.maxHealth = maxHealth;
+        this.speed = speed;
+        this.detectionRange = detectionRange;
+        this.attackRange = attackRange;
+        this.attackDamage = attackDamage;
+        this.attackWindupTime = attackWindupTime;
+        this.attackActiveTime = attackActiveTime;
+        this.attackCooldown = attackCooldown;
+    }
+
+    public int getMaxHealth() { return maxHealth; }
+    public double getSpeed() { return speed; }
+    public double getDetectionRange() { return detectionRange; }
+    public double getAttackRange() { return attackRange; }
+    public int getAttackDamage() { return attackDamage; }
+    public double getAttackWindupTime() { return attackWindupTime; }
+    public double getAttackActiveTime() { return attackActiveTime; }
+    public double getAttackCooldown() { return attackCooldown; }
+}
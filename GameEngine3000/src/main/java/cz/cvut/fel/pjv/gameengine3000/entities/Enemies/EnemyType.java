@@ -0,0 +1,66 @@
+package cz.cvut.fel.pjv.gameengine3000.entities.Enemies;
+
+import cz.cvut.fel.pjv.gameengine3000.ai.AiServices;
+import cz.cvut.fel.pjv.gameengine3000.animation.AnimationSet;
+import cz.cvut.fel.pjv.gameengine3000.entities.EntityStore;
+import cz.cvut.fel.pjv.gameengine3000.map.CustomMapLoader;
+
+import javafx.scene.image.ImageView;
+
+import java.util.Random;
+
+/**
+ * Everything enemies of one kind have in common, built once (see {@link EnemyTypeRegistry}) and shared by
+ * all of them: size, collision box proportions, stats, the animation definitions and how to create one.
+ * Instances keep only their own mutable state.
+ */
+public final class EnemyType {
+
+    /** Creates an enemy of the given type; matches the constructors of the enemy classes. */
+    @FunctionalInterface
+    public interface Factory {
+        Enemy create(EnemyType type, int networkId, double startX, double startY,
+                     CustomMapLoader mapLoader, EntityStore<Enemy> store, AiServices ai, ImageView view, Random random);
+    }
+
+    private final String name;
+    private final Factory factory;
+    private final double displayWidth, displayHeight;
+    private final double collisionWidthFactor, collisionHeightFactor, collisionYOffsetFactor;
+    private final EnemyStats stats;
+    private final AnimationSet animations; // null when running headless
+
+    /**
+     * @param collisionWidthFactor collision box size relative to the display size; the y offset moves the box
+     *                             down by that fraction of the display height
+     * @param animations           sealed here; null to run without visuals
+     */
+    public EnemyType(String name, Factory factory, double displayWidth, double displayHeight,
+                     double collisionWidthFactor, double collisionHeightFactor, double collisionYOffsetFactor,
+                     EnemyStats stats, AnimationSet animations) {
+        this.name = name;
+        this.factory = factory;
+        this.displayWidth = displayWidth;
+        this.displayHeight = displayHeight;
+        this.collisionWidthFactor = collisionWidthFactor;
+        this.collisionHeightFactor = collisionHeightFactor;
+        this.collisionYOffsetFactor = collisionYOffsetFactor;
+        this.stats = stats;
+        this.animations = (animations != null) ? animations.seal() : null;
+    }
+
+    /** @param view sprite node for the enemy, null when running headless */
+    public Enemy create(int networkId, double startX, double startY,
+                        CustomMapLoader mapLoader, EntityStore<Enemy> store, AiServices ai, ImageView view, Random random) {
+        return factory.create(this, networkId, startX, startY, mapLoader, store, ai, view, random);
+    }
+
+    public String getName() { return name; }
+    public double getDisplayWidth() { return displayWidth; }
+    public double getDisplayHeight() { return displayHeight; }
+    public double getCollisionWidthFactor() { return collisionWidthFactor; }
+    public double getCollisionHeightFactor() { return collisionHeightFactor; }
+    public double getCollisionYOffsetFactor() { return collisionYOffsetFactor; }
+    public EnemyStats getStats() { return stats; }
+    public AnimationSet getAnimations() { return animations; }
+}
@@ -0,0 +1,39 @@
+package cz.cvut.fel.pjv.gameengine3000.entities.Enemies;
+
+import cz.cvut.fel.pjv.gameengine3000.utils.AssetManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/** Enemy types by name (case-insensitive), e.g. for spawning and for the type strings in saves and network state. */
+public class EnemyTypeRegistry {
+
+    private final Map<String, EnemyType> types = new LinkedHashMap<>();
+
+    /**
+     * Registry with the built-in enemy types.
+     * @param assetManager loads the types' sprite sheets; null to run without visuals
+     */
+    public static EnemyTypeRegistry createDefault(AssetManager assetManager) {
+        EnemyTypeRegistry registry = new EnemyTypeRegistry();
+        registry.register(Bear.createType(assetManager));
+        return registry;
+    }
+
+    /** Adds a type, replacing any registered under the same name. */
+    public void register(EnemyType type) {
+        types.put(type.getName().toLowerCase(Locale.ROOT), type);
+    }
+
+    /** The type registered under name, or null. */
+    public EnemyType get(String name) {
+        return (name != null) ? types.get(name.toLowerCase(Locale.ROOT)) : null;
+    }
+
+    public Collection<EnemyType> getAll() {
+        return Collections.unmodifiableCollection(types.values());
+    }
+}
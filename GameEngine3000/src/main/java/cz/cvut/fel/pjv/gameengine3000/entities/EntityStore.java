@@ -0,0 +1,210 @@
+package cz.cvut.fel.pjv.gameengine3000.entities;
+
+import java.util.Arrays;
+
+/**
+ * Structure-of-arrays storage for the per-entity state touched every tick: position, previous position,
+ * collision box, health and AI timers, each in its own primitive array indexed by slot.
+ * <p>
+ * Entities are referenced by generational handles (slot in the low {@value #SLOT_BITS} bits, the slot's
+ * generation above). Releasing a slot bumps its generation, so a handle kept past its entity's lifetime
+ * stops resolving instead of silently pointing at whatever reuses the slot.
+ * <p>
+ * Not thread-safe for allocation; concurrent writers must stick to distinct slots.
+ */
+public class EntityStore<T> {
+
+    public static final int NO_HANDLE = -1;
+    private static final int SLOT_BITS = 20;
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+    private static final int GENERATION_MASK = (1 << (31 - SLOT_BITS)) - 1;
+    public static final int MAX_SLOTS = 1 << SLOT_BITS;
+
+    private Object[] owners;
+    private int[] generation;
+    private boolean[] used;
+    private int[] freeSlots;
+    private int freeCount = 0;
+    private int highWater = 0; // slots [0, highWater) have been handed out at least once
+    private int size = 0;
+
+    private double[] x, y, prevX, prevY;
+    private double[] boxHalfWidth, boxHalfHeight, boxOffsetY;
+    private int[] health, maxHealth;
+    private boolean[] alive;
+    private double[] stateTimer, cooldownTimer, actionTimer;
+
+    public EntityStore(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        owners = new Object[capacity];
+        generation = new int[capacity];
+        used = new boolean[capacity];
+        freeSlots = new int[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        prevX = new double[capacity];
+        prevY = new double[capacity];
+        boxHalfWidth = new double[capacity];
+        boxHalfHeight = new double[capacity];
+        boxOffsetY = new double[capacity];
+        health = new int[capacity];
+        maxHealth = new int[capacity];
+        alive = new boolean[capacity];
+        stateTimer = new double[capacity];
+        cooldownTimer = new double[capacity];
+        actionTimer = new double[capacity];
+    }
+
+    /** Reserves a slot for owner at the given position and returns its handle. */
+    public int allocate(T owner, double startX, double startY) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (highWater == MAX_SLOTS) throw new IllegalStateException("EntityStore is full (" + MAX_SLOTS + " slots).");
+            if (highWater == owners.length) grow();
+            slot = highWater++;
+        }
+        used[slot] = true;
+        owners[slot] = owner;
+        x[slot] = startX;
+        y[slot] = startY;
+        prevX[slot] = startX;
+        prevY[slot] = startY;
+        boxHalfWidth[slot] = 0;
+        boxHalfHeight[slot] = 0;
+        boxOffsetY[slot] = 0;
+        health[slot] = 0;
+        maxHealth[slot] = 0;
+        alive[slot] = true;
+        stateTimer[slot] = 0;
+        cooldownTimer[slot] = 0;
+        actionTimer[slot] = 0;
+        size++;
+        return (generation[slot] << SLOT_BITS) | slot;
+    }
+
+    /** Grows the arrays up front so that many slots can be in use without reallocating during a tick. */
+    public void ensureCapacity(int slots) {
+        while (owners.length < Math.min(MAX_SLOTS, slots)) grow();
+    }
+
+    /** Frees the handle's slot. Stale or unknown handles are ignored. */
+    public void release(int handle) {
+        if (!isValid(handle)) return;
+        int slot = slotOf(handle);
+        used[slot] = false;
+        owners[slot] = null;
+        alive[slot] = false;
+        generation[slot] = (generation[slot] + 1) & GENERATION_MASK;
+        freeSlots[freeCount++] = slot;
+        size--;
+    }
+
+    public void clear() {
+        for (int slot = 0; slot < highWater; slot++) {
+            if (used[slot]) generation[slot] = (generation[slot] + 1) & GENERATION_MASK;
+            used[slot] = false;
+            alive[slot] = false;
+        }
+        Arrays.fill(owners, 0, highWater, null);
+        freeCount = 0;
+        highWater = 0;
+        size = 0;
+    }
+
+    public boolean isValid(int handle) {
+        if (handle < 0) return false;
+        int slot = handle & SLOT_MASK;
+        return slot < highWater && used[slot] && generation[slot] == (handle >>> SLOT_BITS);
+    }
+
+    public static int slotOf(int handle) {
+        return handle & SLOT_MASK;
+    }
+
+    /** Owner of a live handle, or null once the handle has gone stale. */
+    @SuppressWarnings("unchecked")
+    public T resolve(int handle) {
+        return isValid(handle) ? (T) owners[slotOf(handle)] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T getOwner(int slot) {
+        return (T) owners[slot];
+    }
+
+    // --- Bulk systems: tight loops over the arrays ---
+
+    public void storePreviousPositions() {
+        System.arraycopy(x, 0, prevX, 0, highWater);
+        System.arraycopy(y, 0, prevY, 0, highWater);
+    }
+
+    /** Advances the AI timers of all living entities: the state timer counts up, cooldown and action timers count down to zero. */
+    public void tickTimers(double elapsedSeconds) {
+        for (int slot = 0; slot < highWater; slot++) {
+            if (!alive[slot]) continue;
+            stateTimer[slot] += elapsedSeconds;
+            if (cooldownTimer[slot] > 0) cooldownTimer[slot] -= elapsedSeconds;
+            if (actionTimer[slot] > 0) actionTimer[slot] -= elapsedSeconds;
+        }
+    }
+
+    // --- Per-slot access ---
+
+    public double getX(int slot) { return x[slot]; }
+    public double getY(int slot) { return y[slot]; }
+    public void setPosition(int slot, double newX, double newY) { x[slot] = newX; y[slot] = newY; }
+    public double getPrevX(int slot) { return prevX[slot]; }
+    public double getPrevY(int slot) { return prevY[slot]; }
+
+    public void setCollisionBox(int slot, double halfWidth, double halfHeight, double offsetY) {
+        boxHalfWidth[slot] = halfWidth;
+        boxHalfHeight[slot] = halfHeight;
+        boxOffsetY[slot] = offsetY;
+    }
+    public double getBoxHalfWidth(int slot) { return boxHalfWidth[slot]; }
+    public double getBoxHalfHeight(int slot) { return boxHalfHeight[slot]; }
+    public double getBoxOffsetY(int slot) { return boxOffsetY[slot]; }
+
+    public int getHealth(int slot) { return health[slot]; }
+    public void setHealth(int slot, int value) { health[slot] = value; }
+    public int getMaxHealth(int slot) { return maxHealth[slot]; }
+    public void setMaxHealth(int slot, int value) { maxHealth[slot] = value; }
+    public boolean isAlive(int slot) { return alive[slot]; }
+    public void setAlive(int slot, boolean value) { alive[slot] = value; }
+
+    public double getStateTimer(int slot) { return stateTimer[slot]; }
+    public void setStateTimer(int slot, double value) { stateTimer[slot] = value; }
+    public double getCooldownTimer(int slot) { return cooldownTimer[slot]; }
+    public void setCooldownTimer(int slot, double value) { cooldownTimer[slot] = value; }
+    public double getActionTimer(int slot) { return actionTimer[slot]; }
+    public void setActionTimer(int slot, double value) { actionTimer[slot] = value; }
+
+    public boolean isUsed(int slot) { return used[slot]; }
+    /** Upper bound (exclusive) for slot loops. */
+    public int getHighWater() { return highWater; }
+    public int size() { return size; }
+
+    private void grow() {
+        int capacity = Math.min(MAX_SLOTS, owners.length * 2);
+        owners = Arrays.copyOf(owners, capacity);
+        generation = Arrays.copyOf(generation, capacity);
+        used = Arrays.copyOf(used, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        prevX = Arrays.copyOf(prevX, capacity);
+        prevY = Arrays.copyOf(prevY, capacity);
+        boxHalfWidth = Arrays.copyOf(boxHalfWidth, capacity);
+        boxHalfHeight = Arrays.copyOf(boxHalfHeight, capacity);
+        boxOffsetY = Arrays.copyOf(boxOffsetY, capacity);
+        health = Arrays.copyOf(health, capacity);
+        maxHealth = Arrays.copyOf(maxHealth, capacity);
+        alive = Arrays.copyOf(alive, capacity);
+        stateTimer = Arrays.copyOf(stateTimer, capacity);
+        cooldownTimer = Arrays.copyOf(cooldownTimer, capacity);
+        actionTimer = Arrays.copyOf(actionTimer, capacity);
+    }
+}
@@ -2,18 +2,17 @@ package cz.cvut.fel.pjv.gameengine3000.entities;
 
 import cz.cvut.fel.pjv.gameengine3000.animation.AnimationManager;
 import cz.cvut.fel.pjv.gameengine3000.animation.PlayerAnimationManager;
+import cz.cvut.fel.pjv.gameengine3000.game.WorldSnapshot;
 import cz.cvut.fel.pjv.gameengine3000.map.CustomMapLoader;
+import cz.cvut.fel.pjv.gameengine3000.physics.Aabb;
+import cz.cvut.fel.pjv.gameengine3000.physics.Vec2;
 import cz.cvut.fel.pjv.gameengine3000.utils.AssetManager;
 
-import javafx.application.Platform;
-import javafx.geometry.Rectangle2D;
 import javafx.scene.image.ImageView;
 
-import java.util.Objects;
-
 public class Player {
 
-    private final ImageView playerImageView;
+    private final ImageView playerImageView; // null when running headless
     private final PlayerAnimationManager animationManager;
     private CustomMapLoader mapLoader;
 
@@ -21,9 +20,11 @@ public class Player {
     private final boolean isLocalPlayer;
 
     private double x, y;
+    private double prevX, prevY;
     private double speed = 150;
     private double displayWidth, displayHeight;
-    public boolean goUp, goDown, goLeft, goRight;
+    public volatile boolean goUp, goDown, goLeft, goRight;
+    private AnimationManager.Direction facingDirection = AnimationManager.Direction.DOWN;
 
     private int health = 100;
     private boolean alive = true;
@@ -39,6 +40,8 @@ public class Player {
     private final double collisionBoxWidthFactor = 0.6;
     private final double collisionBoxHeightFactor = 0.8;
     private final double collisionBoxYOffsetFactor = 0.1;
+    private final Aabb movementBox = new Aabb();
+    private final Vec2 movementResult = new Vec2();
 
 
     public Player(int networkID, boolean isLocal,
@@ -51,25 +54,28 @@ public class Player {
         this.isLocalPlayer = isLocal;
         this.x = startX;
         this.y = startY;
+        this.prevX = startX;
+        this.prevY = startY;
         this.mapLoader = mapLoader;
         this.displayWidth = targetDisplayWidth;
         this.displayHeight = targetDisplayHeight;
 
-        this.playerImageView = new ImageView();
-        this.playerImageView.setFitWidth(this.displayWidth);
-        this.playerImageView.setFitHeight(this.displayHeight);
-        this.playerImageView.setPreserveRatio(true);
-
-        Objects.requireNonNull(assetManager, "AssetManager cannot be null for Player constructor.");
-
-        this.animationManager = new PlayerAnimationManager(this.playerImageView, assetManager,
-                playerWalkSheetPath, playerIdleSheetPath, playerAttackSheetPath,
-                16, 16,
-                0.12, 0.075,
-                this.attackLogicDuration);
-
-        updateVisualPosition();
-        updateAliveVisualState();
+        if (assetManager != null) {
+            this.playerImageView = new ImageView();
+            this.playerImageView.setFitWidth(this.displayWidth);
+            this.playerImageView.setFitHeight(this.displayHeight);
+            this.playerImageView.setPreserveRatio(true);
+
+            this.animationManager = new PlayerAnimationManager(this.playerImageView, assetManager,
+                    playerWalkSheetPath, playerIdleSheetPath, playerAttackSheetPath,
+                    16, 16,
+                    0.12, 0.075,
+                    this.attackLogicDuration);
+            this.facingDirection = animationManager.getLastFacingDirection();
+        } else {
+            this.playerImageView = null;
+            this.animationManager = null;
+        }
     }
 
     public void update(double elapsedSeconds, double screenWidth, double screenHeight) {
@@ -96,7 +102,19 @@ public class Player {
         }
 
         if (animationManager != null) animationManager.update(elapsedSeconds);
-        updateVisualPosition();
+    }
+
+    public void storePreviousPosition() {
+        prevX = x;
+        prevY = y;
+    }
+
+    public void captureRenderState(WorldSnapshot snapshot) {
+        if (playerImageView == null) return;
+        snapshot.add(playerImageView, prevX, prevY, x, y, displayWidth / 2.0, displayHeight / 2.0,
+                alive, alive ? 1.0 : 0.6,
+                animationManager != null ? animationManager.getDisplayedSheet() : null,
+                animationManager != null ? animationManager.getDisplayedViewport() : null);
     }
 
     private void handleLocalMovement(double elapsedSeconds) {
@@ -122,35 +140,13 @@ public class Player {
             deltaY = dyInput * actualSpeed * elapsedSeconds;
         }
 
-        double nextX = x + deltaX;
-        double nextY = y + deltaY;
-
-        Rectangle2D currentCollisionBounds = getCollisionBounds();
-        double checkWidth = currentCollisionBounds.getWidth();
-        double checkHeight = currentCollisionBounds.getHeight();
-
-        if (mapLoader != null) {
-            if (deltaX != 0) {
-                double checkCollisionX = (deltaX > 0) ? nextX + checkWidth / 2.0 -1 : nextX - checkWidth / 2.0;
-                if (!mapLoader.isAreaPassable(checkCollisionX - checkWidth/2.0, y - checkHeight/2.0 + displayHeight * collisionBoxYOffsetFactor, checkWidth, checkHeight)) {
-                    deltaX = 0;
-                    nextX = x;
-                }
-            }
-            x = nextX;
-
-            if (deltaY != 0) {
-                double checkCollisionY = (deltaY > 0) ? nextY + checkHeight / 2.0 -1 : nextY - checkHeight / 2.0;
-                if (!mapLoader.isAreaPassable(x - checkWidth/2.0, checkCollisionY - checkHeight/2.0 + displayHeight * collisionBoxYOffsetFactor, checkWidth, checkHeight)) {
-                    deltaY = 0;
-                    nextY = y;
-                }
-            }
-            y = nextY;
-        } else {
-            x = nextX;
-            y = nextY;
+        if (mapLoader != null && (deltaX != 0 || deltaY != 0)) {
+            mapLoader.getMovementSolver().move(getCollisionBounds(movementBox), deltaX, deltaY, movementResult);
+            deltaX = movementResult.getX();
+            deltaY = movementResult.getY();
         }
+        x += deltaX;
+        y += deltaY;
     }
 
     private void clampToScreenBounds(double screenWidth, double screenHeight) {
@@ -160,7 +156,6 @@ public class Player {
 
     private void updateLocalAnimationState() {
         PlayerAnimationManager.PlayerState targetState;
-        AnimationManager.Direction facingDirection = animationManager.getLastFacingDirection();
 
         if (isLogicallyAttacking) {
             targetState = PlayerAnimationManager.PlayerState.ATTACKING;
@@ -171,7 +166,9 @@ public class Player {
         } else {
             targetState = PlayerAnimationManager.PlayerState.IDLE;
         }
-        animationManager.setVisualState(targetState, facingDirection);
+        if (animationManager != null) {
+            animationManager.setVisualState(targetState, facingDirection);
+        }
     }
 
     private AnimationManager.Direction determineDirectionFromInput() {
@@ -179,7 +176,7 @@ public class Player {
         if (goRight) return AnimationManager.Direction.RIGHT;
         if (goUp) return AnimationManager.Direction.UP;
         if (goDown) return AnimationManager.Direction.DOWN;
-        return animationManager.getLastFacingDirection();
+        return facingDirection;
     }
 
     public void applyNetworkState(double newX, double newY, String dirStr,
@@ -200,6 +197,7 @@ public class Player {
         }
 
         AnimationManager.Direction netDir = AnimationManager.directionFromString(dirStr);
+        this.facingDirection = netDir;
         PlayerAnimationManager.PlayerState targetAnimState;
         if (this.isLogicallyAttacking) targetAnimState = PlayerAnimationManager.PlayerState.ATTACKING;
         else if (isNetMoving) targetAnimState = PlayerAnimationManager.PlayerState.WALKING;
@@ -208,21 +206,6 @@ public class Player {
         if (animationManager != null) {
             animationManager.setVisualState(targetAnimState, netDir);
         }
-        updateVisualPosition();
-    }
-
-    private void updateVisualPosition() {
-        Platform.runLater(() -> {
-            playerImageView.setX(this.x - this.displayWidth / 2.0);
-            playerImageView.setY(this.y - this.displayHeight / 2.0);
-        });
-    }
-
-    private void updateAliveVisualState() {
-        Platform.runLater(() -> {
-            playerImageView.setVisible(this.alive);
-            playerImageView.setOpacity(this.alive ? 1.0 : 0.6);
-        });
     }
 
     public void requestAttack() {
@@ -248,22 +231,20 @@ public class Player {
             this.health = 0;
             this.alive = false;
             if (animationManager != null) {
-                animationManager.setVisualState(PlayerAnimationManager.PlayerState.IDLE, animationManager.getLastFacingDirection());
+                animationManager.setVisualState(PlayerAnimationManager.PlayerState.IDLE, facingDirection);
             }
         }
-        updateAliveVisualState();
     }
 
     public void setHealth(int newHealth) {
-        boolean wasAlive = this.alive;
         this.health = Math.max(0, newHealth);
         this.alive = this.health > 0;
-        if (wasAlive != this.alive) updateAliveVisualState();
     }
 
-    public Rectangle2D getAttackHitbox() {
+    /** Fills out with the current attack hitbox and returns it, or returns null when not attacking. */
+    public Aabb getAttackHitbox(Aabb out) {
         if (!isLogicallyAttacking || attackLogicTimer <= 0 || !alive) return null;
-        AnimationManager.Direction facing = animationManager.getLastFacingDirection();
+        AnimationManager.Direction facing = facingDirection;
         double hbX = x, hbY = y, hbW = 0, hbH = 0;
         double offsetX = displayWidth / 2.0;
         double offsetY = displayHeight / 2.0;
@@ -274,7 +255,7 @@ public class Player {
             case RIGHT: hbX = x + offsetX; hbY = y - attackWidth / 2.0; hbW = attackRange; hbH = attackWidth; break;
             default: return null;
         }
-        return new Rectangle2D(hbX, hbY, hbW, hbH);
+        return out.set(hbX, hbY, hbW, hbH);
     }
 
     public ImageView getPlayerImageView() { return playerImageView; }
@@ -285,20 +266,23 @@ public class Player {
     public int getHealth() { return health; }
     public boolean isAlive() { return alive; }
     public boolean isMoving() { return (goUp || goDown || goLeft || goRight); }
-    public String getLastDirectionString() { return animationManager.getLastFacingDirection().toString(); }
+    public String getLastDirectionString() { return facingDirection.toString(); }
     public boolean isCurrentlyLogicallyAttacking() { return this.isLogicallyAttacking && this.attackLogicTimer > 0; }
 
-    public void setPosition(double x, double y) { this.x = x; this.y = y; updateVisualPosition(); }
+    public void setPosition(double x, double y) {
+        this.x = x; this.y = y;
+        this.prevX = x; this.prevY = y;
+    }
     public void setMapLoader(CustomMapLoader mapLoader) { this.mapLoader = mapLoader; }
 
     public double getDisplayWidth() { return displayWidth; }
     public double getDisplayHeight() { return displayHeight; }
 
-    public Rectangle2D getCollisionBounds() {
+    public Aabb getCollisionBounds(Aabb out) {
         double colWidth = displayWidth * collisionBoxWidthFactor;
         double colHeight = displayHeight * collisionBoxHeightFactor;
         double colX = x - colWidth / 2.0;
         double colY = y - colHeight / 2.0 + displayHeight * collisionBoxYOffsetFactor;
-        return new Rectangle2D(colX, colY, colWidth, colHeight);
+        return out.set(colX, colY, colWidth, colHeight);
     }
 }
@@ -0,0 +1,196 @@
+package cz.cvut.fel.pjv.gameengine3000.entities;
+
+import cz.cvut.fel.pjv.gameengine3000.game.WorldSnapshot;
+
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Fixed-capacity projectile storage. State lives in primitive arrays indexed by slot, live slots are kept
+ * densely packed in {@link #getActiveSlot(int)} order and freed slots are reused from a free list, so firing
+ * and expiring projectiles allocates nothing once the pool is warm.
+ * <p>
+ * Each slot owns one {@link Circle}, created the first time the slot is used and never detached:
+ * free slots are simply published as invisible.
+ */
+public class ProjectilePool {
+    public static final double RADIUS = 5;
+    private static final double SPEED = 350;
+    private static final double MAX_TRAVEL_DISTANCE = 300.0;
+    private static final double MAX_TRAVEL_DISTANCE_SQ = MAX_TRAVEL_DISTANCE * MAX_TRAVEL_DISTANCE;
+
+    private final int capacity;
+    private final double[] x, y, prevX, prevY, vx, vy, startX, startY;
+    private final boolean[] active;
+
+    private final int[] activeSlots;
+    private final int[] activeIndex; // slot -> position in activeSlots
+    private int activeCount = 0;
+
+    private final int[] freeSlots;
+    private int freeCount = 0;
+    private int highWater = 0;
+
+    private final Circle[] visuals; // null when running headless
+    private final Consumer<Node> onVisualCreated;
+    private boolean warnedFull = false;
+
+    /**
+     * @param onVisualCreated receives each newly created circle so it can be attached to the scene once;
+     *                        null runs headless without any visuals.
+     */
+    public ProjectilePool(int capacity, Consumer<Node> onVisualCreated) {
+        this.capacity = capacity;
+        x = new double[capacity];
+        y = new double[capacity];
+        prevX = new double[capacity];
+        prevY = new double[capacity];
+        vx = new double[capacity];
+        vy = new double[capacity];
+        startX = new double[capacity];
+        startY = new double[capacity];
+        active = new boolean[capacity];
+        activeSlots = new int[capacity];
+        activeIndex = new int[capacity];
+        freeSlots = new int[capacity];
+        this.onVisualCreated = onVisualCreated;
+        this.visuals = (onVisualCreated != null) ? new Circle[capacity] : null;
+    }
+
+    /** Fires a projectile from start towards the target. Returns its slot, or -1 when the pool is exhausted. */
+    public int spawn(double fromX, double fromY, double targetX, double targetY) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else if (highWater < capacity) {
+            slot = highWater++;
+        } else {
+            if (!warnedFull) {
+                System.err.println("ProjectilePool: All " + capacity + " projectiles in flight, dropping shots.");
+                warnedFull = true;
+            }
+            return -1;
+        }
+
+        x[slot] = fromX;
+        y[slot] = fromY;
+        prevX[slot] = fromX;
+        prevY[slot] = fromY;
+        startX[slot] = fromX;
+        startY[slot] = fromY;
+
+        double dx = targetX - fromX;
+        double dy = targetY - fromY;
+        double magnitude = Math.sqrt(dx * dx + dy * dy);
+        if (magnitude > 0) {
+            vx[slot] = (dx / magnitude) * SPEED;
+            vy[slot] = (dy / magnitude) * SPEED;
+        } else {
+            vx[slot] = 0;
+            vy[slot] = -SPEED;
+        }
+
+        active[slot] = true;
+        activeIndex[slot] = activeCount;
+        activeSlots[activeCount++] = slot;
+
+        if (visuals != null && visuals[slot] == null) {
+            Circle circle = new Circle(RADIUS, Color.ORANGERED);
+            circle.setCenterX(fromX);
+            circle.setCenterY(fromY);
+            visuals[slot] = circle;
+            onVisualCreated.accept(circle);
+        }
+        return slot;
+    }
+
+    /** Returns the slot to the pool. Moves the last active slot into its place in the active list. */
+    public void release(int slot) {
+        if (!active[slot]) return;
+        active[slot] = false;
+        int index = activeIndex[slot];
+        int last = activeSlots[--activeCount];
+        activeSlots[index] = last;
+        activeIndex[last] = index;
+        freeSlots[freeCount++] = slot;
+        warnedFull = false;
+    }
+
+    public void storePreviousPositions() {
+        for (int i = 0; i < activeCount; i++) {
+            int slot = activeSlots[i];
+            prevX[slot] = x[slot];
+            prevY[slot] = y[slot];
+        }
+    }
+
+    /** Moves all live projectiles and releases those past their range. */
+    public void update(double elapsedSeconds) {
+        for (int i = activeCount - 1; i >= 0; i--) {
+            int slot = activeSlots[i];
+            x[slot] += vx[slot] * elapsedSeconds;
+            y[slot] += vy[slot] * elapsedSeconds;
+
+            double dx = x[slot] - startX[slot];
+            double dy = y[slot] - startY[slot];
+            if (dx * dx + dy * dy > MAX_TRAVEL_DISTANCE_SQ) {
+                release(slot);
+            }
+        }
+    }
+
+    /** Releases all projectiles that left the given area. */
+    public void releaseOutOfBounds(double screenWidth, double screenHeight) {
+        for (int i = activeCount - 1; i >= 0; i--) {
+            int slot = activeSlots[i];
+            if (isOutOfBounds(slot, screenWidth, screenHeight)) release(slot);
+        }
+    }
+
+    public boolean isOutOfBounds(int slot, double screenWidth, double screenHeight) {
+        return x[slot] < -RADIUS || x[slot] > screenWidth + RADIUS || y[slot] < -RADIUS || y[slot] > screenHeight + RADIUS;
+    }
+
+    /** Publishes every slot that has a visual: live ones at their position, free ones hidden. */
+    public void captureSnapshot(WorldSnapshot snapshot) {
+        if (visuals == null) return;
+        for (int slot = 0; slot < highWater; slot++) {
+            Circle circle = visuals[slot];
+            if (circle == null) continue;
+            snapshot.add(circle, prevX[slot], prevY[slot], x[slot], y[slot], 0, 0, active[slot], 1.0, null, null);
+        }
+    }
+
+    /** Frees every slot. Visuals are kept for reuse unless the caller detaches them via {@link #forEachVisual}. */
+    public void clear() {
+        Arrays.fill(active, 0, highWater, false);
+        activeCount = 0;
+        freeCount = 0;
+        for (int slot = highWater - 1; slot >= 0; slot--) freeSlots[freeCount++] = slot;
+        warnedFull = false;
+    }
+
+    /** Drops all visuals, e.g. after they were detached from a scene that is going away. */
+    public void discardVisuals() {
+        if (visuals != null) Arrays.fill(visuals, null);
+    }
+
+    public void forEachVisual(Consumer<Node> action) {
+        if (visuals == null) return;
+        for (int slot = 0; slot < highWater; slot++) {
+            if (visuals[slot] != null) action.accept(visuals[slot]);
+        }
+    }
+
+    public int getActiveCount() { return activeCount; }
+    /** Slot of the i-th live projectile, 0 &lt;= i &lt; {@link #getActiveCount()}. */
+    public int getActiveSlot(int i) { return activeSlots[i]; }
+    public boolean isActive(int slot) { return active[slot]; }
+    public double getX(int slot) { return x[slot]; }
+    public double getY(int slot) { return y[slot]; }
+    public int getCapacity() { return capacity; }
+}
@@ -0,0 +1,135 @@
+package cz.cvut.fel.pjv.gameengine3000.game;
+
+import cz.cvut.fel.pjv.gameengine3000.entities.Enemies.Enemy;
+import cz.cvut.fel.pjv.gameengine3000.entities.EntityStore;
+
+import java.util.Arrays;
+
+/**
+ * Spreads enemy decision making ({@link Enemy#update}) over ticks; movement ({@code calculateMovementIntent}
+ * and the commit) still runs on every tick the enemy's {@link SimulationLod} tier allows. Each tick a quota of decisions is handed out:
+ * enemies near a player first, then the others, each group round-robin from where it stopped on the previous
+ * tick, so with n enemies in a group every one of them decides within ceil(n / quota) ticks. Dead
+ * enemies and those that {@link Enemy#needsDecisionEveryTick() must not be deferred} always decide and do
+ * not count. A deferred enemy gets the simulated time it missed passed in with its next decision; time it
+ * spent dormant under its {@link SimulationLod} tier is not owed.
+ * <p>
+ * The quota follows a budget of decision CPU time per tick: decisions are timed and the quota for the next
+ * tick is the budget divided by the running average cost, so hordes slow their thinking down instead of
+ * the frame rate. Timing makes that quota vary between runs; for replays {@link #setFixedQuota} swaps
+ * in a constant one, which keeps the selection a pure function of the simulation state.
+ */
+public class AiScheduler {
+
+    private static final double COST_SMOOTHING = 0.1;
+
+    private final double nearRangeSquared;
+    private final long budgetNanos;
+    private final int fixedQuota;
+    private boolean useFixedQuota;
+    private double nanosPerDecision = 2_000;
+    private int quota;
+    // Round-robin positions (store slots) of the near pass and of the pass over everyone else
+    private int nextNearSlot = 0;
+    private int nextSlot = 0;
+
+    // Per store slot: time since the last decision, and the handle it was counted for
+    private double[] pendingSeconds = new double[64];
+    private int[] pendingHandle = new int[64];
+
+    private int decisionsLastTick;
+    private int deferredLastTick;
+
+    public AiScheduler(double nearRange, long budgetMicros, int fixedQuota) {
+        this.nearRangeSquared = nearRange * nearRange;
+        this.budgetNanos = Math.max(1, budgetMicros) * 1_000L;
+        this.fixedQuota = Math.max(1, fixedQuota);
+        this.quota = this.fixedQuota;
+        Arrays.fill(pendingHandle, -1);
+    }
+
+    /** Use the constant quota from now on, e.g. while recording or playing back a replay. */
+    public void setFixedQuota(boolean fixed) {
+        this.useFixedQuota = fixed;
+        if (fixed) quota = fixedQuota;
+    }
+
+    /**
+     * Picks this tick's deciders among enemies[0, count), which are in slot order. Sets decide[i] and, for
+     * those that decide, decisionSeconds[i] to the time they were simulated for since their previous decision.
+     *
+     * @param targetDistanceSquared per enemy, to the nearest living player; infinite if there is none
+     * @param stepSeconds           per enemy, 0 if it is not simulated at all this tick; those never decide
+     */
+    void select(Enemy[] enemies, int count, double[] targetDistanceSquared,
+                double[] stepSeconds, boolean[] decide, double[] decisionSeconds) {
+        int nearStart = 0, start = 0;
+        for (int i = 0; i < count; i++) {
+            Enemy enemy = enemies[i];
+            int slot = EntityStore.slotOf(enemy.getHandle());
+            if (slot >= pendingSeconds.length) grow(slot + 1);
+            if (pendingHandle[slot] != enemy.getHandle()) {
+                pendingHandle[slot] = enemy.getHandle();
+                pendingSeconds[slot] = 0;
+            }
+            pendingSeconds[slot] += stepSeconds[i]; // only the time the enemy was actually simulated for
+            decide[i] = stepSeconds[i] > 0 && (!enemy.isAlive() || enemy.needsDecisionEveryTick());
+            if (slot < nextNearSlot) nearStart = i + 1;
+            if (slot < nextSlot) start = i + 1;
+        }
+        if (nearStart >= count) nearStart = 0;
+        if (start >= count) start = 0;
+
+        int left = quota;
+        // Near players first, then everyone else; each pass continues from its own round-robin position
+        for (int pass = 0; pass < 2 && left > 0; pass++) {
+            int from = (pass == 0) ? nearStart : start;
+            for (int k = 0; k < count && left > 0; k++) {
+                int i = (from + k) % count;
+                if (decide[i] || stepSeconds[i] == 0) continue;
+                if (pass == 0 && targetDistanceSquared[i] > nearRangeSquared) continue;
+                decide[i] = true;
+                left--;
+                int next = EntityStore.slotOf(enemies[i].getHandle()) + 1;
+                if (pass == 0) nextNearSlot = next;
+                else nextSlot = next;
+            }
+        }
+
+        int decided = 0, deferred = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = EntityStore.slotOf(enemies[i].getHandle());
+            if (decide[i]) {
+                decisionSeconds[i] = pendingSeconds[slot];
+                pendingSeconds[slot] = 0;
+                if (enemies[i].isAlive()) decided++;
+            } else if (stepSeconds[i] > 0) {
+                deferred++;
+            }
+        }
+        decisionsLastTick = decided;
+        deferredLastTick = deferred;
+    }
+
+    /** Feeds back the CPU time this tick's decisions by living enemies took, summed over all threads. */
+    void record(long decisionNanos) {
+        if (useFixedQuota) return;
+        if (decisionsLastTick > 0) {
+            double perDecision = (double) decisionNanos / decisionsLastTick;
+            nanosPerDecision += (perDecision - nanosPerDecision) * COST_SMOOTHING;
+        }
+        quota = (int) Math.max(1, Math.min(Integer.MAX_VALUE, budgetNanos / Math.max(1.0, nanosPerDecision)));
+    }
+
+    public int getQuota() { return quota; }
+    public int getDecisionsLastTick() { return decisionsLastTick; }
+    public int getDeferredLastTick() { return deferredLastTick; }
+
+    private void grow(int minLength) {
+        int oldLength = pendingSeconds.length;
+        int newLength = Math.max(minLength, oldLength * 2);
+        pendingSeconds = Arrays.copyOf(pendingSeconds, newLength);
+        pendingHandle = Arrays.copyOf(pendingHandle, newLength);
+        Arrays.fill(pendingHandle, oldLength, newLength, -1);
+    }
+}
@@ -1,33 +1,34 @@
 package cz.cvut.fel.pjv.gameengine3000.game;
 
 import cz.cvut.fel.pjv.gameengine3000.entities.Enemies.Enemy;
+import cz.cvut.fel.pjv.gameengine3000.entities.EntityStore;
 import cz.cvut.fel.pjv.gameengine3000.entities.Player;
-import cz.cvut.fel.pjv.gameengine3000.entities.Projectile;
+import cz.cvut.fel.pjv.gameengine3000.entities.ProjectilePool;
 import cz.cvut.fel.pjv.gameengine3000.game.GameStatus;
+import cz.cvut.fel.pjv.gameengine3000.physics.Aabb;
+import cz.cvut.fel.pjv.gameengine3000.physics.Broadphase;
+import cz.cvut.fel.pjv.gameengine3000.physics.HitList;
 
-import javafx.geometry.Bounds;
-import javafx.geometry.Rectangle2D;
-import javafx.application.Platform;
-import javafx.scene.layout.Pane;
 
 import java.util.function.Consumer;
 
 public class CollisionHandler {
     private final EntityManager entityManager;
     private final GameStatus gameStatus;
-    private final Pane rootPane;
     private final Consumer<Player> onPlayerDeathCallback;
+    private final Aabb scratchBox = new Aabb();
+    private final HitList hits = new HitList();
 
-    public CollisionHandler(EntityManager entityManager, GameStatus gameStatus, Pane rootPane, Consumer<Player> onPlayerDeathCallback) {
+    public CollisionHandler(EntityManager entityManager, GameStatus gameStatus, Consumer<Player> onPlayerDeathCallback) {
         this.entityManager = entityManager;
         this.gameStatus = gameStatus;
-        this.rootPane = rootPane;
         this.onPlayerDeathCallback = onPlayerDeathCallback;
     }
 
     public void checkAuthoritativeCollisions(double screenWidth, double screenHeight) {
         if (gameStatus.isGameIsOver()) return;
 
+        entityManager.refreshEnemyBroadphase();
         for (Player p : entityManager.getAllPlayers()) {
             if (p != null && p.isAlive() && p.isCurrentlyLogicallyAttacking()) {
                 checkPlayerAttackCollisions(p);
@@ -42,70 +43,67 @@ public class CollisionHandler {
     }
 
     public void checkPlayerAttackCollisions(Player attacker) {
-        Rectangle2D attackHitbox = attacker.getAttackHitbox();
+        Aabb attackHitbox = attacker.getAttackHitbox(scratchBox);
         if (attackHitbox == null) return;
 
-        for (Enemy e : entityManager.getNetworkedEnemies().values()) {
-            if (e.isAlive() && e.getEnemyImageView() != null) {
-                Rectangle2D enemyBounds = e.getCollisionBounds();
-                if (attackHitbox.intersects(enemyBounds.getMinX(), enemyBounds.getMinY(), enemyBounds.getWidth(), enemyBounds.getHeight())) {
-                    e.takeDamage(GameConfig.PLAYER_ATTACK_DAMAGE);
-                    if (!e.isAlive()) {
-                        gameStatus.incrementScore(GameConfig.SCORE_PER_KILL);
-                    }
-                }
+        EntityStore<Enemy> enemies = entityManager.getEnemyStore();
+        int count = entityManager.getEnemyBroadphase().query(attackHitbox.getMinX(), attackHitbox.getMinY(),
+                attackHitbox.getWidth(), attackHitbox.getHeight(), hits);
+        for (int i = 0; i < count; i++) {
+            int slot = hits.get(i);
+            if (!enemies.isAlive(slot)) continue;
+            Enemy e = enemies.getOwner(slot);
+            e.takeDamage(GameConfig.PLAYER_ATTACK_DAMAGE);
+            if (!e.isAlive()) {
+                gameStatus.incrementScore(GameConfig.SCORE_PER_KILL);
             }
         }
     }
 
     private void checkEnemyPlayerCollisions() {
-        for (Enemy e : entityManager.getNetworkedEnemies().values()) {
-            if (!e.isAlive() || e.getEnemyImageView() == null || gameStatus.isGameIsOver()) continue;
-            Rectangle2D enemyBounds = e.getCollisionBounds();
-
-            for (Player p : entityManager.getAllPlayers()) {
-                if (p != null && p.isAlive() && p.getPlayerImageView() != null) {
-                    Rectangle2D playerBounds = p.getCollisionBounds();
-                    if (playerBounds.intersects(enemyBounds.getMinX(), enemyBounds.getMinY(), enemyBounds.getWidth(), enemyBounds.getHeight())) {
-                        p.takeDamage(GameConfig.ENEMY_COLLISION_DAMAGE);
-                        if (!p.isAlive()) {
-                            onPlayerDeathCallback.accept(p);
-                            if (gameStatus.isGameIsOver()) return;
-                        }
-                    }
+        EntityStore<Enemy> enemies = entityManager.getEnemyStore();
+        Broadphase broadphase = entityManager.getEnemyBroadphase();
+        for (Player p : entityManager.getAllPlayers()) {
+            if (p == null || !p.isAlive()) continue;
+            Aabb playerBounds = p.getCollisionBounds(scratchBox);
+            int count = broadphase.query(playerBounds.getMinX(), playerBounds.getMinY(), playerBounds.getWidth(), playerBounds.getHeight(), hits);
+            for (int i = 0; i < count && p.isAlive(); i++) {
+                if (!enemies.isAlive(hits.get(i))) continue;
+                p.takeDamage(GameConfig.ENEMY_COLLISION_DAMAGE);
+                if (!p.isAlive()) {
+                    onPlayerDeathCallback.accept(p);
+                    if (gameStatus.isGameIsOver()) return;
                 }
             }
         }
     }
 
     private void checkProjectileCollisions(double screenWidth, double screenHeight) {
-        entityManager.getProjectiles().removeIf(projectile -> {
-            boolean hit = false;
-            if (!projectile.doesExist() || projectile.isOutOfBounds(screenWidth, screenHeight)) {
-                if (projectile.getCircle() != null) Platform.runLater(() -> rootPane.getChildren().remove(projectile.getCircle()));
-                return true;
+        ProjectilePool projectiles = entityManager.getProjectiles();
+        EntityStore<Enemy> enemies = entityManager.getEnemyStore();
+        Broadphase broadphase = entityManager.getEnemyBroadphase();
+        double size = ProjectilePool.RADIUS * 2;
+        for (int i = projectiles.getActiveCount() - 1; i >= 0; i--) {
+            int projectile = projectiles.getActiveSlot(i);
+            if (projectiles.isOutOfBounds(projectile, screenWidth, screenHeight)) {
+                projectiles.release(projectile);
+                continue;
             }
-            if (projectile.getCircle() == null) return true;
-
-            Bounds projectileBounds = projectile.getBounds();
 
-            for (Enemy enemy : entityManager.getNetworkedEnemies().values()) {
-                Rectangle2D enemyCollisionRect = enemy.getCollisionBounds();
-                if (enemy.isAlive() && enemy.getEnemyImageView() != null &&
-                        projectileBounds.intersects(enemyCollisionRect.getMinX(), enemyCollisionRect.getMinY(), enemyCollisionRect.getWidth(), enemyCollisionRect.getHeight())) {
-                    enemy.takeDamage(GameConfig.PROJECTILE_DAMAGE);
-                    if (!enemy.isAlive()) {
-                        gameStatus.incrementScore(GameConfig.SCORE_PER_KILL);
-                    }
-                    hit = true;
-                    break;
-                }
+            int count = broadphase.query(projectiles.getX(projectile) - ProjectilePool.RADIUS,
+                    projectiles.getY(projectile) - ProjectilePool.RADIUS, size, size, hits);
+            int slot = -1;
+            for (int h = 0; h < count && slot < 0; h++) {
+                if (enemies.isAlive(hits.get(h))) slot = hits.get(h);
             }
-
-            if (hit) {
-                Platform.runLater(() -> rootPane.getChildren().remove(projectile.getCircle()));
+            if (slot >= 0) {
+                Enemy enemy = enemies.getOwner(slot);
+                enemy.takeDamage(GameConfig.PROJECTILE_DAMAGE);
+                if (!enemy.isAlive()) {
+                    gameStatus.incrementScore(GameConfig.SCORE_PER_KILL);
+                }
+                projectiles.release(projectile);
             }
-            return hit;
-        });
+        }
     }
-}
\ No newline at end of file
+}
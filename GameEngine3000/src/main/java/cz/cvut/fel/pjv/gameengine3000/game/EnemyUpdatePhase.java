@@ -0,0 +1,203 @@
+package cz.cvut.fel.pjv.gameengine3000.game;
+
+import cz.cvut.fel.pjv.gameengine3000.entities.Enemies.Enemy;
+import cz.cvut.fel.pjv.gameengine3000.entities.EntityStore;
+import cz.cvut.fel.pjv.gameengine3000.entities.Player;
+import cz.cvut.fel.pjv.gameengine3000.physics.Aabb;
+import cz.cvut.fel.pjv.gameengine3000.physics.Broadphase;
+import cz.cvut.fel.pjv.gameengine3000.physics.Vec2;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Authoritative enemy update in two phases, for the enemies their {@link SimulationLod} tier lets run this
+ * tick, each with its own time step. Every enemy targets the living player nearest to it, looked up in a
+ * {@link PlayerIndex} rebuilt at the start of the tick.
+ * <ol>
+ *   <li>Think: the enemies picked by the {@link AiScheduler} run their decision logic, then every running
+ *       enemy computes its movement intent and resolves it against the players.
+ *       Enemies only write their own state here and read players, which do not change until the commit,
+ *       so large hordes are split across a ForkJoin pool.</li>
+ *   <li>Commit: queued damage and the resolved movement are applied serially in slot order,
+ *       so the result is the same for any thread count.</li>
+ * </ol>
+ */
+public class EnemyUpdatePhase {
+
+    private static final int SPLIT_GRAIN = 64;
+
+    private final int parallelThreshold;
+    private Broadphase playerBlockers; // alive players by gather order; read-only during the think phase
+    private final AiScheduler scheduler;
+    private final SimulationLod lod;
+
+    private Enemy[] enemies = new Enemy[64];
+    private double[] moveX = new double[64], moveY = new double[64];
+    private boolean[] moving = new boolean[64];
+    private boolean[] decide = new boolean[64];
+    private double[] decisionSeconds = new double[64];
+    private double[] stepSeconds = new double[64]; // 0: not simulated this tick
+    private Player[] targets = new Player[64];
+    private double[] targetDistanceSquared = new double[64]; // infinite without a target
+    private int count = 0;
+    private final PlayerIndex playerIndex = new PlayerIndex();
+    private final Player[] nearestPlayer = new Player[1];
+    private final double[] nearestDistanceSquared = new double[1];
+    private final LongAdder decisionNanos = new LongAdder();
+    // Scratch for the serial path; parallel leaf tasks bring their own
+    private final Aabb bounds = new Aabb();
+    private final Vec2 intent = new Vec2();
+
+
+    public EnemyUpdatePhase(int parallelThreshold, Broadphase playerBlockers, AiScheduler scheduler, SimulationLod lod) {
+        this.parallelThreshold = parallelThreshold;
+        this.playerBlockers = playerBlockers;
+        this.scheduler = scheduler;
+        this.lod = lod;
+    }
+
+    /** Replaces the broadphase the players are gathered into; call between ticks. It is refilled on every run. */
+    public void setPlayerBlockers(Broadphase playerBlockers) {
+        this.playerBlockers = playerBlockers;
+    }
+
+    public void run(EntityStore<Enemy> store, Collection<Player> players,
+                    double elapsedSeconds, double screenWidth, double screenHeight) {
+        store.tickTimers(elapsedSeconds);
+        gather(store, players);
+        assignTargets();
+        lod.select(enemies, count, targetDistanceSquared, elapsedSeconds, stepSeconds);
+        scheduler.select(enemies, count, targetDistanceSquared, stepSeconds, decide, decisionSeconds);
+        decisionNanos.reset();
+
+        ForkJoinPool pool = (count >= parallelThreshold) ? Workers.POOL : null;
+        if (pool != null && pool.getParallelism() > 1) {
+            pool.invoke(new ThinkTask(0, count));
+        } else {
+            think(0, count, intent, bounds);
+        }
+        scheduler.record(decisionNanos.sum());
+
+        for (int i = 0; i < count; i++) {
+            Enemy enemy = enemies[i];
+            enemy.commitPendingDamage();
+            if (moving[i]) enemy.applyActualMovement(moveX[i], moveY[i], stepSeconds[i], screenWidth, screenHeight);
+        }
+
+        Arrays.fill(enemies, 0, count, null);
+        Arrays.fill(targets, 0, count, null);
+    }
+
+    private void gather(EntityStore<Enemy> store, Collection<Player> players) {
+        count = 0;
+        int highWater = store.getHighWater();
+        for (int slot = 0; slot < highWater; slot++) {
+            if (!store.isUsed(slot)) continue;
+            if (count == enemies.length) {
+                int newCapacity = enemies.length * 2;
+                enemies = Arrays.copyOf(enemies, newCapacity);
+                moveX = Arrays.copyOf(moveX, newCapacity);
+                moveY = Arrays.copyOf(moveY, newCapacity);
+                moving = Arrays.copyOf(moving, newCapacity);
+                decide = Arrays.copyOf(decide, newCapacity);
+                decisionSeconds = Arrays.copyOf(decisionSeconds, newCapacity);
+                stepSeconds = Arrays.copyOf(stepSeconds, newCapacity);
+                targets = Arrays.copyOf(targets, newCapacity);
+                targetDistanceSquared = Arrays.copyOf(targetDistanceSquared, newCapacity);
+            }
+            enemies[count++] = store.getOwner(slot);
+        }
+        playerBlockers.clear();
+        int blocker = 0;
+        for (Player player : players) {
+            if (!player.isAlive()) continue;
+            Aabb box = player.getCollisionBounds(bounds);
+            playerBlockers.update(blocker++, box.getMinX(), box.getMinY(), box.getWidth(), box.getHeight());
+        }
+        playerIndex.rebuild(players);
+    }
+
+    private void assignTargets() {
+        for (int i = 0; i < count; i++) {
+            Enemy enemy = enemies[i];
+            if (enemy.isAlive() && playerIndex.nearest(enemy.getX(), enemy.getY(), 1, nearestPlayer, nearestDistanceSquared) > 0) {
+                targets[i] = nearestPlayer[0];
+                targetDistanceSquared[i] = nearestDistanceSquared[0];
+            } else {
+                targets[i] = null;
+                targetDistanceSquared[i] = Double.POSITIVE_INFINITY;
+            }
+        }
+        nearestPlayer[0] = null;
+    }
+
+    private void think(int from, int to, Vec2 intent, Aabb bounds) {
+        long nanos = 0;
+        for (int i = from; i < to; i++) {
+            Enemy enemy = enemies[i];
+            double step = stepSeconds[i];
+            moveX[i] = 0;
+            moveY[i] = 0;
+            moving[i] = false;
+            if (step == 0) continue;
+            if (!enemy.isAlive()) {
+                enemy.update(step, null);
+                continue;
+            }
+            moving[i] = true;
+            if (decide[i]) {
+                long start = System.nanoTime();
+                enemy.update(decisionSeconds[i], targets[i]);
+                nanos += System.nanoTime() - start;
+            }
+            enemy.calculateMovementIntent(step, targets[i], intent);
+            enemy.getCollisionBounds(bounds);
+            double width = bounds.getWidth();
+            double height = bounds.getHeight();
+
+            double intendedDX = intent.getX();
+            if (intendedDX != 0 && !playerBlockers.anyOverlap((enemy.getX() + intendedDX) - width / 2.0, enemy.getY() - height / 2.0, width, height)) {
+                moveX[i] = intendedDX;
+            }
+            double intendedDY = intent.getY();
+            if (intendedDY != 0 && !playerBlockers.anyOverlap((enemy.getX() + moveX[i]) - width / 2.0, (enemy.getY() + intendedDY) - height / 2.0, width, height)) {
+                moveY[i] = intendedDY;
+            }
+        }
+        decisionNanos.add(nanos);
+    }
+
+    private class ThinkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from, to;
+
+        ThinkTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_GRAIN) {
+                think(from, to, new Vec2(), new Aabb());
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ThinkTask(from, mid), new ThinkTask(mid, to));
+        }
+    }
+
+    // Shared by all engines; worker threads are daemons and idle out when no horde is running.
+    private static class Workers {
+        static final ForkJoinPool POOL = new ForkJoinPool(Math.max(1, GameConfig.ENEMY_AI_THREADS), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("EnemyAI-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+}
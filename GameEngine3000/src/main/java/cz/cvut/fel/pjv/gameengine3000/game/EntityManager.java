@@ -1,39 +1,61 @@
 package cz.cvut.fel.pjv.gameengine3000.game;
 
+import cz.cvut.fel.pjv.gameengine3000.ai.AiServices;
 import cz.cvut.fel.pjv.gameengine3000.animation.AnimationManager;
-import cz.cvut.fel.pjv.gameengine3000.entities.Enemies.Bear;
 import cz.cvut.fel.pjv.gameengine3000.entities.Enemies.Enemy;
+import cz.cvut.fel.pjv.gameengine3000.entities.Enemies.EnemyType;
+import cz.cvut.fel.pjv.gameengine3000.entities.Enemies.EnemyTypeRegistry;
+import cz.cvut.fel.pjv.gameengine3000.entities.EntityStore;
 import cz.cvut.fel.pjv.gameengine3000.entities.Player;
-import cz.cvut.fel.pjv.gameengine3000.entities.Projectile;
+import cz.cvut.fel.pjv.gameengine3000.entities.ProjectilePool;
 import cz.cvut.fel.pjv.gameengine3000.map.CustomMapLoader;
+import cz.cvut.fel.pjv.gameengine3000.map.SpawnIndex;
 import cz.cvut.fel.pjv.gameengine3000.multiplayer.*;
+import cz.cvut.fel.pjv.gameengine3000.physics.Broadphase;
+import cz.cvut.fel.pjv.gameengine3000.physics.BroadphaseType;
+import cz.cvut.fel.pjv.gameengine3000.physics.ValidatingBroadphase;
+import cz.cvut.fel.pjv.gameengine3000.physics.Vec2;
 import cz.cvut.fel.pjv.gameengine3000.savegame.EnemyData;
 import cz.cvut.fel.pjv.gameengine3000.utils.AssetManager;
 
-import javafx.application.Platform;
-import javafx.geometry.Point2D;
-import javafx.geometry.Rectangle2D;
 import javafx.scene.Node;
+import javafx.scene.image.ImageView;
 import javafx.scene.layout.Pane;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 public class EntityManager {
 
-    private final Pane rootPane;
+    private final Pane rootPane; // null when running headless
+    private final RenderCommandBuffer sceneCommands; // null when running headless
     private final AssetManager assetManager;
     private final CustomMapLoader mapLoader;
+    private final RandomStreams randomStreams;
+    private final AiServices aiServices;
+    private final EnemyTypeRegistry enemyTypes;
+    private final SpawnIndex spawnIndex; // null without a usable map
+    private final Vec2 spawnPoint = new Vec2();
+    private double[] spawnAvoidX = new double[4], spawnAvoidY = new double[4];
+    // Sprite nodes of released enemies, and ones made ahead of a wave, handed to the next enemies created
+    private final ArrayDeque<ImageView> spareEnemyViews = new ArrayDeque<>();
+
+    private static final double PLAYER_SIZE = 48;
+    private static final double PLAYER_PROBE_WIDTH = 32; // the start column is checked narrower than the sprite
 
     private final ConcurrentHashMap<Integer, Player> players = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<Integer, Enemy> networkedEnemies = new ConcurrentHashMap<>();
-    private final List<Projectile> projectiles = new CopyOnWriteArrayList<>();
+    private final EntityStore<Enemy> enemyStore = new EntityStore<>(GameConfig.MAX_ENEMIES * 2);
+    private final ProjectilePool projectiles;
+    private final double broadphaseCellSize;
+    private Broadphase enemyBroadphase;
 
     private Player localPlayer = null;
     private MultiplayerRole currentRole = MultiplayerRole.NONE;
     private int nextEnemyNetworkId = 1000;
-    private Player globalEnemyTarget = null;
+    private final AiScheduler aiScheduler;
+    private final SimulationLod simulationLod;
+    private final EnemyUpdatePhase enemyUpdatePhase;
 
     private final String p1WalkSheet, p1IdleSheet, p1AttackSheet;
     private final String p2WalkSheet, p2IdleSheet, p2AttackSheet;
@@ -41,14 +63,36 @@ public class EntityManager {
     private final String bearWalkSheet, bearIdleSheet, bearAttackSheet;
 
 
-    public EntityManager(Pane rootPane, AssetManager assetManager, CustomMapLoader mapLoader,
+    public EntityManager(Pane rootPane, AssetManager assetManager, CustomMapLoader mapLoader, RandomStreams randomStreams,
                          String p1Walk, String p1Idle, String p1Attack,
                          String p2Walk, String p2Idle, String p2Attack,
                          String slimeWalk, String slimeIdle,
                          String bearWalk, String bearIdle, String bearAttack) {
-        this.rootPane = Objects.requireNonNull(rootPane);
-        this.assetManager = Objects.requireNonNull(assetManager);
+        this.rootPane = rootPane;
+        this.sceneCommands = (rootPane != null) ? new RenderCommandBuffer(rootPane) : null;
+        this.assetManager = assetManager;
         this.mapLoader = mapLoader;
+        this.randomStreams = Objects.requireNonNull(randomStreams);
+        this.aiServices = new AiServices(mapLoader);
+        this.enemyTypes = EnemyTypeRegistry.createDefault(assetManager);
+        if (mapLoader != null && mapLoader.getTileWidth() > 0 && mapLoader.getTileHeight() > 0) {
+            this.spawnIndex = new SpawnIndex(mapLoader.getCollisionMask(), mapLoader.getTileWidth(), mapLoader.getTileHeight());
+            for (EnemyType type : enemyTypes.getAll()) spawnIndex.prepare(type.getDisplayWidth(), type.getDisplayHeight());
+            spawnIndex.prepare(PLAYER_PROBE_WIDTH, PLAYER_SIZE);
+        } else {
+            this.spawnIndex = null;
+        }
+        this.projectiles = new ProjectilePool(GameConfig.MAX_PROJECTILES, (rootPane != null) ? this::safeAddToPane : null);
+        double tileSize = (mapLoader != null) ? Math.max(mapLoader.getTileWidth(), mapLoader.getTileHeight()) : 0;
+        if (!(tileSize > 0)) tileSize = GameConfig.DEFAULT_TILE_SIZE;
+        this.broadphaseCellSize = tileSize * Math.max(1, GameConfig.BROADPHASE_CELL_TILES);
+        BroadphaseType broadphaseType = BroadphaseType.fromName(GameConfig.BROADPHASE);
+        this.enemyBroadphase = createBroadphase(broadphaseType, GameConfig.MAX_ENEMIES * 2);
+        this.aiScheduler = new AiScheduler(GameConfig.AI_NEAR_RANGE, GameConfig.AI_DECISION_BUDGET_MICROS, GameConfig.AI_FIXED_DECISIONS_PER_TICK);
+        this.simulationLod = new SimulationLod(GameConfig.LOD_NEAR_RANGE, GameConfig.LOD_FAR_RANGE, GameConfig.LOD_MID_INTERVAL);
+        this.enemyUpdatePhase = new EnemyUpdatePhase(GameConfig.PARALLEL_AI_THRESHOLD, createBroadphase(broadphaseType, 4),
+                aiScheduler, simulationLod);
+        if (rootPane != null) Objects.requireNonNull(assetManager, "AssetManager is required when rendering.");
 
         this.p1WalkSheet = Objects.requireNonNull(p1Walk);
         this.p1IdleSheet = Objects.requireNonNull(p1Idle);
@@ -66,6 +110,7 @@ public class EntityManager {
 
     public void setCurrentRole(MultiplayerRole role) { this.currentRole = role; }
     private boolean isAuthoritative() { return currentRole == MultiplayerRole.HOST || currentRole == MultiplayerRole.NONE; }
+    public boolean isHeadless() { return rootPane == null; }
 
     public void initializeLocalPlayer(int networkID, double startX, boolean isHostStyle) {
         if (players.containsKey(networkID)) return;
@@ -75,8 +120,8 @@ public class EntityManager {
         String walk = p1WalkSheet;
         String idle = p1IdleSheet;
         String attack = p1AttackSheet;
-        double playerDisplayWidth = 48;
-        double playerDisplayHeight = 48;
+        double playerDisplayWidth = PLAYER_SIZE;
+        double playerDisplayHeight = PLAYER_SIZE;
         double startY = findStartY(startX, playerDisplayHeight);
 
         Player player = new Player(networkID, true, startX, startY, assetManager, mapLoader,
@@ -91,8 +136,8 @@ public class EntityManager {
         String walk = remoteIsHostStyle ? p1WalkSheet : p1WalkSheet;
         String idle = remoteIsHostStyle ? p1IdleSheet : p1IdleSheet;
         String attack = remoteIsHostStyle ? p1AttackSheet : p1AttackSheet;
-        double playerDisplayWidth = 48;
-        double playerDisplayHeight = 48;
+        double playerDisplayWidth = PLAYER_SIZE;
+        double playerDisplayHeight = PLAYER_SIZE;
         double startX = (localRole == MultiplayerRole.HOST) ? screenWidth * 3.0 / 4.0 : screenWidth / 4.0;
         double startY = findStartY(startX, playerDisplayHeight);
 
@@ -111,120 +156,131 @@ public class EntityManager {
         Player removed = players.remove(networkID);
         if (removed != null) {
             safeRemoveFromPane(removed.getPlayerImageView());
-            if (globalEnemyTarget == removed) {
-                globalEnemyTarget = determineEnemyTarget();
-            }
         }
     }
 
     private double findStartY(double startX, double entityHeight) {
-        if (mapLoader != null) {
+        if (spawnIndex != null) {
             double mapHeightPixels = mapLoader.getMapHeightTiles() * mapLoader.getTileHeight();
-            double startY = mapHeightPixels / 2.0;
-            if (mapLoader.isAreaPassable(startX - 16, startY - entityHeight/2.0 , 32, entityHeight)) return startY;
-
-            for (double y = startY + mapLoader.getTileHeight(); y < mapHeightPixels - entityHeight; y += mapLoader.getTileHeight()) {
-                if (mapLoader.isAreaPassable(startX - 16, y - entityHeight/2.0, 32, entityHeight)) return y;
-            }
-            for (double y = startY - mapLoader.getTileHeight(); y > entityHeight/2.0; y -= mapLoader.getTileHeight()) {
-                if (mapLoader.isAreaPassable(startX - 16, y - entityHeight/2.0, 32, entityHeight)) return y;
-            }
+            double startY = spawnIndex.findFreeY(PLAYER_PROBE_WIDTH, entityHeight, startX, mapHeightPixels / 2.0);
+            if (!Double.isNaN(startY)) return startY;
         }
-        return rootPane.getPrefHeight() / 2.0;
+        return (rootPane != null ? rootPane.getPrefHeight() : GameConfig.HEADLESS_WORLD_HEIGHT) / 2.0;
     }
 
-    public void spawnHostControlledEnemy(double screenWidth, double screenHeight, Random random) {
-        if (!isAuthoritative()) return;
+    /** Spawns one enemy somewhere on screen. Returns false if there was no room for it (or this peer does not own enemies). */
+    public boolean spawnHostControlledEnemy(double screenWidth, double screenHeight, Random random) {
+        if (!isAuthoritative()) return false;
 
-        double spawnX = 0, spawnY = 0; int attempts = 0; boolean found = false;
-        double enemyDisplayWidth = 48, enemyDisplayHeight = 48;
-
-        while(attempts++ < 20) {
-            spawnX = random.nextDouble() * (screenWidth - enemyDisplayWidth) + enemyDisplayWidth/2.0;
-            spawnY = random.nextDouble() * (screenHeight - enemyDisplayHeight) + enemyDisplayHeight/2.0;
-            if(mapLoader == null || mapLoader.isAreaPassable(spawnX - enemyDisplayWidth/2.0, spawnY - enemyDisplayHeight/2.0, enemyDisplayWidth, enemyDisplayHeight)) {
-                found = true; break;
+        EnemyType type = enemyTypes.get(GameConfig.SPAWN_ENEMY_TYPE);
+        if (type == null) {
+            System.err.println("EntityManager: Unknown enemy type '" + GameConfig.SPAWN_ENEMY_TYPE + "' to spawn.");
+            return false;
+        }
+        double enemyDisplayWidth = type.getDisplayWidth(), enemyDisplayHeight = type.getDisplayHeight();
+        if (spawnIndex != null) {
+            int avoidCount = 0;
+            for (Player player : players.values()) {
+                if (!player.isAlive()) continue;
+                if (avoidCount == spawnAvoidX.length) {
+                    spawnAvoidX = Arrays.copyOf(spawnAvoidX, avoidCount * 2);
+                    spawnAvoidY = Arrays.copyOf(spawnAvoidY, avoidCount * 2);
+                }
+                spawnAvoidX[avoidCount] = player.getX();
+                spawnAvoidY[avoidCount] = player.getY();
+                avoidCount++;
+            }
+            if (!spawnIndex.sample(enemyDisplayWidth, enemyDisplayHeight, screenWidth, screenHeight,
+                    GameConfig.SPAWN_MIN_PLAYER_DISTANCE, spawnAvoidX, spawnAvoidY, avoidCount, random, spawnPoint)) {
+                return false; // no room for an enemy anywhere on screen
             }
+        } else {
+            spawnPoint.set(random.nextDouble() * (screenWidth - enemyDisplayWidth) + enemyDisplayWidth / 2.0,
+                    random.nextDouble() * (screenHeight - enemyDisplayHeight) + enemyDisplayHeight / 2.0);
         }
-        if(!found) { return; }
+        double spawnX = spawnPoint.getX(), spawnY = spawnPoint.getY();
 
         int id = nextEnemyNetworkId++;
-        Enemy enemy;
+        addNetworkedEnemy(createEnemy(type, id, spawnX, spawnY));
+        return true;
+    }
+
+    /**
+     * Grows everything a horde of enemyCount enemies needs (store slots, broadphase ids, sprite nodes) now,
+     * so spawning it later allocates as little as possible. Sprite sheets are loaded with the enemy types.
+     */
+    public void warmEnemyPools(int enemyCount) {
+        enemyStore.ensureCapacity(enemyCount);
+        enemyBroadphase.reserve(enemyCount);
+        if (assetManager == null) return;
+        for (int views = networkedEnemies.size() + spareEnemyViews.size(); views < enemyCount; views++) {
+            spareEnemyViews.push(new ImageView());
+        }
+    }
 
-        enemy = new Bear(id, spawnX, spawnY, enemyDisplayWidth, enemyDisplayHeight, assetManager, mapLoader);
-        addNetworkedEnemy(enemy);
+    private ImageView takeEnemyView() {
+        if (assetManager == null) return null;
+        ImageView view = spareEnemyViews.poll();
+        return (view != null) ? view : new ImageView();
     }
 
     private void addNetworkedEnemy(Enemy enemy) {
         if (enemy == null) return;
-        networkedEnemies.put(enemy.getNetworkId(), enemy);
+        Enemy replaced = networkedEnemies.put(enemy.getNetworkId(), enemy);
+        if (replaced != null && replaced != enemy) releaseEnemy(replaced);
         safeAddToPane(enemy.getEnemyImageView());
     }
 
+    private void releaseEnemy(Enemy enemy) {
+        ImageView view = enemy.getEnemyImageView();
+        safeRemoveFromPane(view);
+        // Removal is applied on the next flush; a reuse before then coalesces with it into a no-op
+        if (view != null) spareEnemyViews.push(view);
+        enemyStore.release(enemy.getHandle());
+    }
+
     public void updateAllEntities(double elapsedSeconds, double screenWidth, double screenHeight) {
+        players.values().forEach(Player::storePreviousPosition);
+        enemyStore.storePreviousPositions();
+        projectiles.storePreviousPositions();
+
         players.values().forEach(p -> p.update(elapsedSeconds, screenWidth, screenHeight));
 
         if (isAuthoritative()) {
-            if (globalEnemyTarget == null || !globalEnemyTarget.isAlive()) {
-                globalEnemyTarget = determineEnemyTarget();
-            }
-
-            for (Enemy enemy : networkedEnemies.values()) {
-                if (enemy.isAlive()) {
-                    enemy.update(elapsedSeconds, globalEnemyTarget);
-                    Point2D movementIntent = enemy.calculateMovementIntent(elapsedSeconds, globalEnemyTarget);
-
-                    double intendedDX = movementIntent.getX();
-                    double intendedDY = movementIntent.getY();
-                    double actualDX = 0;
-                    double actualDY = 0;
-
-                    if (intendedDX != 0) {
-                        Rectangle2D futureEnemyBoundsX = new Rectangle2D(
-                                (enemy.getX() + intendedDX) - enemy.getCollisionBounds().getWidth() / 2.0,
-                                enemy.getY() - enemy.getCollisionBounds().getHeight() / 2.0,
-                                enemy.getCollisionBounds().getWidth(), enemy.getCollisionBounds().getHeight());
-                        boolean collisionWithPlayerX = false;
-                        for (Player player : players.values()) {
-                            if (player.isAlive() && futureEnemyBoundsX.intersects(player.getCollisionBounds().getMinX(), player.getCollisionBounds().getMinY(), player.getCollisionBounds().getWidth(), player.getCollisionBounds().getHeight() )) {
-                                collisionWithPlayerX = true;
-                                break;
-                            }
-                        }
-                        if (!collisionWithPlayerX) {
-                            actualDX = intendedDX;
-                        }
-                    }
-
-                    double tempXPosForYCheck = enemy.getX() + actualDX;
-
-                    if (intendedDY != 0) {
-                        Rectangle2D futureEnemyBoundsY = new Rectangle2D(
-                                tempXPosForYCheck - enemy.getCollisionBounds().getWidth() / 2.0,
-                                (enemy.getY() + intendedDY) - enemy.getCollisionBounds().getHeight() / 2.0,
-                                enemy.getCollisionBounds().getWidth(), enemy.getCollisionBounds().getHeight());
-                        boolean collisionWithPlayerY = false;
-                        for (Player player : players.values()) {
-                            if (player.isAlive() && futureEnemyBoundsY.intersects(player.getCollisionBounds().getMinX(), player.getCollisionBounds().getMinY(), player.getCollisionBounds().getWidth(), player.getCollisionBounds().getHeight() )) {
-                                collisionWithPlayerY = true;
-                                break;
-                            }
-                        }
-                        if (!collisionWithPlayerY) {
-                            actualDY = intendedDY;
-                        }
-                    }
-                    enemy.applyActualMovement(actualDX, actualDY, elapsedSeconds, screenWidth, screenHeight);
-                } else {
-                    enemy.update(elapsedSeconds, null);
-                }
-            }
+            aiServices.beginTick(enemyStore.getHighWater(), players.values());
+            enemyUpdatePhase.run(enemyStore, players.values(), elapsedSeconds, screenWidth, screenHeight);
+            aiServices.endTick();
         } else {
+            enemyStore.tickTimers(elapsedSeconds);
             networkedEnemies.values().forEach(enemy -> {
                 enemy.update(elapsedSeconds, null);
             });
         }
-        projectiles.forEach(p -> p.update(elapsedSeconds));
+        projectiles.update(elapsedSeconds);
+    }
+
+    /**
+     * Brings the enemy broadphase in line with the store: living slots are moved to their current collision
+     * box, dead and freed ones dropped. Call before collision queries once enemies have moved.
+     */
+    public Broadphase refreshEnemyBroadphase() {
+        for (int slot = 0, end = enemyStore.getHighWater(); slot < end; slot++) {
+            if (!enemyStore.isAlive(slot)) {
+                enemyBroadphase.remove(slot);
+                continue;
+            }
+            double halfWidth = enemyStore.getBoxHalfWidth(slot);
+            double halfHeight = enemyStore.getBoxHalfHeight(slot);
+            enemyBroadphase.update(slot, enemyStore.getX(slot) - halfWidth,
+                    enemyStore.getY(slot) - halfHeight + enemyStore.getBoxOffsetY(slot), halfWidth * 2, halfHeight * 2);
+        }
+        return enemyBroadphase;
+    }
+
+    public void captureSnapshot(WorldSnapshot snapshot) {
+        players.values().forEach(p -> p.captureRenderState(snapshot));
+        networkedEnemies.values().forEach(e -> e.captureRenderState(snapshot));
+        projectiles.captureSnapshot(snapshot);
     }
 
     public void applyServerUpdate(ServerUpdateMessage msg, int localPlayerId) {
@@ -294,9 +350,7 @@ public class EntityManager {
                 if(enemy.isAlive()) enemy.takeDamage(1); else break;
             }
             if (ed.health > 0 && !enemy.isAlive()) { // Revive if needed
-                enemy.health = ed.health; // Direct set after takeDamage made it 0
-                enemy.alive = true;
-                enemy.updateAliveVisualState(); // Ensure visual matches
+                enemy.setHealth(ed.health); // Direct set after takeDamage made it 0
             }
 
             enemy.lastDirection = AnimationManager.directionFromString(ed.lastDirection);
@@ -305,17 +359,17 @@ public class EntityManager {
         return enemy;
     }
 
-    private Enemy createEnemyInstanceFromTypeString(String type, int id, double x, double y) {
-        double enemyDisplayWidth = 48;
-        double enemyDisplayHeight = 48;
-        if ("bear".equalsIgnoreCase(type)) {
-            return new Bear(id, x, y, enemyDisplayWidth, enemyDisplayHeight, assetManager, mapLoader);
+    private Enemy createEnemyInstanceFromTypeString(String typeName, int id, double x, double y) {
+        EnemyType type = enemyTypes.get(typeName);
+        if (type == null) {
+            System.err.println("EntityManager: Unknown enemy type '" + typeName + "' for instantiation.");
+            return null;
         }
-        // else if ("slime".equalsIgnoreCase(type)) {
-        //    return new Slime(id, x, y, ...);
-        // }
-        System.err.println("EntityManager: Unknown enemy type '" + type + "' for instantiation.");
-        return null;
+        return createEnemy(type, id, x, y);
+    }
+
+    private Enemy createEnemy(EnemyType type, int id, double x, double y) {
+        return type.create(id, x, y, mapLoader, enemyStore, aiServices, takeEnemyView(), randomStreams.forEntity(id));
     }
 
 
@@ -325,7 +379,7 @@ public class EntityManager {
             if (!serverEnemyIds.contains(localId)) {
                 Enemy removed = networkedEnemies.get(localId);
                 if (removed != null) {
-                    safeRemoveFromPane(removed.getEnemyImageView());
+                    releaseEnemy(removed);
                 }
                 return true;
             }
@@ -338,73 +392,87 @@ public class EntityManager {
         networkedEnemies.entrySet().removeIf(entry -> {
             Enemy enemy = entry.getValue();
             if (!enemy.isAlive()) {
-                safeRemoveFromPane(enemy.getEnemyImageView());
+                releaseEnemy(enemy);
                 return true;
             }
             return false;
         });
     }
 
-    public void addProjectile(Projectile projectile) {
-        if (projectile == null) return;
-        projectiles.add(projectile);
-        safeAddToPane(projectile.getCircle());
+    public void spawnProjectile(double startX, double startY, double targetX, double targetY) {
+        projectiles.spawn(startX, startY, targetX, targetY);
     }
+
     public void cleanupProjectiles(double screenWidth, double screenHeight) {
-        projectiles.removeIf(p -> {
-            boolean remove = !p.doesExist() || p.isOutOfBounds(screenWidth, screenHeight);
-            if (remove) {
-                safeRemoveFromPane(p.getCircle());
-            }
-            return remove;
-        });
+        projectiles.releaseOutOfBounds(screenWidth, screenHeight);
     }
 
     public void clearAllEntities() {
-        List<Node> nodesToRemove = new ArrayList<>();
-        players.values().forEach(p -> nodesToRemove.add(p.getPlayerImageView()));
-        networkedEnemies.values().forEach(e -> nodesToRemove.add(e.getEnemyImageView()));
-        projectiles.forEach(p -> nodesToRemove.add(p.getCircle()));
+        if (sceneCommands != null) {
+            List<Node> nodesToRemove = new ArrayList<>();
+            players.values().forEach(p -> nodesToRemove.add(p.getPlayerImageView()));
+            networkedEnemies.values().forEach(e -> nodesToRemove.add(e.getEnemyImageView()));
+            projectiles.forEachVisual(nodesToRemove::add);
 
-        Platform.runLater(() -> rootPane.getChildren().removeAll(nodesToRemove));
+            sceneCommands.removeAll(nodesToRemove);
+        }
 
         players.clear();
         localPlayer = null;
         networkedEnemies.clear();
+        enemyStore.clear();
+        enemyBroadphase.clear();
         projectiles.clear();
+        projectiles.discardVisuals();
     }
 
-    public Player determineEnemyTarget() {
-        if (localPlayer != null && localPlayer.isAlive()) {
-            return localPlayer;
-        }
-        for (Player p : players.values()) {
-            if (p != null && !p.isLocalPlayer() && p.isAlive()) {
-                return p;
-            }
-        }
-        return null;
+
+    /**
+     * Opens or closes a map tile at runtime (doors, destructible walls) and updates everything derived from the
+     * collision layer. Call between ticks.
+     */
+    public void setTileBlocked(int tileX, int tileY, boolean blocked) {
+        if (mapLoader == null) return;
+        mapLoader.getCollisionMask().setBlocked(tileX, tileY, blocked);
+        aiServices.tileChanged(tileX, tileY);
+        if (spawnIndex != null) spawnIndex.tileChanged(tileX, tileY);
     }
-    public void setGlobalEnemyTarget(Player target) { this.globalEnemyTarget = target; }
 
     private void safeAddToPane(Node node) {
-        if (node != null) {
-            Platform.runLater(() -> {
-                if (!rootPane.getChildren().contains(node)) {
-                    rootPane.getChildren().add(node);
-                }
-            });
-        }
+        if (sceneCommands != null) sceneCommands.add(node);
     }
     private void safeRemoveFromPane(Node node) {
-        if (node != null) {
-            Platform.runLater(() -> rootPane.getChildren().remove(node));
-        }
+        if (sceneCommands != null) sceneCommands.remove(node);
+    }
+
+    /** Applies queued scene-graph additions and removals. Must run on the JavaFX Application Thread. */
+    public void flushSceneCommands() {
+        if (sceneCommands != null) sceneCommands.flush();
     }
 
     public Player getLocalPlayer() { return localPlayer; }
     public Player getPlayerById(int id) { return players.get(id); }
     public Collection<Player> getAllPlayers() { return players.values(); }
     public Map<Integer, Enemy> getNetworkedEnemies() { return networkedEnemies; }
-    public List<Projectile> getProjectiles() { return projectiles; }
+    public EntityStore<Enemy> getEnemyStore() { return enemyStore; }
+    public Broadphase getEnemyBroadphase() { return enemyBroadphase; }
+
+    /**
+     * Switches the broadphases of enemy collisions and of the players blocking enemy movement; call between
+     * ticks. The new ones are filled on the next {@link #refreshEnemyBroadphase()} and enemy update.
+     */
+    public void setEnemyBroadphaseType(BroadphaseType type) {
+        enemyBroadphase = createBroadphase(type, enemyStore.getHighWater());
+        enemyUpdatePhase.setPlayerBlockers(createBroadphase(type, 4));
+        System.out.println("EntityManager: Using " + type.getLabel() + " broadphase for enemies.");
+    }
+
+    private Broadphase createBroadphase(BroadphaseType type, int expectedIds) {
+        Broadphase broadphase = type.create(broadphaseCellSize, expectedIds);
+        return GameConfig.VALIDATE_BROADPHASE ? new ValidatingBroadphase(broadphase, expectedIds) : broadphase;
+    }
+    public ProjectilePool getProjectiles() { return projectiles; }
+    public AiScheduler getAiScheduler() { return aiScheduler; }
+    public EnemyTypeRegistry getEnemyTypes() { return enemyTypes; }
+    public SimulationLod getSimulationLod() { return simulationLod; }
 }
\ No newline at end of file
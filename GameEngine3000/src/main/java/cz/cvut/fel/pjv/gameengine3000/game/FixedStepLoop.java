@@ -0,0 +1,55 @@
+package cz.cvut.fel.pjv.gameengine3000.game;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * Accumulator based fixed-timestep driver. Frame time is fed in, the simulation step is
+ * invoked a whole number of times with a constant delta, and the leftover fraction is
+ * returned as the interpolation alpha for rendering.
+ */
+public class FixedStepLoop {
+
+    private final double stepSeconds;
+    private final int maxStepsPerFrame;
+    private double accumulator = 0.0;
+    private long totalSteps = 0;
+
+    public FixedStepLoop(double tickRateHz, int maxStepsPerFrame) {
+        if (tickRateHz <= 0) throw new IllegalArgumentException("Tick rate must be positive.");
+        if (maxStepsPerFrame <= 0) throw new IllegalArgumentException("Max steps per frame must be positive.");
+        this.stepSeconds = 1.0 / tickRateHz;
+        this.maxStepsPerFrame = maxStepsPerFrame;
+    }
+
+    /**
+     * Runs as many fixed steps as the accumulated time allows, up to the catch-up limit.
+     * @param frameSeconds Real time elapsed since the previous call.
+     * @param step Simulation step, called with the fixed delta.
+     * @return Interpolation alpha in [0, 1) between the previous and the current simulation state.
+     */
+    public double advance(double frameSeconds, DoubleConsumer step) {
+        accumulator += Math.max(0.0, frameSeconds);
+
+        int steps = 0;
+        while (accumulator >= stepSeconds && steps < maxStepsPerFrame) {
+            step.accept(stepSeconds);
+            accumulator -= stepSeconds;
+            steps++;
+        }
+        totalSteps += steps;
+
+        // Host cannot keep up - drop the backlog instead of spiralling further behind.
+        if (accumulator >= stepSeconds) {
+            accumulator %= stepSeconds;
+        }
+        return accumulator / stepSeconds;
+    }
+
+    public void reset() {
+        accumulator = 0.0;
+    }
+
+    public double getStepSeconds() { return stepSeconds; }
+    public int getMaxStepsPerFrame() { return maxStepsPerFrame; }
+    public long getTotalSteps() { return totalSteps; }
+}
@@ -1,14 +1,71 @@
 package cz.cvut.fel.pjv.gameengine3000.game;
 
+import javafx.scene.input.KeyCode;
+
 public class GameConfig {
 
     public static final double ENEMY_SPAWN_INTERVAL = 5.0;
     public static final int MAX_ENEMIES = 5;
+    // Registered enemy type (see EnemyTypeRegistry) that the spawners create
+    public static final String SPAWN_ENEMY_TYPE = System.getProperty("gameengine.spawnEnemyType", "bear");
+    // Enemies spawn at least this far (pixels) from every living player when the map has room for it
+    public static final double SPAWN_MIN_PLAYER_DISTANCE = Double.parseDouble(System.getProperty("gameengine.spawnMinPlayerDistance", "300"));
+    // Enemy waves on top of the trickle above: every WAVE_INTERVAL seconds (0 = off) WAVE_SIZE enemies are
+    // queued and created at most WAVE_SPAWNS_PER_TICK per tick, up to WAVE_MAX_ENEMIES alive
+    public static final double WAVE_INTERVAL = Double.parseDouble(System.getProperty("gameengine.waveInterval", "0"));
+    public static final int WAVE_SIZE = Integer.getInteger("gameengine.waveSize", 200);
+    public static final int WAVE_SPAWNS_PER_TICK = Integer.getInteger("gameengine.waveSpawnsPerTick", 8);
+    public static final int WAVE_MAX_ENEMIES = Integer.getInteger("gameengine.waveMaxEnemies", 2000);
+    public static final int MAX_PROJECTILES = Integer.getInteger("gameengine.maxProjectiles", 4096);
     public static final int PLAYER_ATTACK_DAMAGE = 25;
     public static final int ENEMY_COLLISION_DAMAGE = 0;
     public static final int PROJECTILE_DAMAGE = 50;
     public static final int SCORE_PER_KILL = 10;
 
+    // Fixed simulation step; override with -Dgameengine.tickRate=30 on weak hosts
+    public static final double SIMULATION_TICK_RATE = Double.parseDouble(System.getProperty("gameengine.tickRate", "60"));
+    public static final int MAX_CATCH_UP_STEPS = Integer.getInteger("gameengine.maxCatchUpSteps", 5);
+    public static final double MAX_FRAME_TIME = 0.25;
+    public static final boolean SIMULATION_THREADED = Boolean.parseBoolean(System.getProperty("gameengine.simThread", "true"));
+    // Enemy AI is spread over a ForkJoin pool once this many enemies are active; 0 threads or 1 keeps it serial
+    public static final int ENEMY_AI_THREADS = Integer.getInteger("gameengine.aiThreads", Runtime.getRuntime().availableProcessors());
+    public static final int PARALLEL_AI_THRESHOLD = Integer.getInteger("gameengine.parallelAiThreshold", 256);
+    // Enemy decisions per tick follow this CPU-time budget; enemies within the range decide first.
+    // Recorded and replayed sessions use the fixed quota instead, so they stay deterministic.
+    public static final int AI_DECISION_BUDGET_MICROS = Integer.getInteger("gameengine.aiBudgetMicros", 2000);
+    public static final int AI_FIXED_DECISIONS_PER_TICK = Integer.getInteger("gameengine.aiFixedDecisions", 512);
+    public static final double AI_NEAR_RANGE = Double.parseDouble(System.getProperty("gameengine.aiNearRange", "400"));
+    // Enemy simulation LOD by distance to the nearest player: every tick within the near range (covers the
+    // viewport), every LOD_MID_INTERVAL ticks up to the far range, dormant beyond
+    public static final double LOD_NEAR_RANGE = Double.parseDouble(System.getProperty("gameengine.lodNearRange", "900"));
+    public static final double LOD_FAR_RANGE = Double.parseDouble(System.getProperty("gameengine.lodFarRange", "1800"));
+    public static final int LOD_MID_INTERVAL = Integer.getInteger("gameengine.lodMidInterval", 4);
+    // Collision broadphase: grid, tree, sweep or brute (-Dgameengine.broadphase=tree); validation cross-checks every query
+    public static final String BROADPHASE = System.getProperty("gameengine.broadphase", "grid");
+    public static final boolean VALIDATE_BROADPHASE = Boolean.parseBoolean(System.getProperty("gameengine.validateBroadphase", "false"));
+    // Grid broadphase cells span this many map tiles per side
+    public static final int BROADPHASE_CELL_TILES = Integer.getInteger("gameengine.broadphaseCellTiles", 2);
+    public static final double DEFAULT_TILE_SIZE = 32;
+    // Enemy pathfinding: cached paths kept, and A* tiles expanded per tick before further searches wait
+    public static final int PATH_CACHE_SIZE = Integer.getInteger("gameengine.pathCacheSize", 256);
+    public static final int PATH_NODE_BUDGET = Integer.getInteger("gameengine.pathNodeBudget", 4096);
+    // Maps with at least this many tiles are searched hierarchically, in clusters of this many tiles per side
+    public static final int HIERARCHICAL_PATH_MIN_TILES = Integer.getInteger("gameengine.hierarchicalPathMinTiles", 64 * 64);
+    public static final int PATH_CLUSTER_SIZE = Integer.getInteger("gameengine.pathClusterSize", 16);
+    // Flow fields towards players: tiles expanded per tick, over all fields, while rebuilding for a moved player
+    public static final int FLOW_FIELD_NODE_BUDGET = Integer.getInteger("gameengine.flowFieldNodeBudget", 16384);
+
+    public static final boolean PROFILER_ENABLED = Boolean.parseBoolean(System.getProperty("gameengine.profile", "true"));
+    public static final KeyCode PROFILER_TOGGLE_KEY = KeyCode.F3;
+
+    // Session seed for all gameplay randomness (-Dgameengine.seed=42); null picks a fresh one per session
+    public static final Long FIXED_SEED = Long.getLong("gameengine.seed");
+    // Record single-player input to replays/ (-Dgameengine.record=true)
+    public static final boolean RECORD_REPLAYS = Boolean.parseBoolean(System.getProperty("gameengine.record", "false"));
+
+    public static final double HEADLESS_WORLD_WIDTH = 1280;
+    public static final double HEADLESS_WORLD_HEIGHT = 720;
+
     public static final String KNIGHT_WALK_SHEET = "/player/character/knight/Walk.png";
     public static final String KNIGHT_IDLE_SHEET = "/player/character/knight/Idle.png";
     public static final String KNIGHT_ATTACK_SHEET = "/player/character/knight/Attack.png";
@@ -3,10 +3,12 @@ package cz.cvut.fel.pjv.gameengine3000.game;
 import cz.cvut.fel.pjv.gameengine3000.savegame.GameEngineAccess;
 import cz.cvut.fel.pjv.gameengine3000.savegame.GameStateSerializer; // Import
 import cz.cvut.fel.pjv.gameengine3000.savegame.SaveGameData;      // Import
+import cz.cvut.fel.pjv.gameengine3000.entities.Enemies.Enemy;
 import cz.cvut.fel.pjv.gameengine3000.entities.Player;
 import cz.cvut.fel.pjv.gameengine3000.map.CustomMapLoader;
 import cz.cvut.fel.pjv.gameengine3000.utils.AssetManager;
 import cz.cvut.fel.pjv.gameengine3000.multiplayer.*;
+import cz.cvut.fel.pjv.gameengine3000.replay.ReplayRecorder;
 import cz.cvut.fel.pjv.gameengine3000.scenes.GameSceneManager;
 
 
@@ -15,43 +17,84 @@ import javafx.scene.control.Alert;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.Pane;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Random;
 
 public class GameEngine implements GameEngineAccess { // Implement interface
 
-    private final Pane rootPane;
-    private final AssetManager assetManager;
+    private final boolean headless;
+    private final double worldWidth;
+    private final double worldHeight;
+    private final Pane rootPane; // null when headless
+    private final AssetManager assetManager; // null when headless
     private final CustomMapLoader mapLoader;
     private final GameSceneManager gameSceneManager;
     private final EntityManager entityManager;
     private final MultiplayerCoordinator multiplayerCoordinator;
 
     private final GameStatus gameStatus;
-    private final GameUIManager uiManager;
+    private final GameUIManager uiManager; // null when headless
     private final InputHandler inputHandler;
     private final CollisionHandler collisionHandler;
     private final GameStateSerializer gameStateSerializer;
 
     private double timeSinceLastSpawn = 0.0;
-    private final Random random = new Random();
+    private final WaveDirector waveDirector = new WaveDirector(GameConfig.WAVE_INTERVAL, GameConfig.WAVE_SIZE,
+            GameConfig.WAVE_SPAWNS_PER_TICK, GameConfig.WAVE_MAX_ENEMIES);
+    private final RandomStreams randomStreams;
+    private final Random random;
+    private long simulationTicks = 0;
+    private ReplayRecorder replayRecorder = null; // guarded by simulationLock
+
+    // Guards world state: the simulation may tick on its own thread while FX, input and network threads mutate entities.
+    private final Object simulationLock = new Object();
+    private final SnapshotBuffer renderSnapshots = new SnapshotBuffer();
+    private final TickProfiler profiler = new TickProfiler(GameConfig.PROFILER_ENABLED, (int) Math.round(GameConfig.SIMULATION_TICK_RATE));
 
     public GameEngine(double width, double height, GameSceneManager gsm, GameStatus gameStatus) {
+        this(width, height, gsm, gameStatus, false, RandomStreams.defaultSeed());
+    }
+
+    /** Creates an engine that simulates the world without any scene graph or JavaFX toolkit. */
+    public static GameEngine createHeadless(double width, double height, GameStatus gameStatus) {
+        return createHeadless(width, height, gameStatus, RandomStreams.defaultSeed());
+    }
+
+    /** Headless engine whose gameplay randomness is derived from the given seed (used by replays). */
+    public static GameEngine createHeadless(double width, double height, GameStatus gameStatus, long seed) {
+        return new GameEngine(width, height, null, gameStatus, true, seed);
+    }
+
+    private GameEngine(double width, double height, GameSceneManager gsm, GameStatus gameStatus, boolean headless, long seed) {
+        this.headless = headless;
+        this.randomStreams = new RandomStreams(seed);
+        this.random = randomStreams.stream("spawn");
+        this.worldWidth = width;
+        this.worldHeight = height;
         this.gameSceneManager = gsm;
         this.gameStatus = gameStatus;
-        this.rootPane = new Pane();
-        this.rootPane.setPrefSize(width, height);
-        this.rootPane.setStyle("-fx-background-color: #1a1a1a;");
-        this.assetManager = new AssetManager();
+        if (headless) {
+            this.rootPane = null;
+            this.assetManager = null;
+        } else {
+            this.rootPane = new Pane();
+            this.rootPane.setPrefSize(width, height);
+            this.rootPane.setStyle("-fx-background-color: #1a1a1a;");
+            this.assetManager = new AssetManager();
+        }
 
         CustomMapLoader loadedMap = null;
         try {
             loadedMap = new CustomMapLoader(GameConfig.DEFAULT_MAP_PATH, this.assetManager);
         } catch (Exception e) {
-            Platform.runLater(()-> new Alert(Alert.AlertType.ERROR, "Map Load Failed: " + e.getMessage()).show());
+            reportError("Map Load Failed: " + e.getMessage());
         }
         this.mapLoader = loadedMap;
 
-        this.entityManager = new EntityManager(this.rootPane, this.assetManager, this.mapLoader,
+        this.entityManager = new EntityManager(this.rootPane, this.assetManager, this.mapLoader, this.randomStreams,
                 GameConfig.KNIGHT_WALK_SHEET, GameConfig.KNIGHT_IDLE_SHEET, GameConfig.KNIGHT_ATTACK_SHEET,
                 GameConfig.MAGE_WALK_SHEET, GameConfig.MAGE_IDLE_SHEET, GameConfig.MAGE_ATTACK_SHEET,
                 GameConfig.DEFAULT_ENEMY_WALK_SHEET, GameConfig.DEFAULT_ENEMY_WALK_SHEET,
@@ -60,29 +103,37 @@ public class GameEngine implements GameEngineAccess { // Implement interface
 
         this.multiplayerCoordinator = new MultiplayerCoordinator(this, this.entityManager, this.gameSceneManager, this.gameStatus);
 
-        this.uiManager = new GameUIManager(this.rootPane, this.gameStatus, this.mapLoader, width, height);
+        this.uiManager = headless ? null : new GameUIManager(this.rootPane, this.gameStatus, this.mapLoader, this.profiler, width, height);
         this.inputHandler = new InputHandler(this.entityManager, this.gameStatus, this.multiplayerCoordinator);
-        this.collisionHandler = new CollisionHandler(this.entityManager, this.gameStatus, this.rootPane, this::handlePlayerDeathEvent);
+        this.collisionHandler = new CollisionHandler(this.entityManager, this.gameStatus, this::handlePlayerDeathEvent);
         this.gameStateSerializer = new GameStateSerializer(this.entityManager, this.gameStatus, this, this.mapLoader);
     }
 
     public SaveGameData captureGameStateForSave() {
-        return gameStateSerializer.gatherCurrentGameState();
+        synchronized (simulationLock) {
+            return gameStateSerializer.gatherCurrentGameState();
+        }
     }
 
     public boolean restoreGameStateFromLoad(SaveGameData data) {
         stopGameAndCleanUp();
 
-        boolean success = gameStateSerializer.applyGameState(data,
-                () -> {
-                    if (uiManager != null) {
-                        uiManager.updateGameUI(rootPane.getWidth(), rootPane.getHeight(), entityManager.getLocalPlayer());
+        boolean success;
+        synchronized (simulationLock) {
+            // A loaded save is not reproducible from the recorded seed, so stop recording.
+            replayRecorder = null;
+            success = gameStateSerializer.applyGameState(data,
+                    () -> {
+                        if (uiManager != null) {
+                            uiManager.updateGameUI(getScreenWidth(), getScreenHeight(), entityManager.getLocalPlayer());
+                        }
+                    },
+                    () -> {
+                        if (gameSceneManager != null) gameSceneManager.requestReturnToMainMenu();
                     }
-                },
-                () -> {
-                    gameSceneManager.requestReturnToMainMenu();
-                }
-        );
+            );
+            publishSnapshot();
+        }
         return success;
     }
 
@@ -104,15 +155,43 @@ public class GameEngine implements GameEngineAccess { // Implement interface
 
     @Override
     public double getScreenWidth() {
-        return rootPane.getWidth();
+        return headless ? worldWidth : rootPane.getWidth();
+    }
+
+    public double getScreenHeight() {
+        return headless ? worldHeight : rootPane.getHeight();
+    }
+
+    public boolean isHeadless() {
+        return headless;
     }
 
 
     public void setupSinglePlayer() {
         gameStatus.setCurrentRole(MultiplayerRole.NONE);
+        if (GameConfig.RECORD_REPLAYS) startReplayRecording();
         multiplayerCoordinator.setupSinglePlayerMode();
     }
 
+    /** Starts recording input from the current tick on. Only single-player sessions replay deterministically. */
+    public void startReplayRecording() {
+        synchronized (simulationLock) {
+            replayRecorder = new ReplayRecorder(randomStreams.getSeed(), GameConfig.SIMULATION_TICK_RATE, worldWidth, worldHeight);
+            entityManager.getAiScheduler().setFixedQuota(true); // a time-based quota would not replay
+            System.out.println("GameEngine: Recording replay with seed " + randomStreams.getSeed());
+        }
+    }
+
+    /** Stops recording; when save is set the replay is written to disk first. Returns the file, or null. */
+    public File stopReplayRecording(boolean save) {
+        synchronized (simulationLock) {
+            if (replayRecorder == null) return null;
+            File file = save ? replayRecorder.save(simulationTicks, computeStateChecksum()) : null;
+            replayRecorder = null;
+            return file;
+        }
+    }
+
     public void setupMultiplayerHost(int port) {
         gameStatus.setCurrentRole(MultiplayerRole.HOST);
         multiplayerCoordinator.startHostSession(port);
@@ -128,40 +207,59 @@ public class GameEngine implements GameEngineAccess { // Implement interface
         gameStatus.setLocalPlayerId(assignedId);
         entityManager.setCurrentRole(role);
 
-        Platform.runLater(() -> {
+        // Scene changes go through the render command buffer, so the player can be created right away on any thread.
+        synchronized (simulationLock) {
             if (entityManager.getLocalPlayer() == null) {
                 boolean isHostStyle = (assignedId == 0);
-                double startX = (role == MultiplayerRole.HOST || role == MultiplayerRole.NONE) ? rootPane.getWidth() / 4.0 : rootPane.getWidth() * 3.0 / 4.0;
-                entityManager.initializeLocalPlayer(assignedId, startX, isHostStyle);
+                // The pane may not be laid out yet; fall back to the size the engine was created with.
+                double width = getScreenWidth() > 0 ? getScreenWidth() : worldWidth;
+                double startX = (role == MultiplayerRole.HOST || role == MultiplayerRole.NONE) ? width / 4.0 : width * 3.0 / 4.0;
+                spawnLocalPlayer(assignedId, startX, isHostStyle);
             }
-        });
+        }
+    }
+
+    private void spawnLocalPlayer(int playerId, double startX, boolean isHostStyle) {
+        entityManager.initializeLocalPlayer(playerId, startX, isHostStyle);
+        Player player = entityManager.getLocalPlayer();
+        if (replayRecorder != null && player != null) {
+            replayRecorder.playerSpawned(simulationTicks, playerId, player.getX(), player.getY());
+        }
+        publishSnapshot();
     }
 
     public void ensureRemotePlayerVisualExists(int remotePId) {
-        entityManager.ensureRemotePlayerVisualExists(remotePId, rootPane.getWidth(), gameStatus.getCurrentRole());
+        synchronized (simulationLock) {
+            entityManager.ensureRemotePlayerVisualExists(remotePId, getScreenWidth(), gameStatus.getCurrentRole());
+        }
     }
 
     public void applyServerUpdate(ServerUpdateMessage msg) {
         if (gameStatus.getCurrentRole() != MultiplayerRole.CLIENT || gameStatus.isGameIsOver()) return;
-        entityManager.applyServerUpdate(msg, gameStatus.getLocalPlayerId());
-        Player localP = entityManager.getLocalPlayer();
-        if(localP != null && !localP.isAlive()) {
-            handlePlayerDeathEvent(localP);
+        synchronized (simulationLock) {
+            entityManager.applyServerUpdate(msg, gameStatus.getLocalPlayerId());
+            Player localP = entityManager.getLocalPlayer();
+            if(localP != null && !localP.isAlive()) {
+                handlePlayerDeathEvent(localP);
+            }
         }
     }
 
     public void applyClientUpdate(ClientUpdateMessage msg) {
         if (gameStatus.getCurrentRole() != MultiplayerRole.HOST || gameStatus.isGameIsOver()) return;
-        entityManager.applyClientUpdate(msg);
-        Player clientP = entityManager.getPlayerById(msg.playerId);
-        if (clientP != null && clientP.isCurrentlyLogicallyAttacking()) {
-            collisionHandler.checkPlayerAttackCollisions(clientP);
+        synchronized (simulationLock) {
+            entityManager.applyClientUpdate(msg);
+            Player clientP = entityManager.getPlayerById(msg.playerId);
+            if (clientP != null && clientP.isCurrentlyLogicallyAttacking()) {
+                collisionHandler.checkPlayerAttackCollisions(clientP);
+            }
         }
     }
 
     public void handleDisconnection() {
         if (!gameStatus.isGameIsOver()) {
-            Platform.runLater(()-> new Alert(Alert.AlertType.WARNING, "Disconnected from session.").show());
+            if (headless) System.err.println("GameEngine: Disconnected from session.");
+            else Platform.runLater(()-> new Alert(Alert.AlertType.WARNING, "Disconnected from session.").show());
         }
         triggerGameOver();
     }
@@ -171,27 +269,44 @@ public class GameEngine implements GameEngineAccess { // Implement interface
     }
 
     public void showInfoMessage(String message) {
-        Platform.runLater(() -> new Alert(Alert.AlertType.INFORMATION, message).show());
+        if (headless) System.out.println("GameEngine: " + message);
+        else Platform.runLater(() -> new Alert(Alert.AlertType.INFORMATION, message).show());
+    }
+
+    private void reportError(String message) {
+        if (headless) System.err.println("GameEngine: " + message);
+        else Platform.runLater(() -> new Alert(Alert.AlertType.ERROR, message).show());
     }
 
     public void startGameLoop() {
-        gameStatus.reset();
-        gameStatus.setPaused(false);
-        if(entityManager.getLocalPlayer() != null && mapLoader != null){
-            entityManager.getLocalPlayer().setMapLoader(mapLoader);
+        synchronized (simulationLock) {
+            gameStatus.reset();
+            gameStatus.setPaused(false);
+            if(entityManager.getLocalPlayer() != null && mapLoader != null){
+                entityManager.getLocalPlayer().setMapLoader(mapLoader);
+            }
+            publishSnapshot();
+        }
+        if (uiManager != null) {
+            uiManager.updateGameUI(getScreenWidth(), getScreenHeight(), entityManager.getLocalPlayer());
         }
-        uiManager.updateGameUI(rootPane.getWidth(), rootPane.getHeight(), entityManager.getLocalPlayer());
     }
 
     public void pauseGame() {
         if (!gameStatus.isGameIsOver()) {
-            gameStatus.setPaused(true);
-            inputHandler.clearLocalPlayerMovementFlags();
+            synchronized (simulationLock) {
+                if (replayRecorder != null) replayRecorder.paused(simulationTicks);
+                gameStatus.setPaused(true);
+                inputHandler.clearLocalPlayerMovementFlags();
+            }
         }
     }
     public void resumeGame() {
         if (!gameStatus.isGameIsOver()) {
-            gameStatus.setPaused(false);
+            synchronized (simulationLock) {
+                if (replayRecorder != null) replayRecorder.resumed(simulationTicks);
+                gameStatus.setPaused(false);
+            }
         }
     }
 
@@ -202,38 +317,82 @@ public class GameEngine implements GameEngineAccess { // Implement interface
     public void tick(double elapsedSeconds, double screenWidth, double screenHeight) {
         if (gameStatus.isPaused() || gameStatus.isGameIsOver()) return;
 
-        if ((gameStatus.getCurrentRole() == MultiplayerRole.CLIENT || gameStatus.getCurrentRole() == MultiplayerRole.HOST)
-                && entityManager.getLocalPlayer() == null) {
-            return;
-        }
-        if (gameStatus.getCurrentRole() == MultiplayerRole.NONE && entityManager.getLocalPlayer() == null && gameStatus.getLocalPlayerId() != -1) {
-            return;
-        }
+        synchronized (simulationLock) {
+            if ((gameStatus.getCurrentRole() == MultiplayerRole.CLIENT || gameStatus.getCurrentRole() == MultiplayerRole.HOST)
+                    && entityManager.getLocalPlayer() == null) {
+                return;
+            }
+            if (gameStatus.getCurrentRole() == MultiplayerRole.NONE && entityManager.getLocalPlayer() == null && gameStatus.getLocalPlayerId() != -1) {
+                return;
+            }
+
+
+            if (replayRecorder != null) replayRecorder.viewport(simulationTicks, screenWidth, screenHeight);
+
+            long tickStart = profiler.begin();
+            long t = tickStart;
+            entityManager.updateAllEntities(elapsedSeconds, screenWidth, screenHeight);
+            profiler.end(TickProfiler.Phase.ENTITIES, t);
+
+            t = profiler.begin();
+            if (multiplayerCoordinator != null) multiplayerCoordinator.sendUpdatesIfNeeded();
+            profiler.end(TickProfiler.Phase.NETWORK, t);
+
+            if (multiplayerCoordinator == null || multiplayerCoordinator.isAuthoritative()) {
+                handleAuthoritativeLogic(elapsedSeconds, screenWidth, screenHeight);
+            }
 
+            t = profiler.begin();
+            entityManager.cleanupProjectiles(screenWidth, screenHeight);
+            profiler.accumulate(TickProfiler.Phase.CLEANUP, t);
 
-        entityManager.updateAllEntities(elapsedSeconds, screenWidth, screenHeight);
-        if (multiplayerCoordinator != null) multiplayerCoordinator.sendUpdatesIfNeeded();
+            t = profiler.begin();
+            publishSnapshot();
+            profiler.end(TickProfiler.Phase.SNAPSHOT, t);
 
-        if (multiplayerCoordinator == null || multiplayerCoordinator.isAuthoritative()) {
-            handleAuthoritativeLogic(elapsedSeconds, screenWidth, screenHeight);
+            profiler.end(TickProfiler.Phase.TICK, tickStart);
+            profiler.endTick(entityManager.getNetworkedEnemies().size(), entityManager.getProjectiles().getActiveCount());
+            simulationTicks++;
         }
+    }
+
+    /** Copies the render-relevant entity state into the back snapshot and swaps it in for the FX thread. */
+    private void publishSnapshot() {
+        if (headless) return;
+        renderSnapshots.publish(entityManager::captureSnapshot);
+    }
 
-        entityManager.cleanupProjectiles(screenWidth, screenHeight);
-        uiManager.updateGameUI(screenWidth, screenHeight, entityManager.getLocalPlayer());
+    /** Applies the latest published snapshot to the scene graph. Must run on the JavaFX Application Thread. */
+    public void render(double alpha) {
+        if (headless) return;
+        // Nothing advances while paused or after game over, so show the last state instead of blending towards it.
+        long t = profiler.begin();
+        entityManager.flushSceneCommands();
+        renderSnapshots.apply(gameStatus.isPaused() || gameStatus.isGameIsOver() ? 1.0 : alpha);
+        profiler.end(TickProfiler.Phase.RENDER, t);
+
+        t = profiler.begin();
+        uiManager.updateGameUI(getScreenWidth(), getScreenHeight(), entityManager.getLocalPlayer());
+        profiler.end(TickProfiler.Phase.UI, t);
     }
 
     private void handleAuthoritativeLogic(double elapsedSeconds, double screenWidth, double screenHeight) {
+        long t = profiler.begin();
         timeSinceLastSpawn += elapsedSeconds;
         if (timeSinceLastSpawn >= GameConfig.ENEMY_SPAWN_INTERVAL && entityManager.getNetworkedEnemies().size() < GameConfig.MAX_ENEMIES) {
             entityManager.spawnHostControlledEnemy(screenWidth, screenHeight, random);
             timeSinceLastSpawn = 0.0;
         }
+        waveDirector.update(elapsedSeconds, entityManager, screenWidth, screenHeight, random);
+        profiler.end(TickProfiler.Phase.SPAWN, t);
 
-        Player target = entityManager.determineEnemyTarget();
-        entityManager.setGlobalEnemyTarget(target);
-
+        t = profiler.begin();
         collisionHandler.checkAuthoritativeCollisions(screenWidth, screenHeight);
+        profiler.end(TickProfiler.Phase.COLLISIONS, t);
+
+        t = profiler.begin();
         entityManager.cleanupHostEnemies();
+        profiler.accumulate(TickProfiler.Phase.CLEANUP, t);
     }
 
     private void handlePlayerDeathEvent(Player deceasedPlayer) {
@@ -246,7 +405,7 @@ public class GameEngine implements GameEngineAccess { // Implement interface
         gameStatus.setGameIsOver(true);
         gameStatus.setPaused(true);
         inputHandler.clearLocalPlayerMovementFlags();
-        uiManager.showGameOverText(rootPane.getWidth(), rootPane.getHeight());
+        // The game over text is shown by render() on the FX thread.
     }
 
     public void stopGameAndCleanUp() {
@@ -256,13 +415,73 @@ public class GameEngine implements GameEngineAccess { // Implement interface
             multiplayerCoordinator.stopAndCleanup();
         }
 //        if (entityManager != null) {
-        entityManager.clearAllEntities();
+        synchronized (simulationLock) {
+            stopReplayRecording(true);
+            entityManager.clearAllEntities();
+            waveDirector.reset();
+        }
 //    }
     }
 
-    public void handleKeyPress(KeyCode code) { inputHandler.handleKeyPress(code); }
-    public void handleKeyRelease(KeyCode code) { inputHandler.handleKeyRelease(code); }
-    public void handleMouseClick(double sceneX, double sceneY) { inputHandler.handleMouseClick(sceneX, sceneY); }
+    public void handleKeyPress(KeyCode code) {
+        if (code == GameConfig.PROFILER_TOGGLE_KEY) {
+            if (uiManager != null) uiManager.toggleProfilerOverlay();
+            return;
+        }
+        synchronized (simulationLock) {
+            if (replayRecorder != null) replayRecorder.keyPressed(simulationTicks, code);
+            inputHandler.handleKeyPress(code);
+        }
+    }
+    public void handleKeyRelease(KeyCode code) {
+        synchronized (simulationLock) {
+            if (replayRecorder != null) replayRecorder.keyReleased(simulationTicks, code);
+            inputHandler.handleKeyRelease(code);
+        }
+    }
+    public void handleMouseClick(double sceneX, double sceneY) {
+        synchronized (simulationLock) {
+            if (replayRecorder != null) replayRecorder.mouseClicked(simulationTicks, sceneX, sceneY);
+            inputHandler.handleMouseClick(sceneX, sceneY);
+        }
+    }
+
+    /**
+     * Hash of the gameplay-relevant world state (players and enemies ordered by id, score).
+     * Two runs of the same replay must end with the same value.
+     */
+    public long computeStateChecksum() {
+        synchronized (simulationLock) {
+            long h = 1125899906842597L;
+            List<Player> players = new ArrayList<>(entityManager.getAllPlayers());
+            players.sort(Comparator.comparingInt(Player::getNetworkID));
+            for (Player p : players) {
+                h = 31 * h + p.getNetworkID();
+                h = 31 * h + Double.doubleToLongBits(p.getX());
+                h = 31 * h + Double.doubleToLongBits(p.getY());
+                h = 31 * h + p.getHealth();
+            }
+            List<Enemy> enemies = new ArrayList<>(entityManager.getNetworkedEnemies().values());
+            enemies.sort(Comparator.comparingInt(Enemy::getNetworkId));
+            for (Enemy e : enemies) {
+                h = 31 * h + e.getNetworkId();
+                h = 31 * h + Double.doubleToLongBits(e.getX());
+                h = 31 * h + Double.doubleToLongBits(e.getY());
+                h = 31 * h + e.getHealth();
+            }
+            h = 31 * h + entityManager.getProjectiles().getActiveCount();
+            h = 31 * h + gameStatus.getScore();
+            return h;
+        }
+    }
+
+    public long getSimulationTicks() {
+        return simulationTicks;
+    }
+
+    public long getSeed() {
+        return randomStreams.getSeed();
+    }
 
     public Pane getRootPane() { return rootPane; }
 
@@ -273,4 +492,12 @@ public class GameEngine implements GameEngineAccess { // Implement interface
     public EntityManager getEntityManager() {
         return entityManager;
     }
+
+    public TickProfiler getProfiler() {
+        return profiler;
+    }
+
+    public WaveDirector getWaveDirector() {
+        return waveDirector;
+    }
 }
\ No newline at end of file
@@ -1,11 +1,11 @@
 package cz.cvut.fel.pjv.gameengine3000.game;
 
 public class GameStatus {
-    private MultiplayerRole currentRole = MultiplayerRole.NONE;
-    private int localPlayerId = -1;
-    private boolean gameIsOver = false;
-    private boolean isPaused = false;
-    private int score = 0;
+    private volatile MultiplayerRole currentRole = MultiplayerRole.NONE;
+    private volatile int localPlayerId = -1;
+    private volatile boolean gameIsOver = false;
+    private volatile boolean isPaused = false;
+    private volatile int score = 0;
 
     public MultiplayerRole getCurrentRole() { return currentRole; }
     public void setCurrentRole(MultiplayerRole currentRole) { this.currentRole = currentRole; }
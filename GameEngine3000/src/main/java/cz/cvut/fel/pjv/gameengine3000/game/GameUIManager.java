@@ -13,12 +13,16 @@ import javafx.scene.text.Text;
 public class GameUIManager {
     private final Pane rootPane;
     private final GameStatus gameStatus;
+    private final TickProfiler profiler;
 
-    private Text healthText, scoreText, gameOverText;
+    private Text healthText, scoreText, gameOverText, profilerText;
+    private long lastProfilerRefreshNanos = 0;
+    private static final long PROFILER_REFRESH_NANOS = 250_000_000L;
 
-    public GameUIManager(Pane rootPane, GameStatus gameStatus, CustomMapLoader mapLoader, double initialWidth, double initialHeight) {
+    public GameUIManager(Pane rootPane, GameStatus gameStatus, CustomMapLoader mapLoader, TickProfiler profiler, double initialWidth, double initialHeight) {
         this.rootPane = rootPane;
         this.gameStatus = gameStatus;
+        this.profiler = profiler;
         setupGameUI(initialWidth, initialHeight);
         addGameUIToScene(mapLoader);
     }
@@ -28,6 +32,9 @@ public class GameUIManager {
         scoreText = createText("Score: 0", 20, Color.YELLOW, 10, 50);
         gameOverText = createText("GAME OVER", 60, Color.RED, 0, 0);
         gameOverText.setVisible(false);
+        profilerText = createText("", 12, Color.LIGHTGREEN, 10, 75);
+        profilerText.setFont(Font.font("Monospaced", 12));
+        profilerText.setVisible(false);
     }
 
     public void addGameUIToScene(CustomMapLoader mapLoader) {
@@ -37,7 +44,7 @@ public class GameUIManager {
             }
         }
         if (!rootPane.getChildren().contains(healthText)) {
-            rootPane.getChildren().addAll(healthText, scoreText, gameOverText);
+            rootPane.getChildren().addAll(healthText, scoreText, gameOverText, profilerText);
         }
     }
 
@@ -52,6 +59,7 @@ public class GameUIManager {
     public void updateGameUI(double screenWidth, double screenHeight, Player localPlayer) {
         healthText.setText("Health: " + (localPlayer != null && localPlayer.isAlive() ? localPlayer.getHealth() : "---"));
         scoreText.setText("Score: " + gameStatus.getScore());
+        updateProfilerOverlay();
 
         if (gameStatus.isGameIsOver()) {
             if (!gameOverText.isVisible()) {
@@ -64,6 +72,20 @@ public class GameUIManager {
         }
     }
 
+    public void toggleProfilerOverlay() {
+        profilerText.setVisible(!profilerText.isVisible() && profiler != null && profiler.isEnabled());
+        lastProfilerRefreshNanos = 0;
+    }
+
+    private void updateProfilerOverlay() {
+        if (!profilerText.isVisible()) return;
+        long now = System.nanoTime();
+        if (now - lastProfilerRefreshNanos < PROFILER_REFRESH_NANOS) return;
+        lastProfilerRefreshNanos = now;
+        profilerText.setText(profiler.formatSummary());
+        profilerText.toFront();
+    }
+
     public void showGameOverText(double screenWidth, double screenHeight) {
         if (!gameOverText.isVisible()) {
             centerText(gameOverText, screenWidth, screenHeight);
@@ -1,7 +1,6 @@
 package cz.cvut.fel.pjv.gameengine3000.game;
 
 import cz.cvut.fel.pjv.gameengine3000.entities.Player;
-import cz.cvut.fel.pjv.gameengine3000.entities.Projectile;
 import cz.cvut.fel.pjv.gameengine3000.multiplayer.MultiplayerCoordinator;
 import cz.cvut.fel.pjv.gameengine3000.game.GameStatus;
 import javafx.scene.input.KeyCode;
@@ -52,7 +51,6 @@ public class InputHandler {
         Player p = entityManager.getLocalPlayer();
         if (p == null || !p.isAlive()) return;
 
-        Projectile proj = new Projectile(p.getX(), p.getY(), sceneX, sceneY);
-        entityManager.addProjectile(proj);
+        entityManager.spawnProjectile(p.getX(), p.getY(), sceneX, sceneY);
     }
 }
\ No newline at end of file
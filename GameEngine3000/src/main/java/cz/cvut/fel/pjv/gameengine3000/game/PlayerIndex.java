@@ -0,0 +1,113 @@
+package cz.cvut.fel.pjv.gameengine3000.game;
+
+import cz.cvut.fel.pjv.gameengine3000.entities.Player;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 2-d tree over the living players' positions, rebuilt once per tick, for nearest-player queries by enemies.
+ * The tree is implicit in the arrays: the median of [lo, hi) on the axis of its depth sits at the middle,
+ * the lower half to its left and the upper half to its right. Queries only read, so they may run concurrently
+ * between two rebuilds.
+ */
+public class PlayerIndex {
+
+    private Player[] players = new Player[4];
+    private double[] xs = new double[4], ys = new double[4];
+    private int size = 0;
+
+    /** Rebuilds the tree from the living players. The layout only depends on their positions and iteration order. */
+    public void rebuild(Collection<Player> all) {
+        size = 0;
+        for (Player player : all) {
+            if (!player.isAlive()) continue;
+            if (size == players.length) {
+                players = Arrays.copyOf(players, size * 2);
+                xs = Arrays.copyOf(xs, size * 2);
+                ys = Arrays.copyOf(ys, size * 2);
+            }
+            players[size] = player;
+            xs[size] = player.getX();
+            ys[size] = player.getY();
+            size++;
+        }
+        Arrays.fill(players, size, players.length, null);
+        build(0, size, 0);
+    }
+
+    public int size() { return size; }
+
+    /**
+     * Finds the up to k players nearest to (x, y), closest first, into out and their squared distances into
+     * outDistanceSquared, both at least k long.
+     *
+     * @return how many were found, min(k, size())
+     */
+    public int nearest(double x, double y, int k, Player[] out, double[] outDistanceSquared) {
+        k = Math.min(k, size);
+        if (k <= 0) return 0;
+        Arrays.fill(outDistanceSquared, 0, k, Double.POSITIVE_INFINITY);
+        search(0, size, 0, x, y, k, out, outDistanceSquared);
+        return k;
+    }
+
+    private void search(int lo, int hi, int depth, double x, double y, int k, Player[] out, double[] best) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        double dx = xs[mid] - x, dy = ys[mid] - y;
+        offer(players[mid], dx * dx + dy * dy, k, out, best);
+
+        double split = (depth & 1) == 0 ? -dx : -dy; // query minus splitting coordinate
+        boolean lowerFirst = split < 0;
+        if (lowerFirst) search(lo, mid, depth + 1, x, y, k, out, best);
+        else search(mid + 1, hi, depth + 1, x, y, k, out, best);
+        // The far side can only help if the splitting line is closer than the current k-th best
+        if (split * split < best[k - 1]) {
+            if (lowerFirst) search(mid + 1, hi, depth + 1, x, y, k, out, best);
+            else search(lo, mid, depth + 1, x, y, k, out, best);
+        }
+    }
+
+    private static void offer(Player player, double distanceSquared, int k, Player[] out, double[] best) {
+        if (distanceSquared >= best[k - 1]) return;
+        int i = k - 1;
+        while (i > 0 && best[i - 1] > distanceSquared) {
+            best[i] = best[i - 1];
+            out[i] = out[i - 1];
+            i--;
+        }
+        best[i] = distanceSquared;
+        out[i] = player;
+    }
+
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= 1) return;
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, (depth & 1) == 0 ? xs : ys);
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    // Quickselect on [lo, hi] so that position nth holds the element it would hold if sorted by keys
+    private void select(int lo, int hi, int nth, double[] keys) {
+        while (lo < hi) {
+            double pivot = keys[(lo + hi) >>> 1];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (keys[i] < pivot) i++;
+                while (keys[j] > pivot) j--;
+                if (i <= j) swap(i++, j--);
+            }
+            if (nth <= j) hi = j;
+            else if (nth >= i) lo = i;
+            else return;
+        }
+    }
+
+    private void swap(int a, int b) {
+        Player p = players[a]; players[a] = players[b]; players[b] = p;
+        double t = xs[a]; xs[a] = xs[b]; xs[b] = t;
+        t = ys[a]; ys[a] = ys[b]; ys[b] = t;
+    }
+}
@@ -0,0 +1,39 @@
+package cz.cvut.fel.pjv.gameengine3000.game;
+
+import java.util.Random;
+
+/**
+ * Derives independent, reproducible random streams from one session seed.
+ * Every consumer gets its own stream (named, or per entity id), so adding a random call in one place
+ * does not shift the numbers seen everywhere else.
+ */
+public class RandomStreams {
+
+    private final long seed;
+
+    public RandomStreams(long seed) {
+        this.seed = seed;
+    }
+
+    /** Seed from -Dgameengine.seed if given, otherwise from the clock. */
+    public static long defaultSeed() {
+        return (GameConfig.FIXED_SEED != null) ? GameConfig.FIXED_SEED : System.nanoTime();
+    }
+
+    public Random stream(String name) {
+        return new Random(mix(seed ^ mix(name.hashCode())));
+    }
+
+    public Random forEntity(int entityId) {
+        return new Random(mix(seed + 0x9E3779B97F4A7C15L * (entityId + 1L)));
+    }
+
+    public long getSeed() { return seed; }
+
+    // SplitMix64 finaliser
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
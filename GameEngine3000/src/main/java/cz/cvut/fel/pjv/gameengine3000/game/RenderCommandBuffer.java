@@ -0,0 +1,88 @@
+package cz.cvut.fel.pjv.gameengine3000.game;
+
+import javafx.scene.Node;
+import javafx.scene.layout.Pane;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects scene-graph add/remove requests from any thread and applies them to the target pane in one
+ * batch per frame. Requests for the same node coalesce (the last one wins), and membership is tracked in
+ * an identity set so no {@code getChildren().contains} scans are needed.
+ * Per-tick position, visibility and animation frame changes travel in the {@link WorldSnapshot} instead.
+ */
+public class RenderCommandBuffer {
+
+    private final Pane target;
+
+    // node -> true (attach) / false (detach); insertion ordered so nodes keep their z-order
+    private Map<Node, Boolean> pending = new LinkedHashMap<>();
+    private Map<Node, Boolean> draining = new LinkedHashMap<>();
+
+    // FX thread only
+    private final Set<Node> attached = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<Node> toAdd = new ArrayList<>();
+    private final Set<Node> toRemove = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public RenderCommandBuffer(Pane target) {
+        this.target = target;
+    }
+
+    public void add(Node node) {
+        if (node == null) return;
+        synchronized (this) {
+            pending.put(node, Boolean.TRUE);
+        }
+    }
+
+    public void remove(Node node) {
+        if (node == null) return;
+        synchronized (this) {
+            pending.put(node, Boolean.FALSE);
+        }
+    }
+
+    public void removeAll(Collection<? extends Node> nodes) {
+        synchronized (this) {
+            for (Node node : nodes) {
+                if (node != null) pending.put(node, Boolean.FALSE);
+            }
+        }
+    }
+
+    /** Applies all queued changes. Must run on the JavaFX Application Thread. */
+    public void flush() {
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+            Map<Node, Boolean> swap = draining;
+            draining = pending;
+            pending = swap;
+        }
+
+        for (Map.Entry<Node, Boolean> command : draining.entrySet()) {
+            Node node = command.getKey();
+            if (command.getValue()) {
+                if (attached.add(node)) toAdd.add(node);
+            } else if (attached.remove(node)) {
+                toRemove.add(node);
+            }
+        }
+        draining.clear();
+
+        if (!toRemove.isEmpty()) target.getChildren().removeAll(toRemove);
+        if (!toAdd.isEmpty()) target.getChildren().addAll(toAdd);
+        toRemove.clear();
+        toAdd.clear();
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,93 @@
+package cz.cvut.fel.pjv.gameengine3000.game;
+
+import cz.cvut.fel.pjv.gameengine3000.entities.Enemies.Enemy;
+import cz.cvut.fel.pjv.gameengine3000.entities.EntityStore;
+
+import java.util.Arrays;
+
+/**
+ * Simulation level of detail for enemies, by distance to their target, the nearest living player.
+ * <ul>
+ *   <li>Near (within {@code nearRange}): simulated every tick.</li>
+ *   <li>Mid (within {@code farRange}): simulated every {@code midInterval} ticks with the time that has
+ *       passed since, staggered by slot so each tick carries an even share. The swept movement solver keeps
+ *       the larger steps from tunnelling through walls.</li>
+ *   <li>Far: dormant. Not simulated at all, time does not pass for them except for the store's timers, and
+ *       they stand still until a player comes closer.</li>
+ * </ul>
+ * An enemy moving closer simply gets its next step on the following tick, carrying the time it is owed
+ * (dormant ones owe none), so nothing jumps more than a few ticks' worth of movement.
+ * Dead enemies always run, which keeps their death animations smooth.
+ */
+public class SimulationLod {
+
+    public enum Tier { NEAR, MID, FAR }
+
+    private final double nearRangeSquared;
+    private final double farRangeSquared;
+    private final int midInterval;
+    private long tick = 0;
+
+    // Per store slot: simulated time owed, and the handle it was counted for
+    private double[] owedSeconds = new double[64];
+    private int[] owedHandle = new int[64];
+
+    private final int[] tierCounts = new int[Tier.values().length];
+
+    public SimulationLod(double nearRange, double farRange, int midInterval) {
+        this.nearRangeSquared = nearRange * nearRange;
+        this.farRangeSquared = Math.max(nearRange, farRange) * Math.max(nearRange, farRange);
+        this.midInterval = Math.max(1, midInterval);
+        Arrays.fill(owedHandle, -1);
+    }
+
+    /**
+     * Sets stepSeconds[i] for enemies[0, count) to the time to simulate them for this tick, 0 to skip them.
+     *
+     * @param targetDistanceSquared per enemy, to the nearest living player; infinite if there is none
+     */
+    void select(Enemy[] enemies, int count, double[] targetDistanceSquared, double elapsedSeconds, double[] stepSeconds) {
+        tick++;
+        Arrays.fill(tierCounts, 0);
+        for (int i = 0; i < count; i++) {
+            Enemy enemy = enemies[i];
+            int slot = EntityStore.slotOf(enemy.getHandle());
+            if (slot >= owedSeconds.length) grow(slot + 1);
+            if (owedHandle[slot] != enemy.getHandle()) {
+                owedHandle[slot] = enemy.getHandle();
+                owedSeconds[slot] = 0;
+            }
+
+            Tier tier = enemy.isAlive() ? tierOf(targetDistanceSquared[i]) : Tier.NEAR;
+            tierCounts[tier.ordinal()]++;
+            if (tier == Tier.FAR) {
+                owedSeconds[slot] = 0;
+                stepSeconds[i] = 0;
+                continue;
+            }
+            owedSeconds[slot] += elapsedSeconds;
+            if (tier == Tier.MID && (tick + slot) % midInterval != 0) {
+                stepSeconds[i] = 0;
+                continue;
+            }
+            stepSeconds[i] = owedSeconds[slot];
+            owedSeconds[slot] = 0;
+        }
+    }
+
+    /** Enemies placed in the tier by the last tick. */
+    public int getCount(Tier tier) { return tierCounts[tier.ordinal()]; }
+
+    private Tier tierOf(double distanceSquared) {
+        if (distanceSquared == Double.POSITIVE_INFINITY || distanceSquared <= nearRangeSquared) return Tier.NEAR; // nobody to measure against
+        return distanceSquared <= farRangeSquared ? Tier.MID : Tier.FAR;
+    }
+
+    private void grow(int minLength) {
+        int oldLength = owedSeconds.length;
+        int newLength = Math.max(minLength, oldLength * 2);
+        owedSeconds = Arrays.copyOf(owedSeconds, newLength);
+        owedHandle = Arrays.copyOf(owedHandle, newLength);
+        Arrays.fill(owedHandle, oldLength, newLength, -1);
+    }
+}
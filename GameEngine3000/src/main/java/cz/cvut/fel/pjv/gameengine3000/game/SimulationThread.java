@@ -0,0 +1,85 @@
+package cz.cvut.fel.pjv.gameengine3000.game;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * Runs the fixed-step simulation on its own thread so that frame pacing on the FX thread does not
+ * stall gameplay. The renderer asks for {@link #interpolationAlpha()} to blend between the last two
+ * published snapshots.
+ */
+public class SimulationThread {
+
+    private final FixedStepLoop loop;
+    private final DoubleConsumer step;
+    private final long stepNanos;
+    private volatile boolean running = false;
+    private volatile long lastStepNanos = System.nanoTime();
+    private Thread thread;
+
+    public SimulationThread(double tickRateHz, int maxStepsPerFrame, DoubleConsumer step) {
+        this.loop = new FixedStepLoop(tickRateHz, maxStepsPerFrame);
+        this.step = step;
+        this.stepNanos = (long) (loop.getStepSeconds() * 1_000_000_000L);
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        loop.reset();
+        lastStepNanos = System.nanoTime();
+        thread = new Thread(this::run, "GameSimulation");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println("SimulationThread: Started at " + Math.round(1.0 / loop.getStepSeconds()) + " Hz.");
+    }
+
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        if (thread != null && thread != Thread.currentThread()) {
+            thread.interrupt();
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        thread = null;
+        System.out.println("SimulationThread: Stopped after " + loop.getTotalSteps() + " steps.");
+    }
+
+    private void run() {
+        long last = System.nanoTime();
+        while (running) {
+            long now = System.nanoTime();
+            try {
+                loop.advance(Math.min((now - last) / 1_000_000_000.0, GameConfig.MAX_FRAME_TIME), dt -> {
+                    step.accept(dt);
+                    lastStepNanos = System.nanoTime();
+                });
+            } catch (Exception e) {
+                System.err.println("SimulationThread: Error during simulation step: " + e.getMessage());
+                e.printStackTrace();
+            }
+            last = now;
+
+            long sleepNanos = stepNanos - (System.nanoTime() - now);
+            if (sleepNanos > 0) {
+                try {
+                    Thread.sleep(sleepNanos / 1_000_000L, (int) (sleepNanos % 1_000_000L));
+                } catch (InterruptedException e) {
+                    if (!running) break;
+                }
+            }
+        }
+    }
+
+    /** Fraction of a step elapsed since the last completed step, for render interpolation. */
+    public double interpolationAlpha() {
+        double alpha = (System.nanoTime() - lastStepNanos) / (double) stepNanos;
+        return Math.max(0.0, Math.min(1.0, alpha));
+    }
+
+    public boolean isRunning() { return running; }
+    public long getTotalSteps() { return loop.getTotalSteps(); }
+}
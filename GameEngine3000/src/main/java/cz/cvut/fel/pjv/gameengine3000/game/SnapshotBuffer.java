@@ -0,0 +1,41 @@
+package cz.cvut.fel.pjv.gameengine3000.game;
+
+import java.util.function.Consumer;
+
+/**
+ * Double buffer of {@link WorldSnapshot}s. The simulation fills the back buffer without locking and swaps it
+ * to the front when done; the renderer applies the front buffer under the same lock, so a published
+ * snapshot is never written while it is being read.
+ */
+public class SnapshotBuffer {
+
+    private final Object swapLock = new Object();
+    private WorldSnapshot front = new WorldSnapshot();
+    private WorldSnapshot back = new WorldSnapshot();
+    private long nextTick = 0;
+
+    /** Simulation side: fills the back buffer and publishes it. */
+    public void publish(Consumer<WorldSnapshot> writer) {
+        back.begin(nextTick++);
+        writer.accept(back);
+        back.finish();
+        synchronized (swapLock) {
+            WorldSnapshot published = back;
+            back = front;
+            front = published;
+        }
+    }
+
+    /** Render side: applies the latest published snapshot, interpolated by alpha. */
+    public void apply(double alpha) {
+        synchronized (swapLock) {
+            front.apply(Math.max(0.0, Math.min(1.0, alpha)));
+        }
+    }
+
+    public long getLatestTick() {
+        synchronized (swapLock) {
+            return front.getTick();
+        }
+    }
+}
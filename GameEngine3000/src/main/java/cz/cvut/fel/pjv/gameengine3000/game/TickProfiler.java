@@ -0,0 +1,230 @@
+package cz.cvut.fel.pjv.gameengine3000.game;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Nanosecond timings of the individual tick and frame phases.
+ * Usage: {@code long t = profiler.begin(); ...; profiler.end(Phase.X, t);}. A phase that runs in several
+ * pieces per tick adds them up with {@link #accumulate} instead and gets one sample per tick, at {@link #endTick}.
+ * The overlay shows p50/p99/max over a rolling window of the last samples. Independently, every phase feeds
+ * a log-linear histogram that is turned into one CSV row (p50/p99/max plus entity counts) per simulated
+ * second; {@link #dumpCsv()} writes those rows out so regressions show up as entity counts grow.
+ */
+public class TickProfiler {
+
+    public enum Phase {
+        TICK("tick"),
+        ENTITIES("entities"),
+        NETWORK("network"),
+        SPAWN("spawn"),
+        COLLISIONS("collisions"),
+        CLEANUP("cleanup"),
+        SNAPSHOT("snapshot"),
+        RENDER("render"),
+        UI("ui");
+
+        final String label;
+        Phase(String label) { this.label = label; }
+    }
+
+    private static final String PROFILE_DIR = "profiles";
+    private static final int WINDOW = 600;
+    private static final int MAX_ROWS = 3600;
+
+    private final boolean enabled;
+    private final int rowIntervalTicks;
+    private final PhaseWindow[] windows = new PhaseWindow[Phase.values().length];
+    private final long[] pendingNanos = new long[Phase.values().length]; // accumulated this tick, -1 if none
+    private final List<long[]> rows = new ArrayList<>(); // tick, enemies, projectiles, then p50/p99/max nanos per phase
+    private long ticks = 0;
+
+    public TickProfiler(boolean enabled, int rowIntervalTicks) {
+        this.enabled = enabled;
+        this.rowIntervalTicks = Math.max(1, rowIntervalTicks);
+        for (int i = 0; i < windows.length; i++) windows[i] = new PhaseWindow();
+        Arrays.fill(pendingNanos, -1);
+    }
+
+    public long begin() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public void end(Phase phase, long startNanos) {
+        if (!enabled) return;
+        windows[phase.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    /** Adds to this tick's time of a phase that runs in several pieces; recorded as one sample at {@link #endTick}. */
+    public void accumulate(Phase phase, long startNanos) {
+        if (!enabled) return;
+        long nanos = System.nanoTime() - startNanos;
+        int i = phase.ordinal();
+        pendingNanos[i] = (pendingNanos[i] < 0) ? nanos : pendingNanos[i] + nanos;
+    }
+
+    /**
+     * Marks the end of a simulation tick: records the accumulated phases, and every {@code rowIntervalTicks}
+     * a CSV row is captured.
+     */
+    public void endTick(int enemies, int projectiles) {
+        if (!enabled) return;
+        for (int i = 0; i < pendingNanos.length; i++) {
+            if (pendingNanos[i] < 0) continue;
+            windows[i].record(pendingNanos[i]);
+            pendingNanos[i] = -1;
+        }
+        ticks++;
+        if (ticks % rowIntervalTicks != 0) return;
+
+        long[] row = new long[3 + windows.length * 3];
+        row[0] = ticks;
+        row[1] = enemies;
+        row[2] = projectiles;
+        for (int i = 0; i < windows.length; i++) {
+            windows[i].drainInterval(row, 3 + i * 3);
+        }
+        synchronized (rows) {
+            if (rows.size() >= MAX_ROWS) rows.remove(0);
+            rows.add(row);
+        }
+    }
+
+    /** Multi-line p50/p99/max summary in microseconds, for the in-game overlay. */
+    public String formatSummary() {
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "%-11s %8s %8s %8s%n", "phase [us]", "p50", "p99", "max"));
+        long[] scratch = new long[WINDOW];
+        for (Phase phase : Phase.values()) {
+            int n = windows[phase.ordinal()].copyTo(scratch);
+            sb.append(String.format(Locale.ROOT, "%-11s %8s %8s %8s%n", phase.label,
+                    micros(percentile(scratch, n, 0.50)), micros(percentile(scratch, n, 0.99)),
+                    micros(n > 0 ? scratch[n - 1] : 0)));
+        }
+        return sb.toString();
+    }
+
+    /** Writes the collected rows to profiles/tick-profile-&lt;timestamp&gt;.csv. Returns the file, or null if nothing was written. */
+    public File dumpCsv() {
+        List<long[]> copy;
+        synchronized (rows) {
+            if (rows.isEmpty()) return null;
+            copy = new ArrayList<>(rows);
+        }
+        new File(PROFILE_DIR).mkdirs();
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File file = new File(PROFILE_DIR, "tick-profile-" + stamp + ".csv");
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            StringBuilder header = new StringBuilder("tick,enemies,projectiles");
+            for (Phase phase : Phase.values()) {
+                header.append(',').append(phase.label).append("_p50_us")
+                      .append(',').append(phase.label).append("_p99_us")
+                      .append(',').append(phase.label).append("_max_us");
+            }
+            out.println(header);
+            for (long[] row : copy) {
+                StringBuilder line = new StringBuilder();
+                line.append(row[0]).append(',').append(row[1]).append(',').append(row[2]);
+                for (int i = 3; i < row.length; i++) line.append(',').append(micros(row[i]));
+                out.println(line);
+            }
+            System.out.println("TickProfiler: Wrote " + copy.size() + " rows to " + file.getAbsolutePath());
+            return file;
+        } catch (IOException e) {
+            System.err.println("TickProfiler: Error writing " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    private static long percentile(long[] sorted, int n, double p) {
+        if (n == 0) return 0;
+        int index = (int) Math.ceil(p * n) - 1;
+        return sorted[Math.max(0, Math.min(n - 1, index))];
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1000.0);
+    }
+
+    // Log-linear buckets: exact below 16 ns, then 8 sub-buckets per power of two (<= 12.5 % error).
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKETS = 8;
+    private static final int HISTOGRAM_SIZE = LINEAR_BUCKETS + (63 - 4) * SUB_BUCKETS;
+
+    private static int bucketOf(long nanos) {
+        if (nanos < LINEAR_BUCKETS) return (int) Math.max(0, nanos);
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+
+    private static long bucketMidpoint(int bucket) {
+        if (bucket < LINEAR_BUCKETS) return bucket;
+        int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+        int sub = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + sub) << (exponent - 3);
+        return lower + (1L << (exponent - 4));
+    }
+
+    private static class PhaseWindow {
+        private final long[] samples = new long[WINDOW];
+        private int next = 0;
+        private int size = 0;
+
+        private final int[] histogram = new int[HISTOGRAM_SIZE];
+        private int intervalCount = 0;
+        private long intervalMax = 0;
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % WINDOW;
+            if (size < WINDOW) size++;
+
+            histogram[bucketOf(nanos)]++;
+            intervalCount++;
+            if (nanos > intervalMax) intervalMax = nanos;
+        }
+
+        /** Writes p50, p99 and max of the samples since the last call into target[offset..offset+2] and resets. */
+        synchronized void drainInterval(long[] target, int offset) {
+            target[offset] = 0;
+            target[offset + 1] = 0;
+            target[offset + 2] = intervalMax;
+            if (intervalCount > 0) {
+                long p50Rank = (long) Math.ceil(intervalCount * 0.50);
+                long p99Rank = (long) Math.ceil(intervalCount * 0.99);
+                long seen = 0;
+                boolean p50Done = false;
+                for (int b = 0; b < HISTOGRAM_SIZE; b++) {
+                    if (histogram[b] == 0) continue;
+                    seen += histogram[b];
+                    if (!p50Done && seen >= p50Rank) { target[offset] = Math.min(bucketMidpoint(b), intervalMax); p50Done = true; }
+                    if (seen >= p99Rank) { target[offset + 1] = Math.min(bucketMidpoint(b), intervalMax); break; }
+                }
+                Arrays.fill(histogram, 0);
+            }
+            intervalCount = 0;
+            intervalMax = 0;
+        }
+
+        /** Copies the window into target sorted ascending and returns the sample count. */
+        int copyTo(long[] target) {
+            int n;
+            synchronized (this) {
+                n = size;
+                System.arraycopy(samples, 0, target, 0, n);
+            }
+            Arrays.sort(target, 0, n);
+            return n;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package cz.cvut.fel.pjv.gameengine3000.game;
+
+import java.util.Random;
+
+/**
+ * Spawns enemies in waves on the authoritative peer. A wave only queues its enemies; each tick at most
+ * {@code spawnsPerTick} of them are created, so a wave of hundreds fades in over a few seconds instead of
+ * stalling the tick it starts on. The pools the wave will need are warmed {@link #WARM_LEAD_SECONDS}
+ * before it starts, while the previous one is still being fought.
+ * <p>
+ * Waves arrive every {@code waveInterval} seconds (none if it is 0), and more can be queued with
+ * {@link #queueWave}. Spawning pauses while {@code maxEnemies} are alive and resumes as they die.
+ */
+public class WaveDirector {
+
+    public static final double WARM_LEAD_SECONDS = 2.0;
+
+    private final double waveInterval;
+    private final int waveSize;
+    private final int spawnsPerTick;
+    private final int maxEnemies;
+
+    private double timeToNextWave;
+    private int pendingSpawns = 0;
+    private int warmedFor = 0; // enemy count the pools were last warmed for
+    private int wavesStarted = 0;
+    private int spawnedLastTick = 0;
+
+    public WaveDirector(double waveInterval, int waveSize, int spawnsPerTick, int maxEnemies) {
+        this.waveInterval = waveInterval;
+        this.waveSize = Math.max(0, waveSize);
+        this.spawnsPerTick = Math.max(1, spawnsPerTick);
+        this.maxEnemies = Math.max(0, maxEnemies);
+        this.timeToNextWave = waveInterval;
+    }
+
+    /** Adds enemyCount spawns to the queue; they start on the next tick, after the pools are warmed for them. */
+    public void queueWave(int enemyCount) {
+        if (enemyCount <= 0) return;
+        pendingSpawns += enemyCount;
+        wavesStarted++;
+    }
+
+    public void update(double elapsedSeconds, EntityManager entityManager, double screenWidth, double screenHeight, Random random) {
+        int alive = entityManager.getNetworkedEnemies().size();
+        if (waveInterval > 0) {
+            timeToNextWave -= elapsedSeconds;
+            if (timeToNextWave <= WARM_LEAD_SECONDS) warm(entityManager, alive + pendingSpawns + waveSize);
+            if (timeToNextWave <= 0) {
+                queueWave(waveSize);
+                timeToNextWave += waveInterval;
+            }
+        }
+
+        spawnedLastTick = 0;
+        if (pendingSpawns == 0) return;
+        warm(entityManager, alive + pendingSpawns); // no-op for scheduled waves, warmed during the lead
+        int spawns = Math.min(pendingSpawns, Math.min(spawnsPerTick, maxEnemies - alive));
+        for (int i = 0; i < spawns; i++) {
+            if (!entityManager.spawnHostControlledEnemy(screenWidth, screenHeight, random)) break;
+            spawnedLastTick++;
+        }
+        pendingSpawns -= spawnedLastTick;
+    }
+
+    /** Drops queued spawns and restarts the wave timer, e.g. when a new game starts. */
+    public void reset() {
+        pendingSpawns = 0;
+        warmedFor = 0;
+        timeToNextWave = waveInterval;
+    }
+
+    private void warm(EntityManager entityManager, int enemyCount) {
+        enemyCount = Math.min(enemyCount, maxEnemies);
+        if (enemyCount <= warmedFor) return;
+        entityManager.warmEnemyPools(enemyCount);
+        warmedFor = enemyCount;
+    }
+
+    public int getPendingSpawns() { return pendingSpawns; }
+    public int getWavesStarted() { return wavesStarted; }
+    public int getSpawnedLastTick() { return spawnedLastTick; }
+    public double getTimeToNextWave() { return timeToNextWave; }
+}
@@ -0,0 +1,107 @@
+package cz.cvut.fel.pjv.gameengine3000.game;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Node;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.shape.Circle;
+
+import java.util.Arrays;
+
+/**
+ * Render-side copy of everything the FX thread needs to place entity nodes for one simulation step.
+ * Filled by the simulation thread, then handed over through {@link SnapshotBuffer} and only read afterwards.
+ */
+public class WorldSnapshot {
+
+    private int count = 0;
+    private long tick = 0;
+    private long publishedNanos = 0;
+
+    private Node[] nodes = new Node[64];
+    private double[] prevX = new double[64], prevY = new double[64];
+    private double[] x = new double[64], y = new double[64];
+    private double[] offsetX = new double[64], offsetY = new double[64];
+    private boolean[] visible = new boolean[64];
+    private double[] opacity = new double[64];
+    private Image[] images = new Image[64];
+    private Rectangle2D[] viewports = new Rectangle2D[64];
+
+    void begin(long tick) {
+        Arrays.fill(nodes, 0, count, null);
+        Arrays.fill(images, 0, count, null);
+        Arrays.fill(viewports, 0, count, null);
+        this.count = 0;
+        this.tick = tick;
+    }
+
+    void finish() {
+        this.publishedNanos = System.nanoTime();
+    }
+
+    /**
+     * Records one entity node. ImageViews are positioned by their top-left corner (position minus offset),
+     * Circles by their center.
+     */
+    public void add(Node node, double prevX, double prevY, double x, double y,
+                    double offsetX, double offsetY, boolean visible, double opacity,
+                    Image image, Rectangle2D viewport) {
+        if (node == null) return;
+        ensureCapacity(count + 1);
+        int i = count++;
+        this.nodes[i] = node;
+        this.prevX[i] = prevX;
+        this.prevY[i] = prevY;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.offsetX[i] = offsetX;
+        this.offsetY[i] = offsetY;
+        this.visible[i] = visible;
+        this.opacity[i] = opacity;
+        this.images[i] = image;
+        this.viewports[i] = viewport;
+    }
+
+    /** Applies the snapshot to its nodes. Must run on the JavaFX Application Thread. */
+    void apply(double alpha) {
+        for (int i = 0; i < count; i++) {
+            Node node = nodes[i];
+            double renderX = prevX[i] + (x[i] - prevX[i]) * alpha;
+            double renderY = prevY[i] + (y[i] - prevY[i]) * alpha;
+
+            if (node instanceof ImageView view) {
+                view.setX(renderX - offsetX[i]);
+                view.setY(renderY - offsetY[i]);
+                if (images[i] != null) {
+                    if (view.getImage() != images[i]) view.setImage(images[i]);
+                    view.setViewport(viewports[i]);
+                }
+            } else if (node instanceof Circle circle) {
+                circle.setCenterX(renderX);
+                circle.setCenterY(renderY);
+            }
+            if (node.isVisible() != visible[i]) node.setVisible(visible[i]);
+            if (node.getOpacity() != opacity[i]) node.setOpacity(opacity[i]);
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= nodes.length) return;
+        int newCapacity = Math.max(required, nodes.length * 2);
+        nodes = Arrays.copyOf(nodes, newCapacity);
+        prevX = Arrays.copyOf(prevX, newCapacity);
+        prevY = Arrays.copyOf(prevY, newCapacity);
+        x = Arrays.copyOf(x, newCapacity);
+        y = Arrays.copyOf(y, newCapacity);
+        offsetX = Arrays.copyOf(offsetX, newCapacity);
+        offsetY = Arrays.copyOf(offsetY, newCapacity);
+        visible = Arrays.copyOf(visible, newCapacity);
+        opacity = Arrays.copyOf(opacity, newCapacity);
+        images = Arrays.copyOf(images, newCapacity);
+        viewports = Arrays.copyOf(viewports, newCapacity);
+    }
+
+    public int getCount() { return count; }
+    public long getTick() { return tick; }
+    public long getPublishedNanos() { return publishedNanos; }
+}
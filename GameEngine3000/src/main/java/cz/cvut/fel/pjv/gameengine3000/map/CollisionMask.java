@@ -0,0 +1,83 @@
+package cz.cvut.fel.pjv.gameengine3000.map;
+
+/**
+ * Tile passability packed into a bit grid, one bit per tile (set = blocked), each row padded to whole
+ * {@code long} words. Built when the map is loaded; afterwards it only changes through
+ * {@link #setBlocked}, between ticks, so it can be queried from any thread while the simulation runs.
+ * <p>
+ * A rectangle query tests each row it covers with at most a couple of masked word compares instead of
+ * one lookup per tile. Everything outside the map counts as blocked.
+ */
+public final class CollisionMask {
+
+    private final int widthTiles;
+    private final int heightTiles;
+    private final int wordsPerRow;
+    private final long[] words;
+
+    public CollisionMask(int widthTiles, int heightTiles) {
+        this.widthTiles = Math.max(0, widthTiles);
+        this.heightTiles = Math.max(0, heightTiles);
+        this.wordsPerRow = (this.widthTiles + 63) >>> 6;
+        this.words = new long[wordsPerRow * this.heightTiles];
+    }
+
+    /** Marks a tile as blocked; only used while the map is being compiled. */
+    void block(int tileX, int tileY) {
+        if (!inBounds(tileX, tileY)) return;
+        words[tileY * wordsPerRow + (tileX >>> 6)] |= 1L << tileX;
+    }
+
+    /**
+     * Opens or closes a tile at runtime. Must not race with queries; everything derived from the mask
+     * (path graphs, flow fields, spawn places) has to be told as well, see {@code EntityManager.setTileBlocked}.
+     */
+    public void setBlocked(int tileX, int tileY, boolean blocked) {
+        if (!inBounds(tileX, tileY)) return;
+        if (blocked) block(tileX, tileY);
+        else words[tileY * wordsPerRow + (tileX >>> 6)] &= ~(1L << tileX);
+    }
+
+    public boolean isBlocked(int tileX, int tileY) {
+        if (!inBounds(tileX, tileY)) return true;
+        return (words[tileY * wordsPerRow + (tileX >>> 6)] & (1L << tileX)) != 0;
+    }
+
+    /** Whether every tile in the inclusive range [minTileX, maxTileX] x [minTileY, maxTileY] is passable. */
+    public boolean isAreaFree(int minTileX, int minTileY, int maxTileX, int maxTileY) {
+        if (minTileX < 0 || minTileY < 0 || maxTileX >= widthTiles || maxTileY >= heightTiles) return false;
+        if (minTileX > maxTileX || minTileY > maxTileY) return true;
+
+        int firstWord = minTileX >>> 6, lastWord = maxTileX >>> 6;
+        long firstMask = -1L << minTileX;           // shifts use the low 6 bits only
+        long lastMask = -1L >>> (63 - (maxTileX & 63));
+        if (firstWord == lastWord) {
+            long mask = firstMask & lastMask;
+            for (int row = minTileY * wordsPerRow + firstWord, end = maxTileY * wordsPerRow + firstWord; row <= end; row += wordsPerRow) {
+                if ((words[row] & mask) != 0) return false;
+            }
+            return true;
+        }
+        for (int y = minTileY; y <= maxTileY; y++) {
+            int base = y * wordsPerRow;
+            long hits = (words[base + firstWord] & firstMask) | (words[base + lastWord] & lastMask);
+            for (int w = firstWord + 1; w < lastWord; w++) hits |= words[base + w];
+            if (hits != 0) return false;
+        }
+        return true;
+    }
+
+    /** Number of blocked tiles, for diagnostics. */
+    public int countBlocked() {
+        int count = 0;
+        for (long word : words) count += Long.bitCount(word);
+        return count;
+    }
+
+    public int getWidthTiles() { return widthTiles; }
+    public int getHeightTiles() { return heightTiles; }
+
+    private boolean inBounds(int tileX, int tileY) {
+        return tileX >= 0 && tileY >= 0 && tileX < widthTiles && tileY < heightTiles;
+    }
+}
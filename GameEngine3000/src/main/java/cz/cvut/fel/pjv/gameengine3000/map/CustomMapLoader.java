@@ -1,5 +1,6 @@
 package cz.cvut.fel.pjv.gameengine3000.map; // Adjust package if needed
 
+import cz.cvut.fel.pjv.gameengine3000.physics.SweptAabbSolver;
 import cz.cvut.fel.pjv.gameengine3000.utils.AssetManager;
 import cz.cvut.fel.pjv.gameengine3000.utils.SpriteSheet; // Assuming this helper exists
 import javafx.scene.image.Image;
@@ -13,13 +14,16 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap; // Preserves layer order
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Loads and manages a custom layered map from a .map text file.
  * Uses DEFINE_SHEET directives and an AssetManager to handle multiple spritesheets.
+ * Without an AssetManager only the tile data is loaded (headless simulation), no visuals are built.
  */
 public class CustomMapLoader {
 
@@ -30,7 +34,7 @@ public class CustomMapLoader {
         double[][][] gridData; // Initialized later
         final int widthTiles;  // Final dimensions in tiles
         final int heightTiles;
-        final Pane visualPane; // JavaFX Pane holding visuals for this layer
+        Pane visualPane; // JavaFX Pane holding visuals for this layer, created with the visuals
 
         MapLayerData(String name, int widthTiles, int heightTiles) {
             this.name = name;
@@ -38,41 +42,44 @@ public class CustomMapLoader {
             this.heightTiles = heightTiles;
             // Initialize gridData with final dimensions. Default 0 means empty/no sheet.
             this.gridData = new double[heightTiles][widthTiles][3];
-            this.visualPane = new Pane();
         }
     }
 
     private final AssetManager assetManager;
     // Store SpriteSheet objects directly, mapped by ID defined in the map file
     private final Map<Integer, SpriteSheet> spriteSheets;
+    private final Set<Integer> definedSheetIds; // Sheet IDs declared by the map, also known when headless
     private final Map<String, MapLayerData> layersByName; // Access layers by name
     private final List<MapLayerData> layersInOrder; // Keep render order
-    private final Pane mapContainerPane; // Parent pane holding all layer panes
+    private final Pane mapContainerPane; // Parent pane holding all layer panes, null when headless
 
     private int mapWidthTiles = 0; // Use int for tile counts
     private int mapHeightTiles = 0;
     private double baseTileWidth = 32; // Default, can be overridden by first sheet
     private double baseTileHeight = 32;
+    private CollisionMask collisionMask = new CollisionMask(0, 0); // Compiled from the collision layer after loading
+    private SweptAabbSolver movementSolver;
+    private GridRaycaster raycaster;
 
     /**
      * Loads the map layout and initializes tileset handlers.
      * @param mapResourcePath Path to the custom .map file (e.g., "/maps/level1.map").
-     * @param assetManager Shared AssetManager instance.
+     * @param assetManager Shared AssetManager instance, or null to load only the tile data.
      */
     public CustomMapLoader(String mapResourcePath, AssetManager assetManager) {
-        if (assetManager == null) throw new IllegalArgumentException("AssetManager cannot be null.");
         this.assetManager = assetManager;
         this.spriteSheets = new HashMap<>();
+        this.definedSheetIds = new HashSet<>();
         this.layersByName = new LinkedHashMap<>(); // Use LinkedHashMap to preserve layer order
         this.layersInOrder = new ArrayList<>();
-        this.mapContainerPane = new Pane();
+        this.mapContainerPane = (assetManager != null) ? new Pane() : null;
 
         try {
             loadMapFile(mapResourcePath);
-            if (!layersInOrder.isEmpty()) { // Only create visuals if layers were loaded
-                createVisuals();
-            } else {
+            if (layersInOrder.isEmpty()) {
                 System.err.println("CustomMapLoader: No layers were loaded from the map file.");
+            } else if (mapContainerPane != null) { // Only create visuals if layers were loaded
+                createVisuals();
             }
         } catch (Exception e) {
             System.err.println("CustomMapLoader: FATAL error loading map: " + e.getMessage());
@@ -140,9 +147,12 @@ public class CustomMapLoader {
             mapWidthTiles = Math.max(mapWidthTiles, layer.widthTiles);
             mapHeightTiles = Math.max(mapHeightTiles, layer.heightTiles);
         }
-        if (mapWidthTiles > 0 && mapHeightTiles > 0) {
+        if (mapWidthTiles > 0 && mapHeightTiles > 0 && mapContainerPane != null) {
             mapContainerPane.setPrefSize(mapWidthTiles * baseTileWidth, mapHeightTiles * baseTileHeight);
         }
+        collisionMask = compileCollisionMask();
+        movementSolver = new SweptAabbSolver(collisionMask, baseTileWidth, baseTileHeight);
+        raycaster = new GridRaycaster(collisionMask, baseTileWidth, baseTileHeight);
         System.out.println("CustomMapLoader: Map loading finished. Dimensions: " + mapWidthTiles + "x" + mapHeightTiles + " tiles.");
     }
 
@@ -158,9 +168,12 @@ public class CustomMapLoader {
                 if (w <= 0 || h <= 0) throw new IllegalArgumentException("Sheet dimensions must be positive.");
 
                 // Create SpriteSheet wrapper, AssetManager handles actual loading
-                spriteSheets.put(id, new SpriteSheet(assetManager, path, w, h));
+                if (assetManager != null) {
+                    spriteSheets.put(id, new SpriteSheet(assetManager, path, w, h));
+                }
+                definedSheetIds.add(id);
                 System.out.println("  Defined Sheet ID " + id + " -> " + path + " (" + w + "x" + h + ")");
-                if (spriteSheets.size() == 1) { // Use first sheet for base tile size
+                if (definedSheetIds.size() == 1) { // Use first sheet for base tile size
                     baseTileWidth = w;
                     baseTileHeight = h;
                     System.out.println("  Base tile size set to: " + w + "x" + h);
@@ -215,7 +228,7 @@ public class CustomMapLoader {
                         int sheetId = Integer.parseInt(idParts[0]);
                         int col = Integer.parseInt(idParts[1]);
                         int row = Integer.parseInt(idParts[2]);
-                        if (spriteSheets.containsKey(sheetId)) { // Check if sheet ID is valid
+                        if (definedSheetIds.contains(sheetId)) { // Check if sheet ID is valid
                             // Store parsed data in the grid
                             finalizedLayer.gridData[y][x][0] = sheetId;
                             finalizedLayer.gridData[y][x][1] = col;
@@ -242,6 +255,7 @@ public class CustomMapLoader {
 
         for (MapLayerData layer : layersInOrder) { // Render using the ordered list
             System.out.println("  Rendering layer: " + layer.name);
+            if (layer.visualPane == null) layer.visualPane = new Pane();
             layer.visualPane.getChildren().clear(); // Clear previous visuals for this layer's pane
 
             for (int y = 0; y < layer.heightTiles; y++) {
@@ -284,6 +298,7 @@ public class CustomMapLoader {
 
     /** Adds the map visuals (all layers) to the specified root Pane on the JavaFX thread. */
     public void addToScene(Pane root) {
+        if (mapContainerPane == null) return;
         Platform.runLater(() -> {
             if (!root.getChildren().contains(mapContainerPane)) {
                 root.getChildren().add(0, mapContainerPane); // Add behind other game elements
@@ -293,6 +308,7 @@ public class CustomMapLoader {
 
     /** Removes map visuals from the specified root Pane on the JavaFX thread. */
     public void removeFromScene(Pane root) {
+        if (mapContainerPane == null) return;
         Platform.runLater(() -> {
             root.getChildren().remove(mapContainerPane);
         });
@@ -306,33 +322,7 @@ public class CustomMapLoader {
      * @return true if the tile is passable, false otherwise.
      */
     public boolean isPassable(int gridX, int gridY) { // Changed parameters to int
-        // Check overall map boundaries first
-        if (gridX < 0 || gridX >= mapWidthTiles || gridY < 0 || gridY >= mapHeightTiles) {
-            // System.out.println("Check Passable ("+gridX+","+gridY+"): Out of map bounds -> false"); // DEBUG
-            return false; // Outside map bounds is not passable
-        }
-
-        // Look for a specific layer defining collisions
-        MapLayerData collisionLayer = layersByName.get("collision");
-        if (collisionLayer == null) {
-            collisionLayer = layersByName.get("walls"); // Fallback name check
-        }
-        // Add more potential collision layer names if needed
-
-        if (collisionLayer != null) {
-            // Check if the coordinate is within the collision layer's specific grid
-            if (gridX >= collisionLayer.widthTiles || gridY >= collisionLayer.heightTiles) {
-                // System.out.println("Check Passable ("+gridX+","+gridY+"): Outside collision layer '" + collisionLayer.name + "' -> true"); // DEBUG
-                return true; // Outside this specific layer's defined grid means passable by default
-            }
-            // Passable IF AND ONLY IF the tile index is 0 (empty) on the collision layer
-            boolean hasBlockingTile = collisionLayer.gridData[gridY][gridX][0] > 0;
-            // System.out.println("Check Passable ("+gridX+","+gridY+"): Collision layer '" + collisionLayer.name + "' has tile? " + hasBlockingTile + " -> " + !hasBlockingTile); // DEBUG
-            return !hasBlockingTile;
-        }
-
-        // System.out.println("Check Passable ("+gridX+","+gridY+"): No collision layer found -> true"); // DEBUG
-        return true; // Default passable if no specific collision layer exists
+        return !collisionMask.isBlocked(gridX, gridY);
     }
 
     /**
@@ -353,34 +343,57 @@ public class CustomMapLoader {
 
     /**
      * Checks if a rectangular area defined by pixel coordinates is passable.
-     * It checks the four corner points of the rectangle. A more robust check
-     * might involve checking all tiles the rectangle overlaps.
+     * Every tile the rectangle touches, edges included, must be passable.
      * @param pixelX Top-left X coordinate of the area in pixels.
      * @param pixelY Top-left Y coordinate of the area in pixels.
      * @param width Width of the area in pixels.
      * @param height Height of the area in pixels.
-     * @return true if all corner points are on passable tiles, false otherwise.
+     * @return true if all covered tiles are passable, false otherwise.
      */
     public boolean isAreaPassable(double pixelX, double pixelY, double width, double height) {
-        // Check the four corners of the bounding box
-        boolean topLeftPassable = isPassablePixel(pixelX, pixelY);
-        boolean topRightPassable = isPassablePixel(pixelX + width, pixelY);
-        boolean bottomLeftPassable = isPassablePixel(pixelX, pixelY + height);
-        boolean bottomRightPassable = isPassablePixel(pixelX + width, pixelY + height);
+        if (baseTileWidth <= 0 || baseTileHeight <= 0) {
+            System.err.println("Warning: Cannot check pixel passability with invalid tile dimensions.");
+            return false;
+        }
+        return collisionMask.isAreaFree(
+                (int) Math.floor(pixelX / baseTileWidth), (int) Math.floor(pixelY / baseTileHeight),
+                (int) Math.floor((pixelX + width) / baseTileWidth), (int) Math.floor((pixelY + height) / baseTileHeight));
+    }
 
-        // Consider adding center point check?
-        // boolean centerPassable = isPassablePixel(pixelX + width / 2.0, pixelY + height / 2.0);
+    /**
+     * Compiles the layer named "collision" (or "walls") into the bit mask behind the passability queries.
+     * Tiles outside that layer's grid but inside the map stay passable; without such a layer everything is.
+     */
+    private CollisionMask compileCollisionMask() {
+        CollisionMask mask = new CollisionMask(mapWidthTiles, mapHeightTiles);
+        MapLayerData collisionLayer = layersByName.get("collision");
+        if (collisionLayer == null) {
+            collisionLayer = layersByName.get("walls"); // Fallback name check
+        }
+        if (collisionLayer == null) return mask;
 
-        return topLeftPassable && topRightPassable && bottomLeftPassable && bottomRightPassable; //&& centerPassable;
+        for (int y = 0; y < collisionLayer.heightTiles; y++) {
+            for (int x = 0; x < collisionLayer.widthTiles; x++) {
+                if (collisionLayer.gridData[y][x][0] > 0) mask.block(x, y);
+            }
+        }
+        System.out.println("CustomMapLoader: Collision mask compiled from layer '" + collisionLayer.name + "', "
+                + mask.countBlocked() + " blocked tiles.");
+        return mask;
     }
 
-
     // --- Getters ---
     public double getTileWidth() { return baseTileWidth; }
     public double getTileHeight() { return baseTileHeight; }
     public int getMapWidthTiles() { return mapWidthTiles; } // Return int
     public int getMapHeightTiles() { return mapHeightTiles; } // Return int
-    /** Gets the parent Pane containing all individual layer Panes. Add this to your scene. */
+    /** Passability bits of the collision layer, one per tile; changed at runtime only via EntityManager.setTileBlocked. */
+    public CollisionMask getCollisionMask() { return collisionMask; }
+    /** Shared swept-box movement against the collision layer, used by players and enemies alike. */
+    public SweptAabbSolver getMovementSolver() { return movementSolver; }
+    /** Line-of-sight queries against the collision layer. */
+    public GridRaycaster getRaycaster() { return raycaster; }
+    /** Gets the parent Pane containing all individual layer Panes. Add this to your scene. Null when headless. */
     public Pane getMapContainerPane() { return mapContainerPane; }
 
 }
@@ -0,0 +1,282 @@
+package cz.cvut.fel.pjv.gameengine3000.map;
+
+import cz.cvut.fel.pjv.gameengine3000.physics.Vec2;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Every place an entity of a given size can stand on the collision mask, for spawning. An entity's box,
+ * placed with its top-left corner inside tile (x, y), covers at most a fixed block of tiles starting there
+ * (its footprint); the index keeps, per footprint size, the list of anchor tiles whose whole block is free.
+ * <p>
+ * The lists are built with a summed-area table the first time a size is asked for, which
+ * {@link #prepare} moves to map load. Each list doubles as a set (position per anchor), so
+ * {@link #tileChanged} patches only the anchors around the tile. The anchors are also counted in
+ * Fenwick trees, a 2-d one over the map and one per row, so a uniform pick among the anchors within
+ * the spawn bounds (a rectangle from the map origin) takes O(log width * log height) however small a
+ * part of the map the bounds cover.
+ * Like the mask, it must not be queried while it is being changed.
+ */
+public class SpawnIndex {
+
+    // Random picks within the bounds before falling back to a scan of the whole list
+    private static final int SAMPLE_TRIES = 8;
+
+    private final CollisionMask mask;
+    private final double tileWidth;
+    private final double tileHeight;
+    private final int widthTiles;
+    private final int heightTiles;
+    private final Map<Long, Footprint> footprints = new HashMap<>();
+
+    public SpawnIndex(CollisionMask mask, double tileWidth, double tileHeight) {
+        this.mask = mask;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.widthTiles = mask.getWidthTiles();
+        this.heightTiles = mask.getHeightTiles();
+    }
+
+    /** Builds the anchor list for entities of this size now rather than on the first spawn. */
+    public void prepare(double width, double height) {
+        footprint(width, height);
+    }
+
+    /** Number of places an entity of this size fits. */
+    public int countFree(double width, double height) {
+        return footprint(width, height).count;
+    }
+
+    /**
+     * Picks a place for an entity of the given size, uniformly among those whose box lies within
+     * [0, maxX] x [0, maxY] and whose centre is at least minDistance from every avoided point (up to a tile).
+     * If no place is that far away, takes the one furthest from the avoided points. Only fails when the
+     * entity fits nowhere within the bounds.
+     *
+     * @param avoidX positions to keep away from, the first avoidCount entries
+     * @param out    receives the centre of the entity
+     */
+    public boolean sample(double width, double height, double maxX, double maxY, double minDistance,
+                          double[] avoidX, double[] avoidY, int avoidCount, Random random, Vec2 out) {
+        Footprint footprint = footprint(width, height);
+        int lastColumn = lastFitting(maxX, width, tileWidth, widthTiles);
+        int lastRow = lastFitting(maxY, height, tileHeight, heightTiles);
+        if (lastColumn < 0 || lastRow < 0) return false;
+        int inBounds = footprint.countWithin(lastColumn, lastRow);
+        if (inBounds == 0) return false;
+        double minDistanceSquared = minDistance * minDistance;
+
+        for (int t = 0; t < SAMPLE_TRIES; t++) {
+            int anchor = footprint.nthWithin(random.nextInt(inBounds), lastColumn, lastRow);
+            if (nearestSquared(anchor, width, height, avoidX, avoidY, avoidCount) >= minDistanceSquared) {
+                place(footprint, anchor, width, height, maxX, maxY, random, out);
+                return true;
+            }
+        }
+
+        // Most of the bounds are next to an avoided point: pick uniformly among the places far enough away
+        // (reservoir sampling), or take the furthest one if there are none
+        int chosen = -1, farEnough = 0;
+        int furthest = -1;
+        double furthestDistanceSquared = -1;
+        for (int k = 0; k < footprint.count; k++) {
+            int anchor = footprint.anchors[k];
+            if (!fits(anchor, width, height, maxX, maxY)) continue;
+            double distanceSquared = nearestSquared(anchor, width, height, avoidX, avoidY, avoidCount);
+            if (distanceSquared >= minDistanceSquared) {
+                if (random.nextInt(++farEnough) == 0) chosen = anchor;
+            } else if (distanceSquared > furthestDistanceSquared) {
+                furthest = anchor;
+                furthestDistanceSquared = distanceSquared;
+            }
+        }
+        place(footprint, (farEnough > 0) ? chosen : furthest, width, height, maxX, maxY, random, out);
+        return true;
+    }
+
+    /**
+     * Centre y of a free place in the column of tiles under centerX, the first found going down from
+     * preferredY and then up from it; NaN if the column has none.
+     */
+    public double findFreeY(double width, double height, double centerX, double preferredY) {
+        Footprint footprint = footprint(width, height);
+        int anchorX = (int) Math.floor((centerX - width / 2.0) / tileWidth);
+        if (anchorX < 0 || anchorX >= widthTiles) return Double.NaN;
+        int preferredRow = Math.max(0, Math.min(heightTiles - 1, (int) Math.floor((preferredY - height / 2.0) / tileHeight)));
+        for (int row = preferredRow; row < heightTiles; row++) {
+            if (footprint.position[row * widthTiles + anchorX] >= 0) return row * tileHeight + height / 2.0;
+        }
+        for (int row = preferredRow - 1; row >= 0; row--) {
+            if (footprint.position[row * widthTiles + anchorX] >= 0) return row * tileHeight + height / 2.0;
+        }
+        return Double.NaN;
+    }
+
+    /** Re-checks the anchors whose footprint covers the tile, after it was opened or closed. */
+    public void tileChanged(int tileX, int tileY) {
+        for (Footprint footprint : footprints.values()) {
+            for (int y = Math.max(0, tileY - footprint.tilesY + 1); y <= tileY && y < heightTiles; y++) {
+                for (int x = Math.max(0, tileX - footprint.tilesX + 1); x <= tileX && x < widthTiles; x++) {
+                    boolean free = mask.isAreaFree(x, y, x + footprint.tilesX - 1, y + footprint.tilesY - 1);
+                    if (free) footprint.add(y * widthTiles + x);
+                    else footprint.remove(y * widthTiles + x);
+                }
+            }
+        }
+    }
+
+    private Footprint footprint(double width, double height) {
+        // Tiles a box of this size can touch: the pixel queries count its far edge as inside
+        int tilesX = (int) Math.floor(width / tileWidth) + 1;
+        int tilesY = (int) Math.floor(height / tileHeight) + 1;
+        long key = ((long) tilesX << 32) | tilesY;
+        Footprint footprint = footprints.get(key);
+        if (footprint == null) {
+            footprint = build(tilesX, tilesY);
+            footprints.put(key, footprint);
+        }
+        return footprint;
+    }
+
+    private Footprint build(int tilesX, int tilesY) {
+        Footprint footprint = new Footprint(tilesX, tilesY, widthTiles, heightTiles);
+        int stride = widthTiles + 1;
+        int[] blockedSums = new int[stride * (heightTiles + 1)];
+        for (int y = 0; y < heightTiles; y++) {
+            for (int x = 0; x < widthTiles; x++) {
+                blockedSums[(y + 1) * stride + x + 1] = (mask.isBlocked(x, y) ? 1 : 0)
+                        + blockedSums[y * stride + x + 1] + blockedSums[(y + 1) * stride + x] - blockedSums[y * stride + x];
+            }
+        }
+        for (int y = 0; y + tilesY <= heightTiles; y++) {
+            for (int x = 0; x + tilesX <= widthTiles; x++) {
+                int blocked = blockedSums[(y + tilesY) * stride + x + tilesX] - blockedSums[y * stride + x + tilesX]
+                        - blockedSums[(y + tilesY) * stride + x] + blockedSums[y * stride + x];
+                if (blocked == 0) footprint.add(y * widthTiles + x);
+            }
+        }
+        return footprint;
+    }
+
+    // Last anchor column (or row) whose box of this size ends within [0, max], -1 if there is none
+    private static int lastFitting(double max, double size, double tileSize, int tiles) {
+        int last = (int) Math.min(tiles - 1, Math.floor((max - size) / tileSize));
+        while (last >= 0 && last * tileSize + size > max) last--;
+        while (last + 1 < tiles && (last + 1) * tileSize + size <= max) last++;
+        return last;
+    }
+
+    private boolean fits(int anchor, double width, double height, double maxX, double maxY) {
+        return (anchor % widthTiles) * tileWidth + width <= maxX && (anchor / widthTiles) * tileHeight + height <= maxY;
+    }
+
+    private double nearestSquared(int anchor, double width, double height, double[] avoidX, double[] avoidY, int avoidCount) {
+        double x = (anchor % widthTiles) * tileWidth + width / 2.0, y = (anchor / widthTiles) * tileHeight + height / 2.0;
+        double nearest = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < avoidCount; i++) {
+            double dx = avoidX[i] - x, dy = avoidY[i] - y;
+            nearest = Math.min(nearest, dx * dx + dy * dy);
+        }
+        return nearest;
+    }
+
+    // Anchored box plus a random offset that keeps it within the footprint's tiles and the bounds
+    private void place(Footprint footprint, int anchor, double width, double height, double maxX, double maxY, Random random, Vec2 out) {
+        double minX = (anchor % widthTiles) * tileWidth, minY = (anchor / widthTiles) * tileHeight;
+        double slackX = Math.min(footprint.tilesX * tileWidth - width, maxX - minX - width);
+        double slackY = Math.min(footprint.tilesY * tileHeight - height, maxY - minY - height);
+        double offsetX = slackX > 0 ? random.nextDouble() * slackX : 0;
+        double offsetY = slackY > 0 ? random.nextDouble() * slackY : 0;
+        out.set(minX + offsetX + width / 2.0, minY + offsetY + height / 2.0);
+    }
+
+    private static final class Footprint {
+        final int tilesX, tilesY;
+        final int columns, rows; // of the map
+        final int[] anchors;
+        final int[] position; // index into anchors per tile, -1 if not free
+        int count = 0;
+        // Fenwick trees, 1-based, with a stride of columns + 1: over (row, column), and over the columns of each row
+        final int[] areaTree;
+        final int[] rowTree;
+
+        Footprint(int tilesX, int tilesY, int columns, int rows) {
+            this.tilesX = tilesX;
+            this.tilesY = tilesY;
+            this.columns = columns;
+            this.rows = rows;
+            this.anchors = new int[columns * rows];
+            this.position = new int[columns * rows];
+            Arrays.fill(position, -1);
+            this.areaTree = new int[(rows + 1) * (columns + 1)];
+            this.rowTree = new int[rows * (columns + 1)];
+        }
+
+        void add(int anchor) {
+            if (position[anchor] >= 0) return;
+            position[anchor] = count;
+            anchors[count++] = anchor;
+            count(anchor, 1);
+        }
+
+        void remove(int anchor) {
+            int at = position[anchor];
+            if (at < 0) return;
+            int last = anchors[--count];
+            anchors[at] = last;
+            position[last] = at;
+            position[anchor] = -1;
+            count(anchor, -1);
+        }
+
+        /** Anchors in rows [0, lastRow] and columns [0, lastColumn]. */
+        int countWithin(int lastColumn, int lastRow) {
+            int total = 0;
+            for (int i = lastRow + 1; i > 0; i -= i & -i) total += columnPrefix(areaTree, i * (columns + 1), lastColumn + 1);
+            return total;
+        }
+
+        /** The anchor of rank n, 0-based, in row-major order among those in rows [0, lastRow] and columns [0, lastColumn]. */
+        int nthWithin(int n, int lastColumn, int lastRow) {
+            // Descend the row tree: each node i covers the rows (i - lowbit(i), i]
+            int row = 0;
+            for (int step = Integer.highestOneBit(rows); step > 0; step >>= 1) {
+                int next = row + step;
+                if (next > lastRow + 1) continue;
+                int inNode = columnPrefix(areaTree, next * (columns + 1), lastColumn + 1);
+                if (inNode <= n) {
+                    row = next;
+                    n -= inNode;
+                }
+            }
+            // Then the columns of that row
+            int base = row * (columns + 1), column = 0;
+            for (int step = Integer.highestOneBit(columns); step > 0; step >>= 1) {
+                int next = column + step;
+                if (next > lastColumn + 1) continue;
+                if (rowTree[base + next] <= n) {
+                    column = next;
+                    n -= rowTree[base + next];
+                }
+            }
+            return row * columns + column;
+        }
+
+        private void count(int anchor, int delta) {
+            int row = anchor / columns, column = anchor % columns;
+            for (int i = row + 1; i <= rows; i += i & -i) {
+                for (int j = column + 1; j <= columns; j += j & -j) areaTree[i * (columns + 1) + j] += delta;
+            }
+            for (int j = column + 1; j <= columns; j += j & -j) rowTree[row * (columns + 1) + j] += delta;
+        }
+
+        private static int columnPrefix(int[] tree, int base, int columnCount) {
+            int total = 0;
+            for (int j = columnCount; j > 0; j -= j & -j) total += tree[base + j];
+            return total;
+        }
+    }
+}
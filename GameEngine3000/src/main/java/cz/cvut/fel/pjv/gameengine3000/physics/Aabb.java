@@ -0,0 +1,63 @@
+package cz.cvut.fel.pjv.gameengine3000.physics;
+
+/**
+ * Mutable axis-aligned box (min corner plus size). Collision and movement code fills caller-owned
+ * instances instead of allocating a {@code Rectangle2D} per query.
+ */
+public final class Aabb {
+
+    private double minX, minY, width, height;
+
+    public Aabb() {
+    }
+
+    public Aabb(double minX, double minY, double width, double height) {
+        set(minX, minY, width, height);
+    }
+
+    public Aabb set(double minX, double minY, double width, double height) {
+        this.minX = minX;
+        this.minY = minY;
+        this.width = width;
+        this.height = height;
+        return this;
+    }
+
+    /** Sets the box from its center and half extents. */
+    public Aabb setCentered(double centerX, double centerY, double halfWidth, double halfHeight) {
+        return set(centerX - halfWidth, centerY - halfHeight, halfWidth * 2.0, halfHeight * 2.0);
+    }
+
+    public Aabb set(Aabb other) {
+        return set(other.minX, other.minY, other.width, other.height);
+    }
+
+    public Aabb translate(double dx, double dy) {
+        minX += dx;
+        minY += dy;
+        return this;
+    }
+
+    /** Open-interval overlap test, same semantics as {@code Rectangle2D.intersects}. */
+    public boolean intersects(double otherMinX, double otherMinY, double otherWidth, double otherHeight) {
+        if (width < 0 || height < 0 || otherWidth < 0 || otherHeight < 0) return false;
+        return otherMinX + otherWidth > minX && otherMinY + otherHeight > minY
+                && otherMinX < minX + width && otherMinY < minY + height;
+    }
+
+    public boolean intersects(Aabb other) {
+        return intersects(other.minX, other.minY, other.width, other.height);
+    }
+
+    public double getMinX() { return minX; }
+    public double getMinY() { return minY; }
+    public double getMaxX() { return minX + width; }
+    public double getMaxY() { return minY + height; }
+    public double getWidth() { return width; }
+    public double getHeight() { return height; }
+
+    @Override
+    public String toString() {
+        return "Aabb[" + minX + ", " + minY + ", " + width + " x " + height + "]";
+    }
+}
@@ -0,0 +1,86 @@
+package cz.cvut.fel.pjv.gameengine3000.physics;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the exact box of every id in primitive arrays; subclasses add their acceleration structure on top
+ * and use {@link #overlaps} for the final test.
+ */
+abstract class AbstractBroadphase implements Broadphase {
+
+    protected boolean[] present;
+    protected double[] minX, minY, maxX, maxY;
+    protected int size = 0;
+    protected int idLimit = 0; // ids are below this bound
+    protected double maxWidth = 0, maxHeight = 0; // largest box stored since the last clear
+
+    protected AbstractBroadphase(int expectedIds) {
+        int capacity = Math.max(16, expectedIds);
+        present = new boolean[capacity];
+        minX = new double[capacity];
+        minY = new double[capacity];
+        maxX = new double[capacity];
+        maxY = new double[capacity];
+    }
+
+    /** Records the box of id. Returns true if id was not present before. */
+    protected final boolean storeBox(int id, double boxMinX, double boxMinY, double width, double height) {
+        if (id < 0) throw new IllegalArgumentException("Negative broadphase id: " + id);
+        if (id >= present.length) growTo(Math.max(id + 1, present.length * 2));
+        if (id >= idLimit) idLimit = id + 1;
+        minX[id] = boxMinX;
+        minY[id] = boxMinY;
+        maxX[id] = boxMinX + width;
+        maxY[id] = boxMinY + height;
+        if (width > maxWidth) maxWidth = width;
+        if (height > maxHeight) maxHeight = height;
+        if (present[id]) return false;
+        present[id] = true;
+        size++;
+        return true;
+    }
+
+    /** Forgets id. Returns true if it was present. */
+    protected final boolean dropBox(int id) {
+        if (id < 0 || id >= idLimit || !present[id]) return false;
+        present[id] = false;
+        size--;
+        return true;
+    }
+
+    protected final void dropAll() {
+        Arrays.fill(present, 0, idLimit, false);
+        size = 0;
+        idLimit = 0;
+        maxWidth = 0;
+        maxHeight = 0;
+    }
+
+    protected final boolean overlaps(int id, double queryMinX, double queryMinY, double queryMaxX, double queryMaxY) {
+        return queryMaxX > minX[id] && queryMinX < maxX[id] && queryMaxY > minY[id] && queryMinY < maxY[id];
+    }
+
+    /** Grows the per-id arrays; subclasses with their own per-id state extend this. */
+    protected void growTo(int capacity) {
+        present = Arrays.copyOf(present, capacity);
+        minX = Arrays.copyOf(minX, capacity);
+        minY = Arrays.copyOf(minY, capacity);
+        maxX = Arrays.copyOf(maxX, capacity);
+        maxY = Arrays.copyOf(maxY, capacity);
+    }
+
+    @Override
+    public void reserve(int idCount) {
+        if (idCount > present.length) growTo(idCount);
+    }
+
+    @Override
+    public boolean contains(int id) {
+        return id >= 0 && id < idLimit && present[id];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,33 @@
+package cz.cvut.fel.pjv.gameengine3000.physics;
+
+/**
+ * Spatial index over boxes keyed by small non-negative integer ids (e.g. {@code EntityStore} slots), used to
+ * find overlap candidates without testing every pair.
+ * <p>
+ * Overlap is strict (touching edges do not count), the same rule as {@link Aabb#intersects}, and query
+ * results are always ascending by id, so every implementation returns exactly what a linear scan would.
+ * Updates must not run concurrently with anything else; once they are done, queries only read and may be
+ * issued from several threads at a time.
+ */
+public interface Broadphase {
+
+    /** Inserts id with the given box, or moves it there. */
+    void update(int id, double minX, double minY, double width, double height);
+
+    void remove(int id);
+
+    void clear();
+
+    /** Grows per-id storage up front so ids below idCount can be inserted without reallocating. */
+    void reserve(int idCount);
+
+    /** Replaces the contents of hits with every id whose box overlaps the rectangle, ascending. Returns the count. */
+    int query(double minX, double minY, double width, double height, HitList hits);
+
+    /** Whether any box overlaps the rectangle. */
+    boolean anyOverlap(double minX, double minY, double width, double height);
+
+    boolean contains(int id);
+
+    int size();
+}
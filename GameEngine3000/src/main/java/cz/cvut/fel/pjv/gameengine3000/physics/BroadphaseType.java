@@ -0,0 +1,41 @@
+package cz.cvut.fel.pjv.gameengine3000.physics;
+
+import java.util.Locale;
+
+/** Available {@link Broadphase} implementations, selectable by name (e.g. {@code -Dgameengine.broadphase=tree}). */
+public enum BroadphaseType {
+    GRID("grid"),
+    TREE("tree"),
+    SWEEP("sweep"),
+    BRUTE_FORCE("brute");
+
+    private final String label;
+
+    BroadphaseType(String label) {
+        this.label = label;
+    }
+
+    /** @param cellSize grid cell edge length; ignored by the other implementations */
+    public Broadphase create(double cellSize, int expectedIds) {
+        switch (this) {
+            case TREE: return new DynamicAabbTree(expectedIds);
+            case SWEEP: return new SweepAndPrune(expectedIds);
+            case BRUTE_FORCE: return new BruteForceBroadphase(expectedIds);
+            default: return new SpatialHash(cellSize, expectedIds);
+        }
+    }
+
+    public String getLabel() { return label; }
+
+    /** Parses a label or constant name, falling back to {@link #GRID} for unknown values. */
+    public static BroadphaseType fromName(String name) {
+        if (name != null) {
+            String trimmed = name.trim();
+            for (BroadphaseType type : values()) {
+                if (type.label.equalsIgnoreCase(trimmed) || type.name().equals(trimmed.toUpperCase(Locale.ROOT))) return type;
+            }
+            System.err.println("BroadphaseType: Unknown broadphase '" + name + "', using " + GRID.label + ".");
+        }
+        return GRID;
+    }
+}
@@ -0,0 +1,43 @@
+package cz.cvut.fel.pjv.gameengine3000.physics;
+
+/** Tests every stored box. The reference the other broadphases are validated against; fine for a handful of boxes. */
+public class BruteForceBroadphase extends AbstractBroadphase {
+
+    public BruteForceBroadphase(int expectedIds) {
+        super(expectedIds);
+    }
+
+    @Override
+    public void update(int id, double boxMinX, double boxMinY, double width, double height) {
+        storeBox(id, boxMinX, boxMinY, width, height);
+    }
+
+    @Override
+    public void remove(int id) {
+        dropBox(id);
+    }
+
+    @Override
+    public void clear() {
+        dropAll();
+    }
+
+    @Override
+    public int query(double queryMinX, double queryMinY, double width, double height, HitList hits) {
+        hits.clear();
+        double queryMaxX = queryMinX + width, queryMaxY = queryMinY + height;
+        for (int id = 0; id < idLimit; id++) {
+            if (present[id] && overlaps(id, queryMinX, queryMinY, queryMaxX, queryMaxY)) hits.add(id);
+        }
+        return hits.size();
+    }
+
+    @Override
+    public boolean anyOverlap(double queryMinX, double queryMinY, double width, double height) {
+        double queryMaxX = queryMinX + width, queryMaxY = queryMinY + height;
+        for (int id = 0; id < idLimit; id++) {
+            if (present[id] && overlaps(id, queryMinX, queryMinY, queryMaxX, queryMaxY)) return true;
+        }
+        return false;
+    }
+}
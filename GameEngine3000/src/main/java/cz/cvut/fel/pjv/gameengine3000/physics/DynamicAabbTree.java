@@ -0,0 +1,320 @@
+package cz.cvut.fel.pjv.gameengine3000.physics;
+
+import java.util.Arrays;
+
+/**
+ * Bounding volume hierarchy over enlarged ("fat") leaf boxes, kept balanced by AVL-style rotations.
+ * A leaf is only reinserted once its exact box leaves the fat one, so slow movers cost nothing per tick.
+ * Copes well with sparse worlds and with boxes of very different sizes.
+ */
+public class DynamicAabbTree extends AbstractBroadphase {
+
+    private static final int NONE = -1;
+    private static final double FAT_MARGIN = 8.0;
+
+    // Node pool; internal nodes have two children, leaves carry an id
+    private double[] nodeMinX, nodeMinY, nodeMaxX, nodeMaxY;
+    private int[] parent, left, right, height, nodeId;
+    private int nodeCount = 0;
+    private int freeNode = NONE; // free list threaded through parent[]
+    private int root = NONE;
+
+    private int[] leafOf; // id -> leaf node
+
+    public DynamicAabbTree(int expectedIds) {
+        super(expectedIds);
+        leafOf = new int[present.length];
+        allocateNodes(Math.max(16, expectedIds * 2));
+    }
+
+    @Override
+    public void update(int id, double boxMinX, double boxMinY, double width, double height) {
+        boolean inserted = storeBox(id, boxMinX, boxMinY, width, height);
+        int leaf;
+        if (inserted) {
+            leaf = allocateNode();
+            nodeId[leaf] = id;
+            leafOf[id] = leaf;
+        } else {
+            leaf = leafOf[id];
+            if (nodeMinX[leaf] <= minX[id] && nodeMinY[leaf] <= minY[id]
+                    && nodeMaxX[leaf] >= maxX[id] && nodeMaxY[leaf] >= maxY[id]) {
+                return; // still inside its fat box
+            }
+            removeLeaf(leaf);
+        }
+        nodeMinX[leaf] = minX[id] - FAT_MARGIN;
+        nodeMinY[leaf] = minY[id] - FAT_MARGIN;
+        nodeMaxX[leaf] = maxX[id] + FAT_MARGIN;
+        nodeMaxY[leaf] = maxY[id] + FAT_MARGIN;
+        insertLeaf(leaf);
+    }
+
+    @Override
+    public void remove(int id) {
+        if (!dropBox(id)) return;
+        int leaf = leafOf[id];
+        removeLeaf(leaf);
+        freeNode(leaf);
+    }
+
+    @Override
+    public void clear() {
+        dropAll();
+        root = NONE;
+        nodeCount = 0;
+        freeNode = NONE;
+    }
+
+    @Override
+    public int query(double queryMinX, double queryMinY, double width, double height, HitList hits) {
+        hits.clear();
+        if (root != NONE) collect(root, queryMinX, queryMinY, queryMinX + width, queryMinY + height, hits);
+        hits.sort();
+        return hits.size();
+    }
+
+    @Override
+    public boolean anyOverlap(double queryMinX, double queryMinY, double width, double height) {
+        return root != NONE && anyIn(root, queryMinX, queryMinY, queryMinX + width, queryMinY + height);
+    }
+
+    /** Height of the tree, 0 when empty or a single leaf. */
+    public int getHeight() {
+        return root == NONE ? 0 : height[root];
+    }
+
+    // Recursion depth is bounded by the tree height, which the rotations keep logarithmic.
+    private void collect(int node, double qMinX, double qMinY, double qMaxX, double qMaxY, HitList hits) {
+        if (nodeMaxX[node] < qMinX || nodeMinX[node] > qMaxX || nodeMaxY[node] < qMinY || nodeMinY[node] > qMaxY) return;
+        if (left[node] == NONE) {
+            int id = nodeId[node];
+            if (overlaps(id, qMinX, qMinY, qMaxX, qMaxY)) hits.add(id);
+            return;
+        }
+        collect(left[node], qMinX, qMinY, qMaxX, qMaxY, hits);
+        collect(right[node], qMinX, qMinY, qMaxX, qMaxY, hits);
+    }
+
+    private boolean anyIn(int node, double qMinX, double qMinY, double qMaxX, double qMaxY) {
+        if (nodeMaxX[node] < qMinX || nodeMinX[node] > qMaxX || nodeMaxY[node] < qMinY || nodeMinY[node] > qMaxY) return false;
+        if (left[node] == NONE) return overlaps(nodeId[node], qMinX, qMinY, qMaxX, qMaxY);
+        return anyIn(left[node], qMinX, qMinY, qMaxX, qMaxY) || anyIn(right[node], qMinX, qMinY, qMaxX, qMaxY);
+    }
+
+    private void insertLeaf(int leaf) {
+        if (root == NONE) {
+            root = leaf;
+            parent[leaf] = NONE;
+            return;
+        }
+
+        // Descend towards the sibling that grows the total perimeter the least
+        double leafMinX = nodeMinX[leaf], leafMinY = nodeMinY[leaf], leafMaxX = nodeMaxX[leaf], leafMaxY = nodeMaxY[leaf];
+        int index = root;
+        while (left[index] != NONE) {
+            double area = perimeter(index);
+            double combined = unionPerimeter(index, leafMinX, leafMinY, leafMaxX, leafMaxY);
+            double cost = 2 * combined;
+            double inheritance = 2 * (combined - area);
+            double costLeft = descentCost(left[index], leafMinX, leafMinY, leafMaxX, leafMaxY) + inheritance;
+            double costRight = descentCost(right[index], leafMinX, leafMinY, leafMaxX, leafMaxY) + inheritance;
+            if (cost < costLeft && cost < costRight) break;
+            index = (costLeft < costRight) ? left[index] : right[index];
+        }
+
+        int sibling = index;
+        int oldParent = parent[sibling];
+        int newParent = allocateNode();
+        parent[newParent] = oldParent;
+        nodeId[newParent] = NONE;
+        left[newParent] = sibling;
+        right[newParent] = leaf;
+        parent[sibling] = newParent;
+        parent[leaf] = newParent;
+        if (oldParent == NONE) {
+            root = newParent;
+        } else if (left[oldParent] == sibling) {
+            left[oldParent] = newParent;
+        } else {
+            right[oldParent] = newParent;
+        }
+
+        refitUpwards(newParent);
+    }
+
+    private void removeLeaf(int leaf) {
+        if (leaf == root) {
+            root = NONE;
+            return;
+        }
+        int oldParent = parent[leaf];
+        int grandParent = parent[oldParent];
+        int sibling = (left[oldParent] == leaf) ? right[oldParent] : left[oldParent];
+        if (grandParent == NONE) {
+            root = sibling;
+            parent[sibling] = NONE;
+            freeNode(oldParent);
+            return;
+        }
+        if (left[grandParent] == oldParent) left[grandParent] = sibling;
+        else right[grandParent] = sibling;
+        parent[sibling] = grandParent;
+        freeNode(oldParent);
+        refitUpwards(grandParent);
+    }
+
+    private void refitUpwards(int index) {
+        while (index != NONE) {
+            index = balance(index);
+            int a = left[index], b = right[index];
+            height[index] = 1 + Math.max(height[a], height[b]);
+            fitUnion(index, a, b);
+            index = parent[index];
+        }
+    }
+
+    /** Rotates the taller child of a up if the subtree leans by more than one level. Returns the new subtree root. */
+    private int balance(int a) {
+        if (left[a] == NONE || height[a] < 2) return a;
+        int b = left[a], c = right[a];
+        int lean = height[c] - height[b];
+
+        if (lean > 1) {
+            int f = left[c], g = right[c];
+            left[c] = a;
+            parent[c] = parent[a];
+            parent[a] = c;
+            replaceChild(parent[c], a, c);
+            if (height[f] > height[g]) {
+                right[c] = f;
+                right[a] = g;
+                parent[g] = a;
+                fitUnion(a, b, g);
+                fitUnion(c, a, f);
+                height[a] = 1 + Math.max(height[b], height[g]);
+                height[c] = 1 + Math.max(height[a], height[f]);
+            } else {
+                right[c] = g;
+                right[a] = f;
+                parent[f] = a;
+                fitUnion(a, b, f);
+                fitUnion(c, a, g);
+                height[a] = 1 + Math.max(height[b], height[f]);
+                height[c] = 1 + Math.max(height[a], height[g]);
+            }
+            return c;
+        }
+
+        if (lean < -1) {
+            int d = left[b], e = right[b];
+            left[b] = a;
+            parent[b] = parent[a];
+            parent[a] = b;
+            replaceChild(parent[b], a, b);
+            if (height[d] > height[e]) {
+                right[b] = d;
+                left[a] = e;
+                parent[e] = a;
+                fitUnion(a, c, e);
+                fitUnion(b, a, d);
+                height[a] = 1 + Math.max(height[c], height[e]);
+                height[b] = 1 + Math.max(height[a], height[d]);
+            } else {
+                right[b] = e;
+                left[a] = d;
+                parent[d] = a;
+                fitUnion(a, c, d);
+                fitUnion(b, a, e);
+                height[a] = 1 + Math.max(height[c], height[d]);
+                height[b] = 1 + Math.max(height[a], height[e]);
+            }
+            return b;
+        }
+        return a;
+    }
+
+    private void replaceChild(int node, int oldChild, int newChild) {
+        if (node == NONE) {
+            root = newChild;
+        } else if (left[node] == oldChild) {
+            left[node] = newChild;
+        } else {
+            right[node] = newChild;
+        }
+    }
+
+    private void fitUnion(int node, int a, int b) {
+        nodeMinX[node] = Math.min(nodeMinX[a], nodeMinX[b]);
+        nodeMinY[node] = Math.min(nodeMinY[a], nodeMinY[b]);
+        nodeMaxX[node] = Math.max(nodeMaxX[a], nodeMaxX[b]);
+        nodeMaxY[node] = Math.max(nodeMaxY[a], nodeMaxY[b]);
+    }
+
+    private double perimeter(int node) {
+        return 2 * ((nodeMaxX[node] - nodeMinX[node]) + (nodeMaxY[node] - nodeMinY[node]));
+    }
+
+    private double unionPerimeter(int node, double bMinX, double bMinY, double bMaxX, double bMaxY) {
+        double w = Math.max(nodeMaxX[node], bMaxX) - Math.min(nodeMinX[node], bMinX);
+        double h = Math.max(nodeMaxY[node], bMaxY) - Math.min(nodeMinY[node], bMinY);
+        return 2 * (w + h);
+    }
+
+    private double descentCost(int child, double bMinX, double bMinY, double bMaxX, double bMaxY) {
+        double combined = unionPerimeter(child, bMinX, bMinY, bMaxX, bMaxY);
+        return (left[child] == NONE) ? combined : combined - perimeter(child);
+    }
+
+    private int allocateNode() {
+        int node;
+        if (freeNode != NONE) {
+            node = freeNode;
+            freeNode = parent[node];
+        } else {
+            if (nodeCount == parent.length) allocateNodes(parent.length * 2);
+            node = nodeCount++;
+        }
+        parent[node] = NONE;
+        left[node] = NONE;
+        right[node] = NONE;
+        height[node] = 0;
+        return node;
+    }
+
+    private void freeNode(int node) {
+        parent[node] = freeNode;
+        height[node] = -1;
+        freeNode = node;
+    }
+
+    private void allocateNodes(int capacity) {
+        if (parent == null) {
+            nodeMinX = new double[capacity];
+            nodeMinY = new double[capacity];
+            nodeMaxX = new double[capacity];
+            nodeMaxY = new double[capacity];
+            parent = new int[capacity];
+            left = new int[capacity];
+            right = new int[capacity];
+            height = new int[capacity];
+            nodeId = new int[capacity];
+            return;
+        }
+        nodeMinX = Arrays.copyOf(nodeMinX, capacity);
+        nodeMinY = Arrays.copyOf(nodeMinY, capacity);
+        nodeMaxX = Arrays.copyOf(nodeMaxX, capacity);
+        nodeMaxY = Arrays.copyOf(nodeMaxY, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        height = Arrays.copyOf(height, capacity);
+        nodeId = Arrays.copyOf(nodeId, capacity);
+    }
+
+    @Override
+    protected void growTo(int capacity) {
+        super.growTo(capacity);
+        leafOf = Arrays.copyOf(leafOf, capacity);
+    }
+}
@@ -0,0 +1,32 @@
+package cz.cvut.fel.pjv.gameengine3000.physics;
+
+import java.util.Arrays;
+
+/** Growable list of ids filled by {@link Broadphase#query}. Owned by the caller so queries allocate nothing. */
+public final class HitList {
+
+    private int[] ids = new int[16];
+    private int size = 0;
+
+    public void add(int id) {
+        if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+        ids[size++] = id;
+    }
+
+    public int get(int i) { return ids[i]; }
+    public int size() { return size; }
+    public void clear() { size = 0; }
+
+    void sort() {
+        if (size > 1) Arrays.sort(ids, 0, size);
+    }
+
+    boolean sameIds(HitList other) {
+        return Arrays.equals(ids, 0, size, other.ids, 0, other.size);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(Arrays.copyOf(ids, size));
+    }
+}
@@ -0,0 +1,145 @@
+package cz.cvut.fel.pjv.gameengine3000.physics;
+
+import java.util.Arrays;
+
+/**
+ * Uniform-grid spatial hash. Each id lives in exactly one cell, the one holding its box center, linked into
+ * an open-hashed bucket list; queries widen their range by half the largest box seen so boxes reaching into
+ * neighbouring cells are still found.
+ * <p>
+ * {@link #update} only relinks an id when its center changes cells, so refreshing every entity each tick is
+ * cheap. Best for dense crowds of similarly sized boxes.
+ */
+public class SpatialHash extends AbstractBroadphase {
+
+    private static final int NONE = -1;
+
+    private final double cellSize;
+    private final double inverseCellSize;
+    private int[] bucketHeads;
+    private int bucketMask;
+
+    private int[] next, prev, cellX, cellY;
+
+    public SpatialHash(double cellSize, int expectedIds) {
+        super(expectedIds);
+        if (!(cellSize > 0)) throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1.0 / cellSize;
+        int capacity = present.length;
+        next = new int[capacity];
+        prev = new int[capacity];
+        cellX = new int[capacity];
+        cellY = new int[capacity];
+        rehash(Integer.highestOneBit(Math.max(64, expectedIds) - 1) << 1);
+    }
+
+    /** Relinks id only when its box center changed cells. */
+    @Override
+    public void update(int id, double boxMinX, double boxMinY, double width, double height) {
+        boolean inserted = storeBox(id, boxMinX, boxMinY, width, height);
+        int cx = cellOf(boxMinX + width * 0.5);
+        int cy = cellOf(boxMinY + height * 0.5);
+        if (!inserted) {
+            if (cellX[id] == cx && cellY[id] == cy) return;
+            unlink(id);
+        }
+        cellX[id] = cx;
+        cellY[id] = cy;
+        link(id);
+        if (size > bucketHeads.length) rehash(bucketHeads.length * 2);
+    }
+
+    @Override
+    public void remove(int id) {
+        if (contains(id)) unlink(id);
+        dropBox(id);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(bucketHeads, NONE);
+        dropAll();
+    }
+
+    @Override
+    public int query(double queryMinX, double queryMinY, double width, double height, HitList hits) {
+        hits.clear();
+        if (size == 0) return 0;
+        double queryMaxX = queryMinX + width, queryMaxY = queryMinY + height;
+        int cx0 = cellOf(queryMinX - maxWidth * 0.5), cx1 = cellOf(queryMaxX + maxWidth * 0.5);
+        int cy0 = cellOf(queryMinY - maxHeight * 0.5), cy1 = cellOf(queryMaxY + maxHeight * 0.5);
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                for (int id = bucketHeads[bucketOf(cx, cy)]; id != NONE; id = next[id]) {
+                    if (cellX[id] != cx || cellY[id] != cy) continue; // another cell sharing the bucket
+                    if (overlaps(id, queryMinX, queryMinY, queryMaxX, queryMaxY)) hits.add(id);
+                }
+            }
+        }
+        hits.sort();
+        return hits.size();
+    }
+
+    @Override
+    public boolean anyOverlap(double queryMinX, double queryMinY, double width, double height) {
+        if (size == 0) return false;
+        double queryMaxX = queryMinX + width, queryMaxY = queryMinY + height;
+        int cx0 = cellOf(queryMinX - maxWidth * 0.5), cx1 = cellOf(queryMaxX + maxWidth * 0.5);
+        int cy0 = cellOf(queryMinY - maxHeight * 0.5), cy1 = cellOf(queryMaxY + maxHeight * 0.5);
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                for (int id = bucketHeads[bucketOf(cx, cy)]; id != NONE; id = next[id]) {
+                    if (cellX[id] == cx && cellY[id] == cy && overlaps(id, queryMinX, queryMinY, queryMaxX, queryMaxY)) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public double getCellSize() { return cellSize; }
+
+    private int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate * inverseCellSize);
+    }
+
+    private int bucketOf(int cx, int cy) {
+        int h = cx * 0x8DA6B343 ^ cy * 0xD8163841;
+        return (h ^ (h >>> 16)) & bucketMask;
+    }
+
+    private void link(int id) {
+        int bucket = bucketOf(cellX[id], cellY[id]);
+        int head = bucketHeads[bucket];
+        prev[id] = NONE;
+        next[id] = head;
+        if (head != NONE) prev[head] = id;
+        bucketHeads[bucket] = id;
+    }
+
+    private void unlink(int id) {
+        int before = prev[id], after = next[id];
+        if (before != NONE) next[before] = after;
+        else bucketHeads[bucketOf(cellX[id], cellY[id])] = after;
+        if (after != NONE) prev[after] = before;
+    }
+
+    /** Resizes the bucket table so chains stay short as the id count grows, then relinks every id. */
+    private void rehash(int buckets) {
+        bucketHeads = new int[buckets];
+        bucketMask = buckets - 1;
+        Arrays.fill(bucketHeads, NONE);
+        for (int id = 0; id < idLimit; id++) {
+            if (present[id]) link(id);
+        }
+    }
+
+    @Override
+    protected void growTo(int capacity) {
+        super.growTo(capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        cellX = Arrays.copyOf(cellX, capacity);
+        cellY = Arrays.copyOf(cellY, capacity);
+    }
+}
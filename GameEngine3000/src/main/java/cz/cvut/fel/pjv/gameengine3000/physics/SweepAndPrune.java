@@ -0,0 +1,123 @@
+package cz.cvut.fel.pjv.gameengine3000.physics;
+
+import java.util.Arrays;
+
+/**
+ * Sort-and-sweep along the x axis: ids are kept ordered by their box's left edge, and a query only walks
+ * the window of boxes whose left edge lies within the query's x range widened by the widest box.
+ * <p>
+ * Updates just mark the order stale; the next query re-sorts with an insertion sort, which is close to
+ * linear because entities move little between ticks. Good for long, thin distributions and for many
+ * small queries such as projectiles.
+ */
+public class SweepAndPrune extends AbstractBroadphase {
+
+    private int[] order = new int[16];       // ids sorted by minX
+    private double[] orderMinX = new double[16]; // minX of order[i], kept alongside for the binary search
+    private int orderCount = 0;
+    private boolean[] listed;                // id is in order[] (possibly no longer present until the next sort)
+    private volatile boolean stale = false;
+
+    public SweepAndPrune(int expectedIds) {
+        super(expectedIds);
+        listed = new boolean[present.length];
+    }
+
+    @Override
+    public void update(int id, double boxMinX, double boxMinY, double width, double height) {
+        storeBox(id, boxMinX, boxMinY, width, height);
+        if (!listed[id]) {
+            if (orderCount == order.length) {
+                order = Arrays.copyOf(order, orderCount * 2);
+                orderMinX = Arrays.copyOf(orderMinX, orderCount * 2);
+            }
+            order[orderCount++] = id;
+            listed[id] = true;
+        }
+        stale = true;
+    }
+
+    @Override
+    public void remove(int id) {
+        if (dropBox(id)) stale = true;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < orderCount; i++) listed[order[i]] = false;
+        orderCount = 0;
+        dropAll();
+        stale = false;
+    }
+
+    @Override
+    public int query(double queryMinX, double queryMinY, double width, double height, HitList hits) {
+        hits.clear();
+        if (stale) resort();
+        double queryMaxX = queryMinX + width, queryMaxY = queryMinY + height;
+        for (int i = firstCandidate(queryMinX); i < orderCount && orderMinX[i] < queryMaxX; i++) {
+            int id = order[i];
+            if (overlaps(id, queryMinX, queryMinY, queryMaxX, queryMaxY)) hits.add(id);
+        }
+        hits.sort();
+        return hits.size();
+    }
+
+    @Override
+    public boolean anyOverlap(double queryMinX, double queryMinY, double width, double height) {
+        if (stale) resort();
+        double queryMaxX = queryMinX + width, queryMaxY = queryMinY + height;
+        for (int i = firstCandidate(queryMinX); i < orderCount && orderMinX[i] < queryMaxX; i++) {
+            if (overlaps(order[i], queryMinX, queryMinY, queryMaxX, queryMaxY)) return true;
+        }
+        return false;
+    }
+
+    /** Index of the first box whose left edge could still reach queryMinX. */
+    private int firstCandidate(double queryMinX) {
+        double from = queryMinX - maxWidth;
+        int low = 0, high = orderCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (orderMinX[mid] < from) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    // Queries may run concurrently, so the first one after a batch of updates sorts under the lock.
+    private synchronized void resort() {
+        if (!stale) return;
+        int kept = 0;
+        for (int i = 0; i < orderCount; i++) {
+            int id = order[i];
+            if (present[id]) {
+                order[kept] = id;
+                orderMinX[kept] = minX[id];
+                kept++;
+            } else {
+                listed[id] = false;
+            }
+        }
+        orderCount = kept;
+        for (int i = 1; i < orderCount; i++) {
+            int id = order[i];
+            double key = orderMinX[i];
+            int j = i - 1;
+            while (j >= 0 && orderMinX[j] > key) {
+                order[j + 1] = order[j];
+                orderMinX[j + 1] = orderMinX[j];
+                j--;
+            }
+            order[j + 1] = id;
+            orderMinX[j + 1] = key;
+        }
+        stale = false;
+    }
+
+    @Override
+    protected void growTo(int capacity) {
+        super.growTo(capacity);
+        listed = Arrays.copyOf(listed, capacity);
+    }
+}
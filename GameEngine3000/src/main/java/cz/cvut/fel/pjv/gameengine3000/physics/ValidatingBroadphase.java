@@ -0,0 +1,93 @@
+package cz.cvut.fel.pjv.gameengine3000.physics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Debug wrapper that mirrors every update into a {@link BruteForceBroadphase} and checks each query of the
+ * wrapped broadphase against it. Mismatches are counted and the first few reported on stderr; the reference
+ * answer is returned so the game keeps behaving correctly while a broken implementation is investigated.
+ */
+public class ValidatingBroadphase implements Broadphase {
+
+    private static final int MAX_REPORTS = 10;
+
+    private final Broadphase inner;
+    private final BruteForceBroadphase reference;
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong mismatches = new AtomicLong();
+
+    public ValidatingBroadphase(Broadphase inner, int expectedIds) {
+        this.inner = inner;
+        this.reference = new BruteForceBroadphase(expectedIds);
+    }
+
+    @Override
+    public void update(int id, double minX, double minY, double width, double height) {
+        inner.update(id, minX, minY, width, height);
+        reference.update(id, minX, minY, width, height);
+    }
+
+    @Override
+    public void remove(int id) {
+        inner.remove(id);
+        reference.remove(id);
+    }
+
+    @Override
+    public void clear() {
+        inner.clear();
+        reference.clear();
+    }
+
+    @Override
+    public void reserve(int idCount) {
+        inner.reserve(idCount);
+        reference.reserve(idCount);
+    }
+
+    @Override
+    public int query(double minX, double minY, double width, double height, HitList hits) {
+        HitList expected = new HitList();
+        reference.query(minX, minY, width, height, expected);
+        inner.query(minX, minY, width, height, hits);
+        queries.incrementAndGet();
+        if (!hits.sameIds(expected)) {
+            report("query [" + minX + ", " + minY + ", " + width + " x " + height + "] returned " + hits + ", expected " + expected);
+            hits.clear();
+            for (int i = 0; i < expected.size(); i++) hits.add(expected.get(i));
+        }
+        return hits.size();
+    }
+
+    @Override
+    public boolean anyOverlap(double minX, double minY, double width, double height) {
+        boolean expected = reference.anyOverlap(minX, minY, width, height);
+        queries.incrementAndGet();
+        if (inner.anyOverlap(minX, minY, width, height) != expected) {
+            report("anyOverlap [" + minX + ", " + minY + ", " + width + " x " + height + "] returned " + !expected);
+        }
+        return expected;
+    }
+
+    @Override
+    public boolean contains(int id) {
+        return reference.contains(id);
+    }
+
+    @Override
+    public int size() {
+        return reference.size();
+    }
+
+    public long getQueryCount() { return queries.get(); }
+    public long getMismatchCount() { return mismatches.get(); }
+    public Broadphase getInner() { return inner; }
+
+    private void report(String message) {
+        long n = mismatches.incrementAndGet();
+        if (n <= MAX_REPORTS) {
+            System.err.println("ValidatingBroadphase: " + inner.getClass().getSimpleName() + " " + message
+                    + (n == MAX_REPORTS ? " (further mismatches are only counted)" : ""));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package cz.cvut.fel.pjv.gameengine3000.physics;
+
+/** Mutable 2D vector used as an out-parameter for per-tick results such as movement intents. */
+public final class Vec2 {
+
+    private double x, y;
+
+    public Vec2 set(double x, double y) {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
+    public Vec2 setZero() {
+        return set(0, 0);
+    }
+
+    public boolean isZero() {
+        return x == 0 && y == 0;
+    }
+
+    public double getX() { return x; }
+    public double getY() { return y; }
+}
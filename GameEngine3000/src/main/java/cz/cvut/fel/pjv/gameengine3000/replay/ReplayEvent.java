@@ -0,0 +1,30 @@
+package cz.cvut.fel.pjv.gameengine3000.replay;
+
+/**
+ * One recorded input or session event, applied before simulation tick {@link #tick} runs.
+ */
+public class ReplayEvent {
+
+    public enum Type {
+        KEY_PRESS,      // code = KeyCode#getCode()
+        KEY_RELEASE,    // code = KeyCode#getCode()
+        MOUSE_CLICK,    // x, y in scene coordinates, as passed to GameEngine#handleMouseClick
+        PAUSE,
+        RESUME,
+        VIEWPORT,       // x = width, y = height passed to tick()
+        PLAYER_SPAWN    // code = player id, x, y = start position
+    }
+
+    public final long tick;
+    public final Type type;
+    public final int code;
+    public final double x, y;
+
+    public ReplayEvent(long tick, Type type, int code, double x, double y) {
+        this.tick = tick;
+        this.type = type;
+        this.code = code;
+        this.x = x;
+        this.y = y;
+    }
+}
@@ -0,0 +1,84 @@
+package cz.cvut.fel.pjv.gameengine3000.replay;
+
+import javafx.scene.input.KeyCode;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Collects input and session events stamped with the simulation tick they apply to.
+ * Callers hold the engine's simulation lock, so events land exactly between two ticks.
+ */
+public class ReplayRecorder {
+
+    private static final String REPLAY_DIR = "replays";
+    private static final String REPLAY_FILE_EXTENSION = ".ge3r";
+
+    private final long seed;
+    private final double tickRate;
+    private final double worldWidth, worldHeight;
+    private final List<ReplayEvent> events = new ArrayList<>();
+    private double lastViewportWidth = -1, lastViewportHeight = -1;
+
+    public ReplayRecorder(long seed, double tickRate, double worldWidth, double worldHeight) {
+        this.seed = seed;
+        this.tickRate = tickRate;
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+    }
+
+    public void keyPressed(long tick, KeyCode code) {
+        events.add(new ReplayEvent(tick, ReplayEvent.Type.KEY_PRESS, code.getCode(), 0, 0));
+    }
+
+    public void keyReleased(long tick, KeyCode code) {
+        events.add(new ReplayEvent(tick, ReplayEvent.Type.KEY_RELEASE, code.getCode(), 0, 0));
+    }
+
+    public void mouseClicked(long tick, double x, double y) {
+        events.add(new ReplayEvent(tick, ReplayEvent.Type.MOUSE_CLICK, 0, x, y));
+    }
+
+    public void paused(long tick) {
+        events.add(new ReplayEvent(tick, ReplayEvent.Type.PAUSE, 0, 0, 0));
+    }
+
+    public void resumed(long tick) {
+        events.add(new ReplayEvent(tick, ReplayEvent.Type.RESUME, 0, 0, 0));
+    }
+
+    public void playerSpawned(long tick, int playerId, double x, double y) {
+        events.add(new ReplayEvent(tick, ReplayEvent.Type.PLAYER_SPAWN, playerId, x, y));
+    }
+
+    /** Records the viewport passed to tick(); only changes are stored. */
+    public void viewport(long tick, double width, double height) {
+        if (width == lastViewportWidth && height == lastViewportHeight) return;
+        lastViewportWidth = width;
+        lastViewportHeight = height;
+        events.add(new ReplayEvent(tick, ReplayEvent.Type.VIEWPORT, 0, width, height));
+    }
+
+    public ReplayRecording finish(long endTick, long endChecksum) {
+        return new ReplayRecording(seed, tickRate, worldWidth, worldHeight, events, endTick, endChecksum);
+    }
+
+    /** Writes the recording to replays/replay-&lt;timestamp&gt;.ge3r. Returns the file, or null on failure. */
+    public File save(long endTick, long endChecksum) {
+        new File(REPLAY_DIR).mkdirs();
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File file = new File(REPLAY_DIR, "replay-" + stamp + REPLAY_FILE_EXTENSION);
+        try {
+            finish(endTick, endChecksum).write(file);
+            System.out.println("ReplayRecorder: Saved " + events.size() + " events over " + endTick + " ticks to " + file.getAbsolutePath());
+            return file;
+        } catch (IOException e) {
+            System.err.println("ReplayRecorder: Error saving replay to " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
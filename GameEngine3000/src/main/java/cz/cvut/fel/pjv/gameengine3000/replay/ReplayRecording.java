@@ -0,0 +1,150 @@
+package cz.cvut.fel.pjv.gameengine3000.replay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A recorded single-player session: seed, step, world size, the event stream and the expected end state.
+ * <p>
+ * File layout (gzip compressed): magic, version, seed, tick rate, world size, then events as
+ * (varint tick delta, type byte, payload) terminated by an END byte, followed by end tick and state checksum.
+ * Sizes and coordinates are stored as doubles, exactly as the engine received them, so playback is input-exact.
+ */
+public class ReplayRecording {
+
+    private static final int MAGIC = 0x47453352; // "GE3R"
+    // Bumped whenever the simulation changes so that older recordings would no longer reproduce
+    private static final int VERSION = 3;
+    private static final int END = 0xFF;
+
+    public final long seed;
+    public final double tickRate;
+    public final double worldWidth, worldHeight;
+    public final List<ReplayEvent> events;
+    public final long endTick;
+    public final long endChecksum;
+
+    public ReplayRecording(long seed, double tickRate, double worldWidth, double worldHeight,
+                           List<ReplayEvent> events, long endTick, long endChecksum) {
+        this.seed = seed;
+        this.tickRate = tickRate;
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        this.events = Collections.unmodifiableList(new ArrayList<>(events));
+        this.endTick = endTick;
+        this.endChecksum = endChecksum;
+    }
+
+    public void write(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file))))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(seed);
+            out.writeDouble(tickRate);
+            out.writeDouble(worldWidth);
+            out.writeDouble(worldHeight);
+
+            long lastTick = 0;
+            for (ReplayEvent e : events) {
+                writeVarLong(out, e.tick - lastTick);
+                lastTick = e.tick;
+                out.writeByte(e.type.ordinal());
+                switch (e.type) {
+                    case KEY_PRESS:
+                    case KEY_RELEASE:
+                        writeVarLong(out, e.code);
+                        break;
+                    case MOUSE_CLICK:
+                    case VIEWPORT:
+                        out.writeDouble(e.x);
+                        out.writeDouble(e.y);
+                        break;
+                    case PLAYER_SPAWN:
+                        writeVarLong(out, e.code);
+                        out.writeDouble(e.x);
+                        out.writeDouble(e.y);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            writeVarLong(out, 0);
+            out.writeByte(END);
+            out.writeLong(endTick);
+            out.writeLong(endChecksum);
+        }
+    }
+
+    public static ReplayRecording read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a replay file: " + file);
+            int version = in.readUnsignedByte();
+            if (version != VERSION) throw new IOException("Unsupported replay version " + version + " in " + file);
+            long seed = in.readLong();
+            double tickRate = in.readDouble();
+            double worldWidth = in.readDouble();
+            double worldHeight = in.readDouble();
+
+            List<ReplayEvent> events = new ArrayList<>();
+            ReplayEvent.Type[] types = ReplayEvent.Type.values();
+            long tick = 0;
+            while (true) {
+                tick += readVarLong(in);
+                int typeByte = in.readUnsignedByte();
+                if (typeByte == END) break;
+                if (typeByte >= types.length) throw new IOException("Corrupt replay event type " + typeByte);
+                ReplayEvent.Type type = types[typeByte];
+                switch (type) {
+                    case KEY_PRESS:
+                    case KEY_RELEASE:
+                        events.add(new ReplayEvent(tick, type, (int) readVarLong(in), 0, 0));
+                        break;
+                    case MOUSE_CLICK:
+                    case VIEWPORT:
+                        events.add(new ReplayEvent(tick, type, 0, in.readDouble(), in.readDouble()));
+                        break;
+                    case PLAYER_SPAWN:
+                        events.add(new ReplayEvent(tick, type, (int) readVarLong(in), in.readDouble(), in.readDouble()));
+                        break;
+                    default:
+                        events.add(new ReplayEvent(tick, type, 0, 0, 0));
+                        break;
+                }
+            }
+            long endTick = in.readLong();
+            long endChecksum = in.readLong();
+            return new ReplayRecording(seed, tickRate, worldWidth, worldHeight, events, endTick, endChecksum);
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,115 @@
+package cz.cvut.fel.pjv.gameengine3000.replay;
+
+import cz.cvut.fel.pjv.gameengine3000.entities.Player;
+import cz.cvut.fel.pjv.gameengine3000.game.GameEngine;
+import cz.cvut.fel.pjv.gameengine3000.game.GameStatus;
+
+import javafx.scene.input.KeyCode;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Re-simulates a {@link ReplayRecording} on a headless engine as fast as possible.
+ * Events are fed in before the tick they were recorded at, with the same seed and fixed step,
+ * so the end state must hash to the recorded checksum; anything else is a determinism bug.
+ */
+public class ReplayRunner {
+
+    private static final Map<Integer, KeyCode> KEY_CODES = new HashMap<>();
+    static {
+        for (KeyCode code : KeyCode.values()) KEY_CODES.putIfAbsent(code.getCode(), code);
+    }
+
+    public static class Result {
+        public final long ticks;
+        public final double wallSeconds;
+        public final long checksum;
+        public final boolean matches;
+
+        Result(long ticks, double wallSeconds, long checksum, boolean matches) {
+            this.ticks = ticks;
+            this.wallSeconds = wallSeconds;
+            this.checksum = checksum;
+            this.matches = matches;
+        }
+
+        public double ticksPerSecond() { return ticks / Math.max(wallSeconds, 1e-9); }
+    }
+
+    private final ReplayRecording recording;
+    private double viewportWidth, viewportHeight;
+    private int nextEvent = 0;
+
+    public ReplayRunner(ReplayRecording recording) {
+        this.recording = recording;
+        this.viewportWidth = recording.worldWidth;
+        this.viewportHeight = recording.worldHeight;
+    }
+
+    public Result run() {
+        GameEngine engine = GameEngine.createHeadless(recording.worldWidth, recording.worldHeight, new GameStatus(), recording.seed);
+        engine.setupSinglePlayer();
+        engine.stopReplayRecording(false); // -Dgameengine.record must not record the replay itself
+        engine.getEntityManager().getAiScheduler().setFixedQuota(true);
+        engine.startGameLoop();
+
+        double step = 1.0 / recording.tickRate;
+        List<ReplayEvent> events = recording.events;
+        long start = System.nanoTime();
+        while (engine.getSimulationTicks() < recording.endTick) {
+            long tick = engine.getSimulationTicks();
+            while (nextEvent < events.size() && events.get(nextEvent).tick <= tick) {
+                apply(engine, events.get(nextEvent++));
+            }
+            if (engine.getGameStatus().isGameIsOver()) break;
+
+            engine.tick(step, viewportWidth, viewportHeight);
+            if (engine.getSimulationTicks() == tick
+                    && (nextEvent >= events.size() || events.get(nextEvent).tick > tick)) {
+                break; // paused (or waiting for a player) with nothing left that could change it
+            }
+        }
+        double wallSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        long ticks = engine.getSimulationTicks();
+        long checksum = engine.computeStateChecksum();
+        engine.stopGameAndCleanUp();
+        return new Result(ticks, wallSeconds, checksum, ticks == recording.endTick && checksum == recording.endChecksum);
+    }
+
+    private void apply(GameEngine engine, ReplayEvent event) {
+        switch (event.type) {
+            case KEY_PRESS:
+            case KEY_RELEASE:
+                KeyCode code = KEY_CODES.get(event.code);
+                if (code == null) {
+                    System.err.println("ReplayRunner: Unknown key code " + event.code + " at tick " + event.tick);
+                } else if (event.type == ReplayEvent.Type.KEY_PRESS) {
+                    engine.handleKeyPress(code);
+                } else {
+                    engine.handleKeyRelease(code);
+                }
+                break;
+            case MOUSE_CLICK:
+                engine.handleMouseClick(event.x, event.y);
+                break;
+            case PAUSE:
+                engine.pauseGame();
+                break;
+            case RESUME:
+                engine.resumeGame();
+                break;
+            case VIEWPORT:
+                viewportWidth = event.x;
+                viewportHeight = event.y;
+                break;
+            case PLAYER_SPAWN:
+                // The spawn column depends on the window size at the time; pin the player to where it was recorded.
+                Player player = engine.getEntityManager().getPlayerById(event.code);
+                if (player != null) player.setPosition(event.x, event.y);
+                break;
+        }
+    }
+}
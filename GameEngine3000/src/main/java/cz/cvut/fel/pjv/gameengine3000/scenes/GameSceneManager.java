@@ -1,8 +1,11 @@
 package cz.cvut.fel.pjv.gameengine3000.scenes;
 
+import cz.cvut.fel.pjv.gameengine3000.game.FixedStepLoop;
+import cz.cvut.fel.pjv.gameengine3000.game.GameConfig;
 import cz.cvut.fel.pjv.gameengine3000.game.GameEngine;
 import cz.cvut.fel.pjv.gameengine3000.game.GameStatus;
 import cz.cvut.fel.pjv.gameengine3000.game.MultiplayerRole;
+import cz.cvut.fel.pjv.gameengine3000.game.SimulationThread;
 import cz.cvut.fel.pjv.gameengine3000.savegame.SaveLoadManager; // Import
 import cz.cvut.fel.pjv.gameengine3000.savegame.SaveGameData;   // Import
 import cz.cvut.fel.pjv.gameengine3000.ui.MainMenuScene;
@@ -36,13 +39,16 @@ public class GameSceneManager {
     private final StackPane rootStackPane;
     private final Scene mainJavaFxScene;
 
-    private GameState currentState;
+    private volatile GameState currentState;
     private GameSceneInterface currentUiScene;
     private final Map<GameState, GameSceneInterface> sceneCache;
 
-    private GameEngine gameEngine;
+    private volatile GameEngine gameEngine;
     private GameStatus gameStatus;
     private AnimationTimer mainLoop;
+    private final FixedStepLoop simulationLoop = new FixedStepLoop(GameConfig.SIMULATION_TICK_RATE, GameConfig.MAX_CATCH_UP_STEPS);
+    private SimulationThread simulationThread; // null when the simulation is stepped from the FX loop
+    private volatile double viewWidth = 1280, viewHeight = 720;
     private GameState stateBeforePause = null;
 
     private String connectIp = "localhost";
@@ -79,24 +85,43 @@ public class GameSceneManager {
                 if (lastUpdateNanos == 0) { lastUpdateNanos = nowNanos; return; }
                 double elapsedSeconds = (nowNanos - lastUpdateNanos) / 1_000_000_000.0;
                 lastUpdateNanos = nowNanos;
-                updateGame(Math.min(elapsedSeconds, 0.1));
+                updateGame(Math.min(elapsedSeconds, GameConfig.MAX_FRAME_TIME));
             }
         };
         mainLoop.start();
 
+        if (GameConfig.SIMULATION_THREADED) {
+            simulationThread = new SimulationThread(GameConfig.SIMULATION_TICK_RATE, GameConfig.MAX_CATCH_UP_STEPS, this::stepGame);
+            simulationThread.start();
+        }
+
         setState(GameState.MAIN_MENU);
         primaryStage.show();
     }
 
     private void updateGame(double elapsedSeconds) {
-        if (gameEngine != null && isGameplayState(currentState) && !gameStatus.isPaused()) {
-            gameEngine.tick(elapsedSeconds, rootStackPane.getWidth(), rootStackPane.getHeight());
+        viewWidth = rootStackPane.getWidth();
+        viewHeight = rootStackPane.getHeight();
+
+        double alpha = (simulationThread != null)
+                ? simulationThread.interpolationAlpha()
+                : simulationLoop.advance(elapsedSeconds, this::stepGame);
+        GameEngine engine = gameEngine;
+        if (engine != null) {
+            engine.render(alpha);
         }
         if (currentUiScene != null) {
             currentUiScene.update(elapsedSeconds);
         }
     }
 
+    private void stepGame(double stepSeconds) {
+        GameEngine engine = gameEngine;
+        if (engine != null && isGameplayState(currentState) && !engine.isPaused()) {
+            engine.tick(stepSeconds, viewWidth, viewHeight);
+        }
+    }
+
     public synchronized void setState(GameState newState) {
         if (currentState == newState && newState != GameState.MAIN_MENU && newState != GameState.MULTIPLAYER_LOBBY) {
             if (newState == GameState.PLAYING_SP || newState == GameState.PLAYING_MP_HOST || newState == GameState.PLAYING_MP_CLIENT) {
@@ -166,6 +191,7 @@ public class GameSceneManager {
                 double width = rootStackPane.getWidth() > 0 ? rootStackPane.getWidth() : 1280;
                 double height = rootStackPane.getHeight() > 0 ? rootStackPane.getHeight() : 720;
                 gameEngine = new GameEngine(width, height, this, this.gameStatus);
+                simulationLoop.reset();
             } catch (Exception e) {
                 gameEngine = null;
                 Platform.runLater(() -> new Alert(Alert.AlertType.ERROR, "Failed to initialize game engine: " + e.getMessage()).showAndWait());
@@ -179,6 +205,7 @@ public class GameSceneManager {
         if (gameEngine != null) {
             final Pane gamePane = gameEngine.getRootPane();
             gameEngine.stopGameAndCleanUp();
+            gameEngine.getProfiler().dumpCsv();
             if (gamePane != null) {
                 Platform.runLater(() -> rootStackPane.getChildren().remove(gamePane));
             }
@@ -368,6 +395,7 @@ public class GameSceneManager {
 
     public void shutdown() {
         if (mainLoop != null) mainLoop.stop();
+        if (simulationThread != null) simulationThread.stop();
         stopAndCleanupGameEngine();
     }
 
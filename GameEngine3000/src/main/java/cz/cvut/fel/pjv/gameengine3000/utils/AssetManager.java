@@ -104,4 +104,9 @@ public class AssetManager {
         spritesheetCache.clear();
         spriteCache.clear();
     }
+
+    /** Drops the cut-out sprites but keeps the decoded sheets. */
+    public void clearSpriteCache() {
+        spriteCache.clear();
+    }
 }
\ No newline at end of file
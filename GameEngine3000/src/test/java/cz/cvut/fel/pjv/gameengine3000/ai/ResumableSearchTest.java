@@ -0,0 +1,96 @@
+package cz.cvut.fel.pjv.gameengine3000.ai;
+
+import cz.cvut.fel.pjv.gameengine3000.map.CollisionMask;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResumableSearchTest {
+
+    @Test
+    void resumedSearchMatchesTheUncappedOne() {
+        int size = 60;
+        Random random = new Random(3);
+        CollisionMask mask = new CollisionMask(size, size);
+        for (int i = 0; i < size * size / 4; i++) mask.setBlocked(random.nextInt(size), random.nextInt(size), true);
+        GridPathfinder uncapped = new GridPathfinder(mask), capped = new GridPathfinder(mask);
+
+        int resumed = 0;
+        for (int query = 0; query < 500; query++) {
+            int startX = random.nextInt(size), startY = random.nextInt(size);
+            int goalX = random.nextInt(size), goalY = random.nextInt(size);
+            int[] expected = uncapped.findPath(startX, startY, goalX, goalY, Integer.MAX_VALUE);
+
+            int[] path = capped.findPath(startX, startY, goalX, goalY, 7);
+            int expanded = capped.getLastExpanded();
+            while (path == null) {
+                assertTrue(capped.isSuspended());
+                path = capped.resume(7);
+                assertTrue(capped.getLastExpanded() <= 7);
+                expanded += capped.getLastExpanded();
+                resumed++;
+            }
+            assertFalse(capped.isSuspended());
+            assertArrayEquals(expected, path, "query " + query);
+            assertEquals(uncapped.getLastExpanded(), expanded, "query " + query);
+        }
+        assertTrue(resumed > 0);
+    }
+
+    @Test
+    void resumeWithoutASuspendedSearchFails() {
+        GridPathfinder pathfinder = new GridPathfinder(new CollisionMask(8, 8));
+        assertThrows(IllegalStateException.class, () -> pathfinder.resume(10));
+        pathfinder.findPath(0, 0, 7, 7, 2);
+        pathfinder.findPath(0, 0, 1, 1, Integer.MAX_VALUE); // a new search abandons the suspended one
+        assertThrows(IllegalStateException.class, () -> pathfinder.resume(10));
+    }
+
+    @Test
+    void serviceFinishesASearchOverSeveralTicks() {
+        PathService service = new PathService(new CollisionMask(40, 40), 1, 1, 16, 5, 0);
+        int[] path = null;
+        int ticks = 0;
+        while (path == null && ticks < 1000) {
+            service.beginTick(1);
+            path = service.findPath(0, 0.5, 0.5, 39.5, 39.5);
+            service.processRequests();
+            assertTrue(service.getExpandedLastTick() <= 5);
+            ticks++;
+        }
+        assertNotNull(path);
+        assertEquals(40, path.length);
+        assertTrue(ticks > 2);
+    }
+
+    @Test
+    void mapChangeDropsTheSuspendedSearch() {
+        // A corridor one tile high: the first tick expands the tiles next to the start, then the corridor
+        // is cut behind the frontier. Resuming the stale search would still reach the goal through the cut.
+        CollisionMask mask = new CollisionMask(40, 1);
+        PathService service = new PathService(mask, 1, 1, 16, 5, 0);
+        service.beginTick(1);
+        assertNull(service.findPath(0, 0.5, 0.5, 39.5, 0.5));
+        service.processRequests();
+
+        mask.setBlocked(2, 0, true);
+        service.tileChanged(2, 0);
+
+        int[] path = null;
+        for (int tick = 0; path == null && tick < 100; tick++) {
+            service.beginTick(1);
+            path = service.findPath(0, 0.5, 0.5, 39.5, 0.5);
+            service.processRequests();
+        }
+        assertSame(GridPathfinder.NO_PATH, path);
+    }
+}
@@ -0,0 +1,90 @@
+package cz.cvut.fel.pjv.gameengine3000.map;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GridRaycasterTest {
+
+    private static final double TILE = 32;
+
+    @Test
+    void rayThroughTheCornerBetweenTwoDiagonalWallsIsBlocked() {
+        CollisionMask mask = new CollisionMask(10, 10);
+        mask.setBlocked(3, 2, true);
+        mask.setBlocked(2, 3, true);
+        GridRaycaster raycaster = new GridRaycaster(mask, TILE, TILE);
+        assertFalse(raycaster.hasLineOfSight(2.5 * TILE, 2.5 * TILE, 3.5 * TILE, 3.5 * TILE));
+        assertFalse(raycaster.hasLineOfSight(3.5 * TILE, 3.5 * TILE, 2.5 * TILE, 2.5 * TILE));
+        assertEquals(0.5, raycaster.castRay(2.5 * TILE, 2.5 * TILE, 3.5 * TILE, 3.5 * TILE), 1e-12);
+    }
+
+    @Test
+    void rayThroughACornerWithOneWallIsBlocked() {
+        CollisionMask mask = new CollisionMask(10, 10);
+        mask.setBlocked(3, 2, true);
+        GridRaycaster raycaster = new GridRaycaster(mask, TILE, TILE);
+        assertFalse(raycaster.hasLineOfSight(2.5 * TILE, 2.5 * TILE, 4.5 * TILE, 4.5 * TILE));
+    }
+
+    @Test
+    void clearDiagonalAndBlockedTileOnIt() {
+        CollisionMask mask = new CollisionMask(10, 10);
+        GridRaycaster raycaster = new GridRaycaster(mask, TILE, TILE);
+        assertTrue(raycaster.hasLineOfSight(0.5 * TILE, 0.5 * TILE, 8.5 * TILE, 8.5 * TILE));
+        mask.setBlocked(5, 5, true);
+        assertEquals(4.5 / 8, raycaster.castRay(0.5 * TILE, 0.5 * TILE, 8.5 * TILE, 8.5 * TILE), 1e-12);
+    }
+
+    @Test
+    void startTileIsNeverTested() {
+        CollisionMask mask = new CollisionMask(10, 10);
+        mask.setBlocked(1, 1, true);
+        GridRaycaster raycaster = new GridRaycaster(mask, TILE, TILE);
+        assertTrue(raycaster.hasLineOfSight(1.5 * TILE, 1.5 * TILE, 6.5 * TILE, 1.2 * TILE));
+    }
+
+    @Test
+    void agreesWithClippingAgainstEveryTileOnRandomMaps() {
+        Random random = new Random(5);
+        for (int trial = 0; trial < 5000; trial++) {
+            CollisionMask mask = new CollisionMask(10, 10);
+            for (int i = 0; i < 20; i++) mask.setBlocked(random.nextInt(10), random.nextInt(10), true);
+            GridRaycaster raycaster = new GridRaycaster(mask, TILE, TILE);
+            double fromX = random.nextDouble() * 320, fromY = random.nextDouble() * 320;
+            double toX = random.nextDouble() * 320, toY = random.nextDouble() * 320;
+            assertEquals(clippedLineOfSight(mask, fromX, fromY, toX, toY), raycaster.hasLineOfSight(fromX, fromY, toX, toY),
+                    "trial " + trial);
+        }
+    }
+
+    // Whether the segment crosses the inside of no blocked tile other than its start tile (Liang-Barsky
+    // clipping against each tile). Random segments essentially never run exactly along an edge or through a
+    // corner, so the boundary rules do not matter here.
+    private static boolean clippedLineOfSight(CollisionMask mask, double fromX, double fromY, double toX, double toY) {
+        int startX = (int) Math.floor(fromX / TILE), startY = (int) Math.floor(fromY / TILE);
+        for (int y = 0; y < mask.getHeightTiles(); y++) {
+            for (int x = 0; x < mask.getWidthTiles(); x++) {
+                if ((x == startX && y == startY) || !mask.isBlocked(x, y)) continue;
+                double[] range = {0, 1};
+                if (clip(fromX, toX - fromX, x * TILE, (x + 1) * TILE, range)
+                        && clip(fromY, toY - fromY, y * TILE, (y + 1) * TILE, range)
+                        && range[0] < range[1]) return false;
+            }
+        }
+        return true;
+    }
+
+    // Narrows range to the times at which from + delta * t lies within [min, max]; false if there are none
+    private static boolean clip(double from, double delta, double min, double max, double[] range) {
+        if (delta == 0) return from >= min && from <= max;
+        double t0 = (min - from) / delta, t1 = (max - from) / delta;
+        range[0] = Math.max(range[0], Math.min(t0, t1));
+        range[1] = Math.min(range[1], Math.max(t0, t1));
+        return range[0] <= range[1];
+    }
+}
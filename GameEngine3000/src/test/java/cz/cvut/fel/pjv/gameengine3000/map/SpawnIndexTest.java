@@ -0,0 +1,95 @@
+package cz.cvut.fel.pjv.gameengine3000.map;
+
+import cz.cvut.fel.pjv.gameengine3000.physics.Vec2;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpawnIndexTest {
+
+    private static final int COLUMNS = 64, ROWS = 48;
+    private static final double TILE = 32;
+    private static final double WIDTH = 48, HEIGHT = 40; // covers 2 x 2 tiles
+
+    @Test
+    void sampleIsUniformOverTheFreePlacesWithinTheBounds() {
+        Random random = new Random(1);
+        CollisionMask mask = randomMask(random);
+        SpawnIndex index = new SpawnIndex(mask, TILE, TILE);
+        double maxX = 1280, maxY = 720;
+
+        Map<Integer, Integer> hits = new HashMap<>();
+        for (int y = 0; y + 2 <= ROWS; y++) {
+            for (int x = 0; x + 2 <= COLUMNS; x++) {
+                if (mask.isAreaFree(x, y, x + 1, y + 1) && x * TILE + WIDTH <= maxX && y * TILE + HEIGHT <= maxY) {
+                    hits.put(y * COLUMNS + x, 0);
+                }
+            }
+        }
+        assertTrue(hits.size() > 100);
+
+        int samples = hits.size() * 100;
+        Vec2 out = new Vec2();
+        for (int i = 0; i < samples; i++) {
+            assertTrue(index.sample(WIDTH, HEIGHT, maxX, maxY, 0, new double[0], new double[0], 0, random, out));
+            assertTrue(out.getX() + WIDTH / 2 <= maxX && out.getY() + HEIGHT / 2 <= maxY, "box outside the bounds");
+            int anchor = (int) Math.floor((out.getY() - HEIGHT / 2) / TILE) * COLUMNS + (int) Math.floor((out.getX() - WIDTH / 2) / TILE);
+            Integer count = hits.get(anchor);
+            assertTrue(count != null, "sampled a place that is blocked or out of bounds");
+            hits.put(anchor, count + 1);
+        }
+        // Expected 100 per place; a uniform pick stays well inside this range
+        for (int count : hits.values()) assertTrue(count >= 50 && count <= 160, "non-uniform count " + count);
+    }
+
+    @Test
+    void sampleKeepsAwayFromAvoidedPointsWhenItCan() {
+        Random random = new Random(2);
+        SpawnIndex index = new SpawnIndex(randomMask(random), TILE, TILE);
+        double[] avoidX = {640}, avoidY = {360};
+        Vec2 out = new Vec2();
+        for (int i = 0; i < 2000; i++) {
+            assertTrue(index.sample(WIDTH, HEIGHT, 1280, 720, 300, avoidX, avoidY, 1, random, out));
+            double dx = out.getX() - 640, dy = out.getY() - 360;
+            // Distances are measured from the anchored box; the placed one may sit up to a tile closer
+            assertTrue(Math.sqrt(dx * dx + dy * dy) >= 300 - TILE * Math.sqrt(2));
+        }
+    }
+
+    @Test
+    void tileChangedKeepsTheIndexEqualToAFreshOne() {
+        Random random = new Random(3);
+        CollisionMask mask = randomMask(random);
+        SpawnIndex index = new SpawnIndex(mask, TILE, TILE);
+        index.prepare(WIDTH, HEIGHT);
+        index.prepare(16, 16);
+        for (int i = 0; i < 1000; i++) {
+            int x = random.nextInt(COLUMNS), y = random.nextInt(ROWS);
+            mask.setBlocked(x, y, !mask.isBlocked(x, y));
+            index.tileChanged(x, y);
+        }
+
+        SpawnIndex fresh = new SpawnIndex(mask, TILE, TILE);
+        for (double[] size : new double[][] {{WIDTH, HEIGHT}, {16, 16}}) {
+            assertEquals(fresh.countFree(size[0], size[1]), index.countFree(size[0], size[1]));
+            for (int y = 0; y < ROWS; y++) {
+                for (int x = 0; x < COLUMNS; x++) {
+                    double centerX = x * TILE + size[0] / 2, preferredY = y * TILE + size[1] / 2;
+                    assertEquals(fresh.findFreeY(size[0], size[1], centerX, preferredY),
+                            index.findFreeY(size[0], size[1], centerX, preferredY), "column " + x + ", row " + y);
+                }
+            }
+        }
+    }
+
+    private static CollisionMask randomMask(Random random) {
+        CollisionMask mask = new CollisionMask(COLUMNS, ROWS);
+        for (int i = 0; i < COLUMNS * ROWS / 5; i++) mask.setBlocked(random.nextInt(COLUMNS), random.nextInt(ROWS), true);
+        return mask;
+    }
+}
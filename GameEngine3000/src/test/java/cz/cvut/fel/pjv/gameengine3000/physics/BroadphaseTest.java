@@ -0,0 +1,67 @@
+package cz.cvut.fel.pjv.gameengine3000.physics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BroadphaseTest {
+
+    @Test
+    void everyTypeMatchesBruteForceOnRandomUpdates() {
+        for (BroadphaseType type : BroadphaseType.values()) checkAgainstBruteForce(type);
+    }
+
+    private static void checkAgainstBruteForce(BroadphaseType type) {
+        Random random = new Random(type.ordinal() + 1);
+        Broadphase broadphase = type.create(32, 16); // small on purpose so ids beyond it grow the storage
+        Broadphase reference = new BruteForceBroadphase(16);
+        HitList hits = new HitList(), expected = new HitList();
+
+        for (int step = 0; step < 10000; step++) {
+            int operation = random.nextInt(100);
+            int id = random.nextInt(300);
+            if (operation < 70) {
+                double[] box = randomBox(random);
+                broadphase.update(id, box[0], box[1], box[2], box[3]);
+                reference.update(id, box[0], box[1], box[2], box[3]);
+            } else if (operation < 95) {
+                broadphase.remove(id);
+                reference.remove(id);
+            } else if (operation < 96) {
+                broadphase.clear();
+                reference.clear();
+            } else {
+                broadphase.reserve(id + 1);
+            }
+            assertEquals(reference.size(), broadphase.size(), type + ": size at step " + step);
+            assertEquals(reference.contains(id), broadphase.contains(id), type + ": contains at step " + step);
+
+            for (int q = 0; q < 4; q++) {
+                double[] box = randomBox(random);
+                reference.query(box[0], box[1], box[2], box[3], expected);
+                broadphase.query(box[0], box[1], box[2], box[3], hits);
+                assertEquals(expected.toString(), hits.toString(), type + ": query at step " + step);
+                assertEquals(reference.anyOverlap(box[0], box[1], box[2], box[3]),
+                        broadphase.anyOverlap(box[0], box[1], box[2], box[3]), type + ": anyOverlap at step " + step);
+            }
+        }
+    }
+
+    // Mostly entity-sized boxes, some spanning many cells; coordinates on an 8 px grid half of the time so
+    // boxes often touch exactly, which must not count as overlap
+    private static double[] randomBox(Random random) {
+        boolean snapped = random.nextBoolean();
+        double x = -200 + random.nextDouble() * 1400, y = -200 + random.nextDouble() * 1000;
+        double width = random.nextInt(10) == 0 ? random.nextDouble() * 400 : random.nextDouble() * 48;
+        double height = random.nextInt(10) == 0 ? random.nextDouble() * 400 : random.nextDouble() * 48;
+        if (snapped) {
+            x = Math.floor(x / 8) * 8;
+            y = Math.floor(y / 8) * 8;
+            width = Math.ceil(width / 8) * 8;
+            height = Math.ceil(height / 8) * 8;
+        }
+        return new double[] {x, y, width, height};
+    }
+}
@@ -0,0 +1,98 @@
+package cz.cvut.fel.pjv.gameengine3000.physics;
+
+import cz.cvut.fel.pjv.gameengine3000.map.CollisionMask;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SweptAabbSolverTest {
+
+    private static final double TILE = 32;
+    private static final double EPSILON = 1e-3;
+
+    private final CollisionMask mask = new CollisionMask(10, 10);
+    private final SweptAabbSolver solver = new SweptAabbSolver(mask, TILE, TILE);
+    private final Vec2 moved = new Vec2();
+
+    @Test
+    void largeStepStopsAtAThinWall() {
+        for (int row = 0; row < 10; row++) mask.setBlocked(5, row, true); // x in [160, 192)
+        Aabb box = new Aabb(32, 40, 16, 16);
+        solver.move(box, 250, 0, moved);
+        assertEquals(160, box.getMaxX(), EPSILON);
+        assertTrue(box.getMaxX() <= 160);
+        assertEquals(box.getMinX() - 32, moved.getX(), 1e-9);
+        assertEquals(0, moved.getY());
+    }
+
+    @Test
+    void boxFlushAgainstAWallSlidesAlongIt() {
+        for (int row = 0; row < 10; row++) mask.setBlocked(5, row, true);
+        Aabb box = new Aabb(144, 40, 16, 16); // right edge exactly on the wall
+        assertTrue(solver.isFree(box));
+
+        solver.move(box, 0, 100, moved);
+        assertEquals(0, moved.getX());
+        assertEquals(100, moved.getY());
+
+        solver.move(box, 10, -60, moved);
+        assertEquals(0, moved.getX(), 1e-9);
+        assertEquals(-60, moved.getY());
+        assertEquals(160, box.getMaxX());
+    }
+
+    @Test
+    void boxStartingInsideAWallCanWalkOut() {
+        mask.setBlocked(5, 2, true);
+        Aabb box = new Aabb(164, 68, 16, 16); // inside tile (5, 2)
+        assertFalse(solver.isFree(box));
+
+        solver.move(box, 40, 0, moved);
+        assertEquals(40, moved.getX());
+        assertTrue(solver.isFree(box));
+
+        box.set(164, 68, 16, 16);
+        solver.move(box, 0, -50, moved);
+        assertEquals(-50, moved.getY());
+        assertTrue(solver.isFree(box));
+    }
+
+    @Test
+    void diagonalThroughAGapBetweenTwoDiagonalWallsIsBlocked() {
+        mask.setBlocked(3, 2, true);
+        mask.setBlocked(2, 3, true);
+        Aabb box = new Aabb(80, 80, 8, 8); // its lower right corner heads exactly for the shared corner (96, 96)
+        solver.move(box, 32, 32, moved);
+        assertTrue(solver.isFree(box));
+        assertTrue(box.getMaxX() <= 96 && box.getMaxY() <= 96, "box slipped through the corner: " + box);
+    }
+
+    @Test
+    void diagonalIntoACornerTileIsBlocked() {
+        mask.setBlocked(3, 3, true);
+        Aabb box = new Aabb(80, 80, 8, 8);
+        solver.move(box, 32, 32, moved);
+        assertTrue(solver.isFree(box), "box entered the corner tile: " + box);
+    }
+
+    @Test
+    void randomMovesNeverEndInsideAWall() {
+        Random random = new Random(7);
+        for (int i = 0; i < 25; i++) mask.setBlocked(random.nextInt(10), random.nextInt(10), true);
+        Aabb box = new Aabb();
+        for (int trial = 0; trial < 20000; trial++) {
+            box.set(random.nextDouble() * 300, random.nextDouble() * 300, 4 + random.nextDouble() * 40, 4 + random.nextDouble() * 40);
+            if (!solver.isFree(box)) continue;
+            double startX = box.getMinX(), startY = box.getMinY();
+            double scale = random.nextBoolean() ? 20 : 400;
+            solver.move(box, (random.nextDouble() - 0.5) * scale, (random.nextDouble() - 0.5) * scale, moved);
+            assertTrue(solver.isFree(box), "trial " + trial + " ended inside a wall: " + box);
+            assertEquals(box.getMinX() - startX, moved.getX(), 1e-9);
+            assertEquals(box.getMinY() - startY, moved.getY(), 1e-9);
+        }
+    }
+}